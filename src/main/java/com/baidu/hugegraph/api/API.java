@@ -25,6 +25,11 @@ import com.baidu.hugegraph.util.E;
 public abstract class API {
 
     public static final String CHARSET = "UTF-8";
+    /**
+     * @deprecated the batch writes are encoded by the BatchEncoding of the
+     * client, see HugeClientBuilder.configBatchEncoding()
+     */
+    @Deprecated
     public static final String BATCH_ENCODING = "gzip";
     public static final long NO_LIMIT = -1L;
     public static final String PATH_SPLITOR = "/";
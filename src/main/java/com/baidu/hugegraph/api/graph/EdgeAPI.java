@@ -28,11 +28,13 @@ import javax.ws.rs.core.MultivaluedHashMap;
 import com.baidu.hugegraph.client.RestClient;
 import com.baidu.hugegraph.exception.NotAllCreatedException;
 import com.baidu.hugegraph.rest.RestResult;
+import com.baidu.hugegraph.serializer.StreamingJsonOutput;
 import com.baidu.hugegraph.structure.constant.Direction;
 import com.baidu.hugegraph.structure.constant.HugeType;
 import com.baidu.hugegraph.structure.graph.BatchEdgeRequest;
 import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.Edges;
+import com.baidu.hugegraph.structure.graph.PageStream;
 import com.google.common.collect.ImmutableMap;
 
 public class EdgeAPI extends GraphAPI {
@@ -52,11 +54,11 @@ public class EdgeAPI extends GraphAPI {
     }
 
     public List<String> create(List<Edge> edges, boolean checkVertex) {
-        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
-        headers.putSingle("Content-Encoding", BATCH_ENCODING);
+        MultivaluedHashMap<String, Object> headers = this.batchHeaders();
         Map<String, Object> params = ImmutableMap.of("check_vertex",
                                                      checkVertex);
-        RestResult result = this.client.post(this.batchPath(), edges,
+        RestResult result = this.client.post(this.batchPath(),
+                                             new StreamingJsonOutput(edges),
                                              headers, params);
         List<String> ids = result.readList(String.class);
         if (edges.size() != ids.size()) {
@@ -70,10 +72,10 @@ public class EdgeAPI extends GraphAPI {
 
     public List<Edge> update(BatchEdgeRequest request) {
         this.client.checkApiVersion("0.45", "batch property update");
-        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
-        headers.putSingle("Content-Encoding", BATCH_ENCODING);
+        MultivaluedHashMap<String, Object> headers = this.batchHeaders();
         RestResult result = this.client.put(this.batchPath(), null,
-                                            request, headers);
+                                            new StreamingJsonOutput(request),
+                                            headers);
         return result.readList(this.type(), Edge.class);
     }
 
@@ -110,6 +112,32 @@ public class EdgeAPI extends GraphAPI {
     public Edges list(Object vertexId, Direction direction, String label,
                       Map<String, Object> properties, boolean keepP,
                       int offset, String page, int limit) {
+        Map<String, Object> params = this.listParams(vertexId, direction,
+                                                     label, properties, keepP,
+                                                     offset, page, limit);
+        RestResult result = this.client.get(this.path(), params);
+        return result.readObject(Edges.class);
+    }
+
+    /**
+     * Like list() but the edges are decoded lazily while iterating
+     */
+    public PageStream<Edge> listStream(Object vertexId, Direction direction,
+                                       String label,
+                                       Map<String, Object> properties,
+                                       int offset, String page, int limit) {
+        Map<String, Object> params = this.listParams(vertexId, direction,
+                                                     label, properties, false,
+                                                     offset, page, limit);
+        RestResult result = this.client.get(this.path(), params);
+        return new PageStream<>(result.content(), this.type(), Edge.class);
+    }
+
+    private Map<String, Object> listParams(Object vertexId,
+                                           Direction direction, String label,
+                                           Map<String, Object> properties,
+                                           boolean keepP, int offset,
+                                           String page, int limit) {
         checkOffset(offset);
         checkLimit(limit, "Limit");
         String vid = GraphAPI.formatVertexId(vertexId, true);
@@ -123,8 +151,7 @@ public class EdgeAPI extends GraphAPI {
         params.put("offset", offset);
         params.put("limit", limit);
         params.put("page", page);
-        RestResult result = this.client.get(this.path(), params);
-        return result.readObject(Edges.class);
+        return params;
     }
 
     public void delete(String id) {
@@ -22,11 +22,14 @@ package com.baidu.hugegraph.api.graph;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.ws.rs.core.MultivaluedHashMap;
+
 import org.glassfish.jersey.uri.UriComponent;
 import org.glassfish.jersey.uri.UriComponent.Type;
 
 import com.baidu.hugegraph.api.API;
 import com.baidu.hugegraph.client.RestClient;
+import com.baidu.hugegraph.structure.constant.BatchEncoding;
 import com.baidu.hugegraph.util.E;
 import com.baidu.hugegraph.util.JsonUtil;
 
@@ -46,6 +49,15 @@ public abstract class GraphAPI extends API {
         return this.batchPath;
     }
 
+    protected MultivaluedHashMap<String, Object> batchHeaders() {
+        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+        BatchEncoding encoding = this.client.batchEncoding();
+        if (encoding != BatchEncoding.IDENTITY) {
+            headers.putSingle("Content-Encoding", encoding.string());
+        }
+        return headers;
+    }
+
     public static String formatVertexId(Object id) {
         return formatVertexId(id, false);
     }
@@ -65,7 +77,30 @@ public abstract class GraphAPI extends API {
         E.checkArgument(id instanceof String || id instanceof Number,
                         "The vertex id must be either String or " +
                         "Number, but got '%s'", id);
-        return (uuid ? "U" : "") + JsonUtil.toJson(id);
+        return (uuid ? "U" : "") + idToJson(id);
+    }
+
+    /**
+     * The same as JsonUtil.toJson(id), but without the json generator for
+     * the common ids, which are formatted once per vertex in bulk requests
+     */
+    private static String idToJson(Object id) {
+        if (id instanceof Long || id instanceof Integer ||
+            id instanceof Short || id instanceof Byte) {
+            return id.toString();
+        }
+        if (id instanceof String) {
+            String str = (String) id;
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c < 0x20 || c == '"' || c == '\\') {
+                    // Let the json generator escape it
+                    return JsonUtil.toJson(id);
+                }
+            }
+            return '"' + str + '"';
+        }
+        return JsonUtil.toJson(id);
     }
 
     public static String formatProperties(Map<String, Object> properties) {
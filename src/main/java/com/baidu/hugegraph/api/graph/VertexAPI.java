@@ -28,8 +28,10 @@ import javax.ws.rs.core.MultivaluedHashMap;
 import com.baidu.hugegraph.client.RestClient;
 import com.baidu.hugegraph.exception.NotAllCreatedException;
 import com.baidu.hugegraph.rest.RestResult;
+import com.baidu.hugegraph.serializer.StreamingJsonOutput;
 import com.baidu.hugegraph.structure.constant.HugeType;
 import com.baidu.hugegraph.structure.graph.BatchVertexRequest;
+import com.baidu.hugegraph.structure.graph.PageStream;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.baidu.hugegraph.structure.graph.Vertices;
 import com.google.common.collect.ImmutableMap;
@@ -51,9 +53,9 @@ public class VertexAPI extends GraphAPI {
     }
 
     public List<Object> create(List<Vertex> vertices) {
-        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
-        headers.putSingle("Content-Encoding", BATCH_ENCODING);
-        RestResult result = this.client.post(this.batchPath(), vertices,
+        MultivaluedHashMap<String, Object> headers = this.batchHeaders();
+        RestResult result = this.client.post(this.batchPath(),
+                                             new StreamingJsonOutput(vertices),
                                              headers);
         List<Object> ids = result.readList(Object.class);
         if (vertices.size() != ids.size()) {
@@ -67,10 +69,10 @@ public class VertexAPI extends GraphAPI {
 
     public List<Vertex> update(BatchVertexRequest request) {
         this.client.checkApiVersion("0.45", "batch property update");
-        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
-        headers.putSingle("Content-Encoding", BATCH_ENCODING);
+        MultivaluedHashMap<String, Object> headers = this.batchHeaders();
         RestResult result = this.client.put(this.batchPath(), null,
-                                            request, headers);
+                                            new StreamingJsonOutput(request),
+                                            headers);
         return result.readList(this.type(), Vertex.class);
     }
 
@@ -105,6 +107,28 @@ public class VertexAPI extends GraphAPI {
 
     public Vertices list(String label, Map<String, Object> properties,
                          boolean keepP, int offset, String page, int limit) {
+        Map<String, Object> params = this.listParams(label, properties, keepP,
+                                                     offset, page, limit);
+        RestResult result = this.client.get(this.path(), params);
+        return result.readObject(Vertices.class);
+    }
+
+    /**
+     * Like list() but the vertices are decoded lazily while iterating
+     */
+    public PageStream<Vertex> listStream(String label,
+                                         Map<String, Object> properties,
+                                         int offset, String page, int limit) {
+        Map<String, Object> params = this.listParams(label, properties, false,
+                                                     offset, page, limit);
+        RestResult result = this.client.get(this.path(), params);
+        return new PageStream<>(result.content(), this.type(), Vertex.class);
+    }
+
+    private Map<String, Object> listParams(String label,
+                                           Map<String, Object> properties,
+                                           boolean keepP, int offset,
+                                           String page, int limit) {
         checkOffset(offset);
         checkLimit(limit, "Limit");
         String props = GraphAPI.formatProperties(properties);
@@ -115,8 +139,7 @@ public class VertexAPI extends GraphAPI {
         params.put("offset", offset);
         params.put("limit", limit);
         params.put("page", page);
-        RestResult result = this.client.get(this.path(), params);
-        return result.readObject(Vertices.class);
+        return params;
     }
 
     public void delete(Object id) {
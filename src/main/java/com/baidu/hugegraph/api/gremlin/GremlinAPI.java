@@ -41,4 +41,12 @@ public class GremlinAPI extends API {
         RestResult result = this.client.post(this.path(), request);
         return result.readObject(Response.class);
     }
+
+    /**
+     * Post a request serialized in advance
+     */
+    public Response post(String request) {
+        RestResult result = this.client.post(this.path(), request);
+        return result.readObject(Response.class);
+    }
 }
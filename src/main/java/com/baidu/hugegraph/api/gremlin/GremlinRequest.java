@@ -24,6 +24,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import com.baidu.hugegraph.driver.GremlinManager;
 import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.structure.gremlin.ResultStream;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
@@ -55,6 +56,19 @@ public class GremlinRequest {
             return this.manager.execute(this.request);
         }
 
+        /**
+         * Page the results of a read-only gremlin, which must return the
+         * results in a stable order like by an order() step, see
+         * {@link GremlinManager#stream(GremlinRequest, int)}
+         */
+        public ResultStream stream() {
+            return this.stream(GremlinManager.DEFAULT_STREAM_PAGE_SIZE);
+        }
+
+        public ResultStream stream(int sizePerPage) {
+            return this.manager.stream(this.request, sizePerPage);
+        }
+
         public long executeAsTask() {
             return this.manager.executeAsTask(this.request);
         }
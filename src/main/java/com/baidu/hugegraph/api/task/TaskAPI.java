@@ -22,6 +22,10 @@ package com.baidu.hugegraph.api.task;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.baidu.hugegraph.api.API;
 import com.baidu.hugegraph.client.RestClient;
@@ -40,7 +44,6 @@ public class TaskAPI extends API {
     public static final String TASKS = "tasks";
     public static final String TASK_ID = "task_id";
     public static final long TASK_TIMEOUT = 60L;
-    private static final long QUERY_INTERVAL = 500L;
 
     public TaskAPI(RestClient client, String graph) {
         super(client);
@@ -104,44 +107,43 @@ public class TaskAPI extends API {
     }
 
     public Task waitUntilTaskSuccess(long taskId, long seconds) {
-        long passes = seconds * 1000 / QUERY_INTERVAL;
+        CompletableFuture<Task> future = this.watch(taskId);
         try {
-            for (long pass = 0; ; pass++) {
-                Task task = this.getFromCache(taskId);
-                if (task.success()) {
-                    return task;
-                } else if (task.completed()) {
-                    throw new ClientException(
-                              "Task '%s' is %s, result is '%s'",
-                              taskId, task.status(), task.result());
-                }
-                if (pass >= passes) {
-                    break;
-                }
-                try {
-                    // Query every half second from cache to decrease waiting
-                    // time because restful query is executed per second
-                    Thread.sleep(QUERY_INTERVAL);
-                } catch (InterruptedException e) {
-                    // Ignore
-                }
+            Task task = future.get(seconds, TimeUnit.SECONDS);
+            if (!task.success()) {
+                throw new ClientException(
+                          "Task '%s' is %s, result is '%s'",
+                          taskId, task.status(), task.result());
             }
+            return task;
+        } catch (TimeoutException e) {
             throw new ClientException(
                       "Task '%s' not completed in %s seconds, " +
                       "it can still be queried by task-get API",
                       taskId, seconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for " +
+                                      "task '%s'", taskId);
+        } catch (ExecutionException e) {
+            throw new ClientException(String.format(
+                      "Failed to wait for task '%s'", taskId), e.getCause());
         } finally {
             // Stop querying this task info whatever
-            this.removeFromCache(taskId);
+            this.unwatch(taskId, future);
         }
     }
 
-    private Task getFromCache(long taskId) {
-        return TaskCache.instance().get(this, taskId);
+    /**
+     * Watch the task until completed without blocking, each watch should
+     * be paired with an unwatch() unless the future is completed
+     */
+    public CompletableFuture<Task> watch(long taskId) {
+        return TaskCache.instance().watch(this, taskId);
     }
 
-    private void removeFromCache(long taskId) {
-        TaskCache.instance().remove(this, taskId);
+    public void unwatch(long taskId, CompletableFuture<Task> future) {
+        TaskCache.instance().unwatch(this, taskId, future);
     }
 
     public static long parseTaskId(Map<String, Object> task) {
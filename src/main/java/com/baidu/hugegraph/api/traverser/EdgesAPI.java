@@ -27,6 +27,7 @@ import com.baidu.hugegraph.client.RestClient;
 import com.baidu.hugegraph.rest.RestResult;
 import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.Edges;
+import com.baidu.hugegraph.structure.graph.PageStream;
 import com.baidu.hugegraph.structure.graph.Shard;
 import com.baidu.hugegraph.util.E;
 import com.google.common.collect.ImmutableMap;
@@ -60,6 +61,20 @@ public class EdgesAPI extends TraversersAPI {
     }
 
     public Edges scan(Shard shard, String page, long pageLimit) {
+        RestResult result = this.scanResult(shard, page, pageLimit);
+        return result.readObject(Edges.class);
+    }
+
+    /**
+     * Like scan() but the edges are decoded lazily while iterating
+     */
+    public PageStream<Edge> scanStream(Shard shard, String page,
+                                     long pageLimit) {
+        RestResult result = this.scanResult(shard, page, pageLimit);
+        return new PageStream<>(result.content(), this.type(), Edge.class);
+    }
+
+    private RestResult scanResult(Shard shard, String page, long pageLimit) {
         E.checkArgument(shard != null, "Shard can't be null");
         String path = String.join(PATH_SPLITOR, this.path(), "scan");
         Map<String, Object> params = new LinkedHashMap<>();
@@ -67,8 +82,7 @@ public class EdgesAPI extends TraversersAPI {
         params.put("end", shard.end());
         params.put("page", page);
         params.put("page_limit", pageLimit);
-        RestResult result = this.client.get(path, params);
-        return result.readObject(Edges.class);
+        return this.client.get(path, params);
     }
 }
 
@@ -27,6 +27,7 @@ import java.util.Map;
 import com.baidu.hugegraph.api.graph.GraphAPI;
 import com.baidu.hugegraph.client.RestClient;
 import com.baidu.hugegraph.rest.RestResult;
+import com.baidu.hugegraph.structure.graph.PageStream;
 import com.baidu.hugegraph.structure.graph.Shard;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.baidu.hugegraph.structure.graph.Vertices;
@@ -67,6 +68,20 @@ public class VerticesAPI extends TraversersAPI {
     }
 
     public Vertices scan(Shard shard, String page, long pageLimit) {
+        RestResult result = this.scanResult(shard, page, pageLimit);
+        return result.readObject(Vertices.class);
+    }
+
+    /**
+     * Like scan() but the vertices are decoded lazily while iterating
+     */
+    public PageStream<Vertex> scanStream(Shard shard, String page,
+                                     long pageLimit) {
+        RestResult result = this.scanResult(shard, page, pageLimit);
+        return new PageStream<>(result.content(), this.type(), Vertex.class);
+    }
+
+    private RestResult scanResult(Shard shard, String page, long pageLimit) {
         E.checkArgument(shard != null, "Shard can't be null");
         String path = String.join(PATH_SPLITOR, this.path(), "scan");
         Map<String, Object> params = new LinkedHashMap<>();
@@ -74,8 +89,7 @@ public class VerticesAPI extends TraversersAPI {
         params.put("end", shard.end());
         params.put("page", page);
         params.put("page_limit", pageLimit);
-        RestResult result = this.client.get(path, params);
-        return result.readObject(Vertices.class);
+        return this.client.get(path, params);
     }
 }
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.client;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.util.E;
+
+/**
+ * CircuitBreaker rejects the requests of an endpoint whose failure rate
+ * exceeds the threshold, to shed the load of a failing server instead of
+ * waiting for timeouts and retrying. The failure rate is counted in a
+ * tumbling window of WINDOW milliseconds with at least minRequests.
+ *
+ * An endpoint is CLOSED normally, OPEN for openTime seconds after tripped,
+ * then HALF_OPEN to let a single trial request through: it's CLOSED if the
+ * trial succeeded, or OPEN again if failed. Only the result of the trial
+ * moves it out of HALF_OPEN, and the trial not sent is given to the next
+ * request.
+ */
+public class CircuitBreaker {
+
+    private static final long WINDOW = 10000L;
+    private static final int MAX_ENDPOINTS = 1000;
+    private static final String OTHER = "{other}";
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final double failureRate;
+    private final int minRequests;
+    private final long openTime;
+    private final Map<String, Breaker> breakers;
+
+    /**
+     * @param failureRate the failure rate to trip the breaker, in (0, 1]
+     * @param minRequests the min requests in a window to trip the breaker
+     * @param openTime    the seconds to reject the requests once tripped
+     */
+    public CircuitBreaker(double failureRate, int minRequests, long openTime) {
+        E.checkArgument(failureRate > 0D && failureRate <= 1D,
+                        "The failure rate must be in (0, 1], but got %s",
+                        failureRate);
+        E.checkArgument(minRequests > 0,
+                        "The min requests must be > 0, but got %s",
+                        minRequests);
+        E.checkArgument(openTime > 0,
+                        "The open time must be > 0, but got %s", openTime);
+        this.failureRate = failureRate;
+        this.minRequests = minRequests;
+        this.openTime = openTime * 1000L;
+        this.breakers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the endpoint of the request, like "GET graphs/{graph}/schema"
+     */
+    public String endpoint(String method, String path) {
+        String endpoint = method + " " + RequestMetrics.template(path);
+        if (!this.breakers.containsKey(endpoint) &&
+            this.breakers.size() >= MAX_ENDPOINTS) {
+            endpoint = method + " " + OTHER;
+        }
+        return endpoint;
+    }
+
+    /**
+     * Acquire to send a request to the endpoint, throw ClientException if
+     * the breaker is open, return whether the request is the trial of the
+     * half open breaker
+     */
+    public boolean acquire(String endpoint) {
+        Breaker breaker = this.breakers.computeIfAbsent(endpoint, k -> {
+            return new Breaker();
+        });
+        Boolean trial = breaker.acquire(System.currentTimeMillis());
+        if (trial == null) {
+            throw new ClientException("The circuit breaker of '%s' is open " +
+                                      "due to too many failures", endpoint);
+        }
+        return trial;
+    }
+
+    /**
+     * Record the result of a request sent, the trial is the one returned
+     * by acquire()
+     */
+    public void record(String endpoint, boolean trial, boolean failed) {
+        Breaker breaker = this.breakers.get(endpoint);
+        if (breaker != null) {
+            breaker.record(System.currentTimeMillis(), trial, failed);
+        }
+    }
+
+    /**
+     * Cancel a request acquired but not sent or without a result, it's
+     * not counted and the trial is given to the next request
+     */
+    public void cancel(String endpoint, boolean trial) {
+        Breaker breaker = this.breakers.get(endpoint);
+        if (breaker != null && trial) {
+            breaker.cancel();
+        }
+    }
+
+    public State state(String endpoint) {
+        Breaker breaker = this.breakers.get(endpoint);
+        return breaker == null ? State.CLOSED : breaker.state;
+    }
+
+    /**
+     * The state of each endpoint requested, sorted by the endpoint
+     */
+    public Map<String, State> states() {
+        Map<String, State> states = new TreeMap<>();
+        for (Map.Entry<String, Breaker> e : this.breakers.entrySet()) {
+            states.put(e.getKey(), e.getValue().state);
+        }
+        return states;
+    }
+
+    private class Breaker {
+
+        private volatile State state = State.CLOSED;
+        private long windowStart = 0L;
+        private int requests = 0;
+        private int failures = 0;
+        private long openedAt = 0L;
+        private boolean trying = false;
+
+        /**
+         * Return whether it's the trial request, or null if rejected
+         */
+        public synchronized Boolean acquire(long now) {
+            switch (this.state) {
+                case CLOSED:
+                    return false;
+                case OPEN:
+                    if (now - this.openedAt < CircuitBreaker.this.openTime) {
+                        return null;
+                    }
+                    this.state = State.HALF_OPEN;
+                    this.trying = true;
+                    return true;
+                case HALF_OPEN:
+                    // Only the trial request is let through
+                    if (this.trying) {
+                        return null;
+                    }
+                    this.trying = true;
+                    return true;
+                default:
+                    throw new AssertionError("Unknown state " + this.state);
+            }
+        }
+
+        public synchronized void record(long now, boolean trial,
+                                        boolean failed) {
+            if (this.state == State.HALF_OPEN) {
+                if (!trial) {
+                    // The requests acquired before tripped
+                    return;
+                }
+                this.trying = false;
+                if (failed) {
+                    this.open(now);
+                } else {
+                    this.state = State.CLOSED;
+                    this.reset(now);
+                }
+                return;
+            }
+            if (this.state == State.OPEN) {
+                // The requests acquired before tripped
+                return;
+            }
+            if (now - this.windowStart >= WINDOW) {
+                this.reset(now);
+            }
+            this.requests++;
+            if (failed) {
+                this.failures++;
+            }
+            CircuitBreaker breaker = CircuitBreaker.this;
+            if (this.requests >= breaker.minRequests &&
+                this.failures >= this.requests * breaker.failureRate) {
+                this.open(now);
+            }
+        }
+
+        public synchronized void cancel() {
+            if (this.state == State.HALF_OPEN) {
+                this.trying = false;
+            }
+        }
+
+        private void open(long now) {
+            this.state = State.OPEN;
+            this.openedAt = now;
+        }
+
+        private void reset(long now) {
+            this.windowStart = now;
+            this.requests = 0;
+            this.failures = 0;
+        }
+    }
+}
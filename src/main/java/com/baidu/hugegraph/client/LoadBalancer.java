@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.ws.rs.ProcessingException;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.rest.RestResult;
+import com.baidu.hugegraph.structure.constant.BalancePolicy;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * LoadBalancer spreads the requests over the server nodes sharing the same
+ * backend, each node is a rest client of its own url. A node is marked
+ * down when it can't be reached, then the requests fail over to the other
+ * nodes until the health check finds it up again.
+ *
+ * Only the requests that didn't reach the node fail over, since the others
+ * may have been executed by the server.
+ */
+public class LoadBalancer {
+
+    private static final Logger LOG = Log.logger(LoadBalancer.class);
+
+    private static final String HEALTH_CHECK_PATH = "versions";
+    // The weight of the latest latency in the moving average
+    private static final double LATENCY_ALPHA = 0.2D;
+
+    private final List<Node> nodes;
+    private final BalancePolicy policy;
+    private final AtomicLong counter;
+    private final ScheduledExecutorService checker;
+
+    /**
+     * @param clients        the rest clients of each node
+     * @param checkInterval  the seconds between the health checks
+     */
+    public LoadBalancer(List<RestClient> clients, BalancePolicy policy,
+                        long checkInterval) {
+        E.checkArgument(clients != null && !clients.isEmpty(),
+                        "The nodes to balance can't be empty");
+        E.checkArgumentNotNull(policy, "The balance policy can't be null");
+        E.checkArgument(checkInterval > 0,
+                        "The health check interval must be > 0, but got %s",
+                        checkInterval);
+        List<Node> nodes = new ArrayList<>(clients.size());
+        for (RestClient client : clients) {
+            nodes.add(new Node(client));
+        }
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.policy = policy;
+        this.counter = new AtomicLong();
+        this.checker = ExecutorUtil.newScheduledThreadPool("health-check");
+        this.checker.scheduleWithFixedDelay(this::checkHealth, checkInterval,
+                                            checkInterval, TimeUnit.SECONDS);
+    }
+
+    public BalancePolicy policy() {
+        return this.policy;
+    }
+
+    public List<Node> nodes() {
+        return this.nodes;
+    }
+
+    public RestResult send(Function<RestClient, RestResult> request) {
+        List<Node> tried = new ArrayList<>(1);
+        while (true) {
+            Node node = this.choose(tried);
+            tried.add(node);
+            node.inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                RestResult result = request.apply(node.client);
+                node.succeed(System.nanoTime() - start);
+                return result;
+            } catch (ProcessingException e) {
+                if (!RetryPolicy.unreached(e)) {
+                    throw e;
+                }
+                node.down(e);
+                if (tried.size() >= this.nodes.size()) {
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                // Responded by the server, like a ServerException
+                node.succeed(System.nanoTime() - start);
+                throw e;
+            } finally {
+                node.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Choose a healthy node not tried yet, or any node not tried if all
+     * of them are down
+     */
+    private Node choose(List<Node> tried) {
+        List<Node> candidates = new ArrayList<>(this.nodes.size());
+        for (Node node : this.nodes) {
+            if (node.up && !tried.contains(node)) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (Node node : this.nodes) {
+                if (!tried.contains(node)) {
+                    candidates.add(node);
+                }
+            }
+        }
+        assert !candidates.isEmpty();
+
+        int size = candidates.size();
+        int offset = (int) (this.counter.getAndIncrement() % size);
+        if (this.policy == BalancePolicy.ROUND_ROBIN) {
+            return candidates.get(offset);
+        }
+        // Start from a rotating offset to break the ties
+        Node chosen = null;
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Node node = candidates.get((offset + i) % size);
+            double score = node.inFlight.get();
+            if (this.policy == BalancePolicy.LATENCY_WEIGHTED) {
+                score = (score + 1) * node.latency;
+            }
+            if (score < min) {
+                min = score;
+                chosen = node;
+            }
+        }
+        return chosen;
+    }
+
+    private void checkHealth() {
+        for (Node node : this.nodes) {
+            if (node.up) {
+                continue;
+            }
+            try {
+                RestClient.direct(() -> node.client.get(HEALTH_CHECK_PATH));
+                node.up = true;
+                LOG.info("The server node {} is up", node.url());
+            } catch (Throwable e) {
+                LOG.debug("The server node {} is still down", node.url(), e);
+            }
+        }
+    }
+
+    /**
+     * Stop the health check, the clients of the nodes are not closed since
+     * they are owned by the caller
+     */
+    public void close() {
+        this.checker.shutdownNow();
+    }
+
+    public static class Node {
+
+        private final RestClient client;
+        private final AtomicInteger inFlight;
+        private volatile double latency;
+        private volatile boolean up;
+
+        public Node(RestClient client) {
+            this.client = client;
+            this.inFlight = new AtomicInteger();
+            this.latency = 0D;
+            this.up = true;
+        }
+
+        public String url() {
+            return this.client.url();
+        }
+
+        public boolean up() {
+            return this.up;
+        }
+
+        public int inFlight() {
+            return this.inFlight.get();
+        }
+
+        /**
+         * The moving average of the latency in milliseconds
+         */
+        public double latency() {
+            return this.latency;
+        }
+
+        private void succeed(long nanos) {
+            // The lost updates by races are acceptable for an estimation
+            double millis = nanos / 1000000D;
+            this.latency = this.latency == 0D ? millis :
+                           this.latency + LATENCY_ALPHA *
+                                          (millis - this.latency);
+            this.up = true;
+        }
+
+        private void down(Throwable e) {
+            if (this.up) {
+                this.up = false;
+                LOG.warn("The server node {} is down: {}", this.url(),
+                         e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.client;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * Dump the snapshots of the client request metrics to the log
+ */
+public class LogMetricsReporter implements MetricsReporter {
+
+    private static final Logger LOG = Log.logger(LogMetricsReporter.class);
+
+    @Override
+    public void report(Map<String, Map<String, Object>> metrics) {
+        for (Map.Entry<String, Map<String, Object>> e : metrics.entrySet()) {
+            LOG.info("Client requests of '{}': {}", e.getKey(), e.getValue());
+        }
+    }
+}
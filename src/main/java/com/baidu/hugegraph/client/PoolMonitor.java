@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * PoolMonitor samples the connection pool of the rest client periodically,
+ * it closes the connections idle longer than the idle time on each sample.
+ *
+ * In the adaptive mode, the pool grows by half when the leases are found
+ * pending, up to the limit, and shrinks by a quarter, down to the initial
+ * size, when less than half of it has been used for SHRINK_SAMPLES samples.
+ */
+public class PoolMonitor {
+
+    private static final Logger LOG = Log.logger(PoolMonitor.class);
+
+    private static final long PERIOD = 1000L;
+    private static final int SHRINK_SAMPLES = 30;
+
+    private final PoolingHttpClientConnectionManager pool;
+    private final long idleTime;
+    private final int minConns;
+    private final int minConnsPerRoute;
+    private final int maxConnsLimit;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+    private final ScheduledFuture<?> sampler;
+
+    private volatile PoolStats stats;
+    private long samples;
+    private long pendingSamples;
+    private int maxPending;
+    private int underusedSamples;
+    private long grows;
+    private long shrinks;
+
+    /**
+     * @param idleTime      the max seconds a connection can be idle
+     * @param maxConnsLimit the max size of the adaptive pool, 0 means the
+     *                      pool is not adaptive
+     */
+    public PoolMonitor(PoolingHttpClientConnectionManager pool,
+                       int idleTime, int maxConnsLimit) {
+        this(pool, idleTime, maxConnsLimit,
+             ExecutorUtil.newScheduledThreadPool("pool-monitor"), true);
+    }
+
+    /**
+     * Sample the pool by the scheduler shared with the monitors of the
+     * other pools, which is owned and shut down by the caller
+     */
+    public PoolMonitor(PoolingHttpClientConnectionManager pool,
+                       int idleTime, int maxConnsLimit,
+                       ScheduledExecutorService scheduler) {
+        this(pool, idleTime, maxConnsLimit, scheduler, false);
+    }
+
+    private PoolMonitor(PoolingHttpClientConnectionManager pool,
+                        int idleTime, int maxConnsLimit,
+                        ScheduledExecutorService scheduler,
+                        boolean ownScheduler) {
+        E.checkNotNull(pool, "connection pool");
+        E.checkNotNull(scheduler, "scheduler");
+        E.checkArgument(idleTime > 0,
+                        "The idle time must be > 0, but got %s", idleTime);
+        this.pool = pool;
+        this.idleTime = idleTime;
+        this.minConns = pool.getMaxTotal();
+        this.minConnsPerRoute = pool.getDefaultMaxPerRoute();
+        E.checkArgument(maxConnsLimit == 0 || maxConnsLimit >= this.minConns,
+                        "The max connections limit must be 0 or >= %s, " +
+                        "but got %s", this.minConns, maxConnsLimit);
+        this.maxConnsLimit = maxConnsLimit;
+        this.stats = pool.getTotalStats();
+        this.scheduler = scheduler;
+        this.ownScheduler = ownScheduler;
+        this.sampler = scheduler.scheduleWithFixedDelay(
+                                 this::sample, PERIOD, PERIOD,
+                                 TimeUnit.MILLISECONDS);
+    }
+
+    public boolean adaptive() {
+        return this.maxConnsLimit > 0;
+    }
+
+    /**
+     * The leased, pending, available and max connections of the last sample
+     */
+    public PoolStats stats() {
+        return this.stats;
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        PoolStats stats = this.stats;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("leased", stats.getLeased());
+        metrics.put("pending", stats.getPending());
+        metrics.put("available", stats.getAvailable());
+        metrics.put("max", stats.getMax());
+        metrics.put("max_per_route", this.pool.getDefaultMaxPerRoute());
+        metrics.put("samples", this.samples);
+        metrics.put("pending_samples", this.pendingSamples);
+        metrics.put("max_pending", this.maxPending);
+        metrics.put("adaptive", this.adaptive());
+        metrics.put("grows", this.grows);
+        metrics.put("shrinks", this.shrinks);
+        return metrics;
+    }
+
+    public void close() {
+        this.sampler.cancel(false);
+        if (this.ownScheduler) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    synchronized void sample() {
+        try {
+            PoolStats stats = this.pool.getTotalStats();
+            this.stats = stats;
+            this.samples++;
+            if (stats.getPending() > 0) {
+                this.pendingSamples++;
+                this.maxPending = Math.max(this.maxPending,
+                                           stats.getPending());
+            }
+            if (this.adaptive()) {
+                this.adapt(stats);
+            }
+            this.pool.closeExpiredConnections();
+            this.pool.closeIdleConnections(this.idleTime, TimeUnit.SECONDS);
+        } catch (Throwable e) {
+            LOG.warn("Failed to sample the connection pool", e);
+        }
+    }
+
+    private void adapt(PoolStats stats) {
+        int max = stats.getMax();
+        if (stats.getPending() > 0) {
+            this.underusedSamples = 0;
+            if (max < this.maxConnsLimit) {
+                this.resize(Math.min(max + Math.max(max / 2, 1),
+                                     this.maxConnsLimit));
+                this.grows++;
+            }
+        } else if (stats.getLeased() < max / 2 && max > this.minConns) {
+            if (++this.underusedSamples >= SHRINK_SAMPLES) {
+                this.underusedSamples = 0;
+                this.resize(Math.max(max - max / 4, this.minConns));
+                this.shrinks++;
+            }
+        } else {
+            this.underusedSamples = 0;
+        }
+    }
+
+    private void resize(int maxConns) {
+        // Keep the ratio of the max connections per route to the total
+        long perRoute = (long) this.minConnsPerRoute * maxConns /
+                        this.minConns;
+        int maxConnsPerRoute = (int) Math.max(perRoute, 1L);
+        LOG.debug("Resize the connection pool from {} to {}, per route {}",
+                  this.pool.getMaxTotal(), maxConns, maxConnsPerRoute);
+        this.pool.setMaxTotal(maxConns);
+        this.pool.setDefaultMaxPerRoute(maxConnsPerRoute);
+    }
+}
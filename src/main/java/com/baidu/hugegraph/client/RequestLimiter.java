@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.client;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.constant.ApiFamily;
+import com.baidu.hugegraph.util.E;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * RequestLimiter limits the rate and the requests in flight of each api
+ * family, the requests over the limits wait until permitted.
+ *
+ * The requests are either interactive or bulk: the batch writes, the
+ * traversers and the gremlin requests are bulk, except the lookups of the
+ * vertices or edges by ids of the traversers api, which serve the batched
+ * single lookups and are point reads. The interactive requests
+ * waiting are permitted before the bulk ones of the same family, and the
+ * bulk requests in flight of all the families can be limited together,
+ * so the interactive ones like getting a vertex don't queue for a
+ * connection behind the bulk ones.
+ */
+public class RequestLimiter {
+
+    private static final String GRAPHS = "graphs";
+    private static final String BATCH = "/batch";
+    private static final String VERTICES = "vertices";
+    private static final String EDGES = "edges";
+
+    private final Map<ApiFamily, Limit> limits;
+    private volatile Limit bulk;
+
+    public RequestLimiter() {
+        this.limits = new EnumMap<>(ApiFamily.class);
+        this.bulk = null;
+    }
+
+    /**
+     * Limit the family to rate requests per second, 0 means unlimited,
+     * and maxInFlight requests in flight, 0 means unlimited
+     */
+    public synchronized void limit(ApiFamily family, double rate,
+                                   int maxInFlight) {
+        E.checkArgument(family != ApiFamily.OTHER,
+                        "The api family %s can't be limited", family);
+        this.limits.put(family, new Limit(rate, maxInFlight));
+    }
+
+    /**
+     * Limit the bulk requests in flight of all the families
+     */
+    public void limitBulk(int maxInFlight) {
+        E.checkArgument(maxInFlight > 0,
+                        "The max bulk requests in flight must be > 0, " +
+                        "but got %s", maxInFlight);
+        this.bulk = new Limit(0D, maxInFlight);
+    }
+
+    /**
+     * Wait until the request is permitted, the permit must be released
+     * after the request is done
+     */
+    public Permit acquire(String method, String path) {
+        ApiFamily family = family(method, path);
+        boolean bulk = bulk(family, path);
+        Limit limit = this.limits.get(family);
+        Limit bulkLimit = bulk ? this.bulk : null;
+        if (limit == null && bulkLimit == null) {
+            return Permit.NONE;
+        }
+        try {
+            if (limit != null) {
+                limit.acquire(!bulk);
+            }
+            if (bulkLimit != null) {
+                try {
+                    bulkLimit.acquire(false);
+                } catch (InterruptedException e) {
+                    if (limit != null) {
+                        limit.release();
+                    }
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for the " +
+                                      "limit of %s", family);
+        }
+        return new Permit(limit, bulkLimit);
+    }
+
+    /**
+     * The state of each limit, keyed by the family or "bulk"
+     */
+    public Map<String, Map<String, Object>> metrics() {
+        Map<String, Map<String, Object>> metrics = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Map.Entry<ApiFamily, Limit> e : this.limits.entrySet()) {
+                metrics.put(e.getKey().name().toLowerCase(),
+                            e.getValue().metrics());
+            }
+        }
+        Limit bulk = this.bulk;
+        if (bulk != null) {
+            metrics.put("bulk", bulk.metrics());
+        }
+        return metrics;
+    }
+
+    public static ApiFamily family(String method, String path) {
+        String[] segments = path.split("/");
+        if (segments[0].equals("gremlin")) {
+            return ApiFamily.GREMLIN;
+        }
+        if (segments.length < 3 || !GRAPHS.equals(segments[0])) {
+            return ApiFamily.OTHER;
+        }
+        switch (segments[2]) {
+            case "graph":
+                return "GET".equals(method) ? ApiFamily.GRAPH_READ :
+                                              ApiFamily.GRAPH_WRITE;
+            case "traversers":
+                if (segments.length == 4 && (VERTICES.equals(segments[3]) ||
+                                             EDGES.equals(segments[3]))) {
+                    return ApiFamily.GRAPH_READ;
+                }
+                return ApiFamily.TRAVERSER;
+            case "schema":
+                return ApiFamily.SCHEMA;
+            case "jobs":
+                if (segments.length > 3 && segments[3].equals("gremlin")) {
+                    return ApiFamily.GREMLIN;
+                }
+                return ApiFamily.OTHER;
+            default:
+                return ApiFamily.OTHER;
+        }
+    }
+
+    public static boolean bulk(ApiFamily family, String path) {
+        switch (family) {
+            case TRAVERSER:
+            case GREMLIN:
+                return true;
+            case GRAPH_WRITE:
+                return path.endsWith(BATCH);
+            default:
+                return false;
+        }
+    }
+
+    public static class Permit {
+
+        private static final Permit NONE = new Permit(null, null);
+
+        private final Limit limit;
+        private final Limit bulk;
+
+        private Permit(Limit limit, Limit bulk) {
+            this.limit = limit;
+            this.bulk = bulk;
+        }
+
+        public void release() {
+            if (this.bulk != null) {
+                this.bulk.release();
+            }
+            if (this.limit != null) {
+                this.limit.release();
+            }
+        }
+    }
+
+    private static class Limit {
+
+        private final double rate;
+        private final RateLimiter rateLimiter;
+        private final int maxInFlight;
+        private final LongAdder throttled;
+
+        private int inFlight;
+        private int waiting;
+        private int waitingInteractive;
+
+        public Limit(double rate, int maxInFlight) {
+            E.checkArgument(rate >= 0D,
+                            "The rate limit must be >= 0, but got %s", rate);
+            E.checkArgument(maxInFlight >= 0,
+                            "The max requests in flight must be >= 0, " +
+                            "but got %s", maxInFlight);
+            this.rate = rate;
+            this.rateLimiter = rate > 0D ? RateLimiter.create(rate) : null;
+            this.maxInFlight = maxInFlight;
+            this.throttled = new LongAdder();
+            this.inFlight = 0;
+            this.waiting = 0;
+            this.waitingInteractive = 0;
+        }
+
+        public void acquire(boolean interactive)
+                            throws InterruptedException {
+            if (this.rateLimiter != null &&
+                !this.rateLimiter.tryAcquire()) {
+                this.throttled.increment();
+                this.rateLimiter.acquire();
+            }
+            synchronized (this) {
+                if (this.maxInFlight > 0 && !this.permitted(interactive)) {
+                    this.throttled.increment();
+                    this.waiting++;
+                    if (interactive) {
+                        this.waitingInteractive++;
+                    }
+                    try {
+                        while (!this.permitted(interactive)) {
+                            this.wait();
+                        }
+                    } finally {
+                        this.waiting--;
+                        if (interactive) {
+                            this.waitingInteractive--;
+                            // The bulk ones may wait for it
+                            this.notifyAll();
+                        }
+                    }
+                }
+                this.inFlight++;
+            }
+        }
+
+        public synchronized void release() {
+            this.inFlight--;
+            this.notifyAll();
+        }
+
+        private boolean permitted(boolean interactive) {
+            if (this.maxInFlight > 0 && this.inFlight >= this.maxInFlight) {
+                return false;
+            }
+            return interactive || this.waitingInteractive == 0;
+        }
+
+        public synchronized Map<String, Object> metrics() {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("rate", this.rate);
+            metrics.put("max_in_flight", this.maxInFlight);
+            metrics.put("in_flight", this.inFlight);
+            metrics.put("waiting", this.waiting);
+            metrics.put("throttled", this.throttled.sum());
+            return metrics;
+        }
+    }
+}
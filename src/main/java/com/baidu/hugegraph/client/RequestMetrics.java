@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.client;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * RequestMetrics records the requests of a client per endpoint, which is
+ * the request method and the path template like "GET graphs/{graph}/graph/
+ * vertices". All the counters are LongAdders and the latency histogram has
+ * fixed buckets, so recording a request doesn't lock.
+ */
+public class RequestMetrics {
+
+    private static final Logger LOG = Log.logger(RequestMetrics.class);
+
+    // The upper bounds of the latency buckets in milliseconds
+    private static final long[] BUCKETS = {1L, 2L, 5L, 10L, 20L, 50L, 100L,
+                                           200L, 500L, 1000L, 2000L, 5000L,
+                                           10000L, Long.MAX_VALUE};
+    private static final int MAX_ENDPOINTS = 1000;
+    private static final String GRAPHS = "graphs";
+    private static final String OTHER = "{other}";
+
+    private final Map<String, String> templates;
+    private final Map<String, Endpoint> endpoints;
+    private final List<ScheduledExecutorService> reporters;
+
+    public RequestMetrics() {
+        this.templates = new ConcurrentHashMap<>();
+        this.endpoints = new ConcurrentHashMap<>();
+        this.reporters = new ArrayList<>();
+    }
+
+    public Endpoint endpoint(String method, String path) {
+        String template = this.templates.get(path);
+        if (template == null) {
+            template = template(path);
+            if (this.templates.size() < MAX_ENDPOINTS) {
+                this.templates.put(path, template);
+            }
+        }
+        String key = method + " " + template;
+        Endpoint endpoint = this.endpoints.get(key);
+        if (endpoint == null) {
+            if (this.endpoints.size() >= MAX_ENDPOINTS) {
+                key = method + " " + OTHER;
+            }
+            endpoint = this.endpoints.computeIfAbsent(key, k -> {
+                return new Endpoint();
+            });
+        }
+        return endpoint;
+    }
+
+    /**
+     * The metrics of each endpoint requested, sorted by the endpoint
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        for (Map.Entry<String, Endpoint> e : this.endpoints.entrySet()) {
+            metrics.put(e.getKey(), e.getValue().snapshot());
+        }
+        return metrics;
+    }
+
+    /**
+     * Report the snapshot every period seconds until closed
+     */
+    public synchronized void addReporter(MetricsReporter reporter,
+                                         long period) {
+        E.checkArgumentNotNull(reporter, "The metrics reporter can't be null");
+        E.checkArgument(period > 0,
+                        "The report period must be > 0, but got %s", period);
+        ScheduledExecutorService scheduler;
+        scheduler = ExecutorUtil.newScheduledThreadPool("metrics-reporter");
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                reporter.report(this.snapshot());
+            } catch (Throwable e) {
+                LOG.warn("Failed to report the client metrics", e);
+            }
+        }, period, period, TimeUnit.SECONDS);
+        this.reporters.add(scheduler);
+    }
+
+    public synchronized void close() {
+        for (ScheduledExecutorService scheduler : this.reporters) {
+            scheduler.shutdownNow();
+        }
+        this.reporters.clear();
+    }
+
+    /**
+     * Replace the graph name and the ids in the path with placeholders,
+     * the segments of api names are composed of lowercase letters
+     */
+    static String template(String path) {
+        String[] segments = path.split("/");
+        StringBuilder template = new StringBuilder(path.length());
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (i > 0) {
+                template.append('/');
+                if (GRAPHS.equals(segments[i - 1])) {
+                    template.append("{graph}");
+                    continue;
+                }
+            }
+            template.append(isApiName(segment) ? segment : "{id}");
+        }
+        return template.toString();
+    }
+
+    private static boolean isApiName(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if ((c < 'a' || c > 'z') && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return !segment.isEmpty();
+    }
+
+    public static class Endpoint {
+
+        private final LongAdder requests;
+        private final LongAdder inFlight;
+        private final LongAdder errors;
+        private final Map<Integer, LongAdder> errorsByStatus;
+        private final LongAdder requestBytes;
+        private final LongAdder responseBytes;
+        private final LongAdder totalTime;
+        private final LongAccumulator maxTime;
+        private final LongAdder[] histogram;
+
+        public Endpoint() {
+            this.requests = new LongAdder();
+            this.inFlight = new LongAdder();
+            this.errors = new LongAdder();
+            this.errorsByStatus = new ConcurrentHashMap<>();
+            this.requestBytes = new LongAdder();
+            this.responseBytes = new LongAdder();
+            this.totalTime = new LongAdder();
+            this.maxTime = new LongAccumulator(Math::max, 0L);
+            this.histogram = new LongAdder[BUCKETS.length];
+            for (int i = 0; i < BUCKETS.length; i++) {
+                this.histogram[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Mark a request started, return the start time in nanoseconds
+         */
+        public long start() {
+            this.inFlight.increment();
+            return System.nanoTime();
+        }
+
+        /**
+         * Record a succeeded request, the request bytes are 0 if unknown
+         */
+        public void succeed(long start, long requestBytes,
+                            long responseBytes) {
+            this.finish(start);
+            this.requestBytes.add(requestBytes);
+            this.responseBytes.add(responseBytes);
+        }
+
+        /**
+         * Record a failed request, the status of the server errors, or 0
+         * for the client errors like timeouts
+         */
+        public void fail(long start, Throwable error) {
+            this.finish(start);
+            this.errors.increment();
+            int status = error instanceof ServerException ?
+                         ((ServerException) error).status() : 0;
+            this.errorsByStatus.computeIfAbsent(status, s -> new LongAdder())
+                               .increment();
+        }
+
+        private void finish(long start) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() -
+                                                        start);
+            this.inFlight.decrement();
+            this.requests.increment();
+            this.totalTime.add(millis);
+            this.maxTime.accumulate(millis);
+            int i = 0;
+            while (millis > BUCKETS[i]) {
+                i++;
+            }
+            this.histogram[i].increment();
+        }
+
+        public Map<String, Object> snapshot() {
+            long requests = this.requests.sum();
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("requests", requests);
+            metrics.put("in_flight", this.inFlight.sum());
+            metrics.put("errors", this.errors.sum());
+            Map<Integer, Long> errorsByStatus = new TreeMap<>();
+            for (Map.Entry<Integer, LongAdder> e :
+                 this.errorsByStatus.entrySet()) {
+                errorsByStatus.put(e.getKey(), e.getValue().sum());
+            }
+            metrics.put("errors_by_status", errorsByStatus);
+            metrics.put("request_bytes", this.requestBytes.sum());
+            metrics.put("response_bytes", this.responseBytes.sum());
+            metrics.put("mean_ms", requests == 0L ? 0D :
+                                   (double) this.totalTime.sum() / requests);
+            long max = this.maxTime.get();
+            metrics.put("max_ms", max);
+
+            long[] counts = new long[BUCKETS.length];
+            long total = 0L;
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKETS.length; i++) {
+                counts[i] = this.histogram[i].sum();
+                total += counts[i];
+                String bucket = BUCKETS[i] == Long.MAX_VALUE ?
+                                "inf" : BUCKETS[i] + "ms";
+                histogram.put(bucket, counts[i]);
+            }
+            metrics.put("p50_ms", percentile(counts, total, max,
+                                             0.50D));
+            metrics.put("p95_ms", percentile(counts, total, max,
+                                             0.95D));
+            metrics.put("p99_ms", percentile(counts, total, max,
+                                             0.99D));
+            metrics.put("histogram", histogram);
+            return metrics;
+        }
+
+        /**
+         * The upper bound of the bucket holding the percentile, or the max
+         * if it's beyond the last bounded bucket
+         */
+        private static long percentile(long[] counts, long total, long max,
+                                       double percentile) {
+            if (total == 0L) {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(BUCKETS[i], max);
+                }
+            }
+            return max;
+        }
+    }
+}
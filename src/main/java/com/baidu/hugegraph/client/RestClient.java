@@ -19,24 +19,58 @@
 
 package com.baidu.hugegraph.client;
 
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Configurable;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.slf4j.Logger;
 
 import com.baidu.hugegraph.exception.ServerException;
 import com.baidu.hugegraph.rest.AbstractRestClient;
 import com.baidu.hugegraph.rest.ClientException;
 import com.baidu.hugegraph.rest.RestResult;
 import com.baidu.hugegraph.serializer.PathDeserializer;
+import com.baidu.hugegraph.serializer.StreamingJsonOutput;
+import com.baidu.hugegraph.structure.constant.BatchEncoding;
 import com.baidu.hugegraph.structure.graph.Path;
 import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.Log;
 import com.baidu.hugegraph.util.VersionUtil;
 import com.baidu.hugegraph.util.VersionUtil.Version;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 public class RestClient extends AbstractRestClient {
 
+    private static final Logger LOG = Log.logger(RestClient.class);
+
     private static final int SECOND = 1000;
 
+    // The jersey client field of AbstractRestClient holding the pool
+    private static final String CLIENT_FIELD = "client";
+
+    // Set while a request is invoked, the overloads may call each other
+    // and the clients of the nodes are called by the balancing client
+    private static final ThreadLocal<Boolean> INVOKING =
+                         ThreadLocal.withInitial(() -> false);
+
+    private final String url;
     private Version apiVersion = null;
+    private BatchEncoding batchEncoding = BatchEncoding.GZIP;
+    private RequestMetrics metrics = null;
+    private LoadBalancer balancer = null;
+    private RetryPolicy retryPolicy = null;
+    private CircuitBreaker breaker = null;
+    private RequestLimiter limiter = null;
 
     static {
         SimpleModule module = new SimpleModule();
@@ -47,6 +81,7 @@ public class RestClient extends AbstractRestClient {
     public RestClient(String url, String username, String password,
                       int timeout) {
         super(url, username, password, timeout * SECOND);
+        this.url = url;
     }
 
     public RestClient(String url, String username, String password, int timeout,
@@ -54,6 +89,11 @@ public class RestClient extends AbstractRestClient {
                       String trustStoreFile, String trustStorePassword) {
         super(url, username, password, timeout * SECOND, maxConns,
               maxConnsPerRoute, protocol, trustStoreFile, trustStorePassword);
+        this.url = url;
+    }
+
+    public String url() {
+        return this.url;
     }
 
     public void apiVersion(Version version) {
@@ -65,6 +105,415 @@ public class RestClient extends AbstractRestClient {
         return this.apiVersion;
     }
 
+    public void batchEncoding(BatchEncoding encoding) {
+        E.checkNotNull(encoding, "batch encoding");
+        this.batchEncoding = encoding;
+    }
+
+    public BatchEncoding batchEncoding() {
+        return this.batchEncoding;
+    }
+
+    /**
+     * Get the connection pool created by the underlying rest client, which
+     * is not exposed, return null if not found
+     */
+    public PoolingHttpClientConnectionManager connectionPool() {
+        Object client;
+        try {
+            Field field = AbstractRestClient.class.getDeclaredField(
+                                                   CLIENT_FIELD);
+            field.setAccessible(true);
+            client = field.get(this);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            LOG.warn("Can't get the field '{}' of the rest client of '{}', " +
+                     "the connection pool won't be monitored",
+                     CLIENT_FIELD, this.url, e);
+            return null;
+        }
+        if (client instanceof Configurable) {
+            String property = ApacheClientProperties.CONNECTION_MANAGER;
+            Object pool = ((Configurable<?>) client).getConfiguration()
+                                                    .getProperty(property);
+            if (pool instanceof PoolingHttpClientConnectionManager) {
+                return (PoolingHttpClientConnectionManager) pool;
+            }
+        }
+        LOG.warn("Can't find the connection pool of the rest client of " +
+                 "'{}', the connection pool won't be monitored", this.url);
+        return null;
+    }
+
+    /**
+     * Balance the requests over the nodes, including this one
+     */
+    public void balancer(LoadBalancer balancer) {
+        this.balancer = balancer;
+    }
+
+    public LoadBalancer balancer() {
+        return this.balancer;
+    }
+
+    public void retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * The retry policy of the failed requests, null if not enabled
+     */
+    public RetryPolicy retryPolicy() {
+        return this.retryPolicy;
+    }
+
+    public void circuitBreaker(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    /**
+     * The circuit breaker of the endpoints, null if not enabled
+     */
+    public CircuitBreaker circuitBreaker() {
+        return this.breaker;
+    }
+
+    public void requestLimiter(RequestLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * The limiter of the requests per api family, null if not enabled
+     */
+    public RequestLimiter requestLimiter() {
+        return this.limiter;
+    }
+
+    public void requestMetrics(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The metrics of the requests of this client, null if not enabled
+     */
+    public RequestMetrics requestMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public RestResult post(String path, Object object) {
+        if (INVOKING.get()) {
+            return super.post(path, object);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("POST", path, entity, null, c -> {
+            return c.post(path, entity);
+        });
+    }
+
+    @Override
+    public RestResult post(String path, Object object,
+                           MultivaluedMap<String, Object> headers) {
+        if (INVOKING.get()) {
+            return super.post(path, object, headers);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("POST", path, entity, null, c -> {
+            return c.post(path, entity, headers);
+        });
+    }
+
+    @Override
+    public RestResult post(String path, Object object,
+                           Map<String, Object> params) {
+        if (INVOKING.get()) {
+            return super.post(path, object, params);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("POST", path, entity, params, c -> {
+            return c.post(path, entity, params);
+        });
+    }
+
+    @Override
+    public RestResult post(String path, Object object,
+                           MultivaluedMap<String, Object> headers,
+                           Map<String, Object> params) {
+        if (INVOKING.get()) {
+            return super.post(path, object, headers, params);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("POST", path, entity, params, c -> {
+            return c.post(path, entity, headers, params);
+        });
+    }
+
+    @Override
+    public RestResult put(String path, String id, Object object) {
+        if (INVOKING.get()) {
+            return super.put(path, id, object);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("PUT", path, entity, null, c -> {
+            return c.put(path, id, entity);
+        });
+    }
+
+    @Override
+    public RestResult put(String path, String id, Object object,
+                          MultivaluedMap<String, Object> headers) {
+        if (INVOKING.get()) {
+            return super.put(path, id, object, headers);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("PUT", path, entity, null, c -> {
+            return c.put(path, id, entity, headers);
+        });
+    }
+
+    @Override
+    public RestResult put(String path, String id, Object object,
+                          Map<String, Object> params) {
+        if (INVOKING.get()) {
+            return super.put(path, id, object, params);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("PUT", path, entity, params, c -> {
+            return c.put(path, id, entity, params);
+        });
+    }
+
+    @Override
+    public RestResult put(String path, String id, Object object,
+                          MultivaluedMap<String, Object> headers,
+                          Map<String, Object> params) {
+        if (INVOKING.get()) {
+            return super.put(path, id, object, headers, params);
+        }
+        Object entity = this.entity(object);
+        return this.invoke("PUT", path, entity, params, c -> {
+            return c.put(path, id, entity, headers, params);
+        });
+    }
+
+    @Override
+    public RestResult get(String path) {
+        if (INVOKING.get()) {
+            return super.get(path);
+        }
+        return this.invoke("GET", path, null, null, c -> c.get(path));
+    }
+
+    @Override
+    public RestResult get(String path, Map<String, Object> params) {
+        if (INVOKING.get()) {
+            return super.get(path, params);
+        }
+        return this.invoke("GET", path, null, params, c -> c.get(path, params));
+    }
+
+    @Override
+    public RestResult get(String path, String id) {
+        if (INVOKING.get()) {
+            return super.get(path, id);
+        }
+        return this.invoke("GET", path, null, null, c -> c.get(path, id));
+    }
+
+    @Override
+    public RestResult delete(String path, Map<String, Object> params) {
+        if (INVOKING.get()) {
+            return super.delete(path, params);
+        }
+        return this.invoke("DELETE", path, null, params, c -> {
+            return c.delete(path, params);
+        });
+    }
+
+    @Override
+    public RestResult delete(String path, String id) {
+        if (INVOKING.get()) {
+            return super.delete(path, id);
+        }
+        return this.invoke("DELETE", path, null, null, c -> c.delete(path, id));
+    }
+
+    /**
+     * Send the request by the client of the node chosen, its overloads
+     * called in the request are sent directly
+     */
+    private RestResult invoke(String method, String path, Object body,
+                              Map<String, Object> params,
+                              Function<RestClient, RestResult> request) {
+        INVOKING.set(true);
+        try {
+            if (this.metrics == null) {
+                return this.execute(method, path, body, params, request);
+            }
+            RequestMetrics.Endpoint endpoint = this.metrics.endpoint(method,
+                                                                     path);
+            long start = endpoint.start();
+            try {
+                RestResult result = this.execute(method, path, body,
+                                                 params, request);
+                endpoint.succeed(start, requestBytes(body),
+                                 responseBytes(result));
+                return result;
+            } catch (Throwable e) {
+                endpoint.fail(start, e);
+                throw e;
+            }
+        } finally {
+            INVOKING.set(false);
+        }
+    }
+
+    /**
+     * Stream the body to count its bytes while it's sent if the metrics
+     * are enabled, the body is serialized once as before
+     */
+    private Object entity(Object body) {
+        if (this.metrics == null || body == null ||
+            body instanceof StreamingOutput) {
+            return body;
+        }
+        return new StreamingJsonOutput(body);
+    }
+
+    /**
+     * The bytes of the request body streamed, 0 if no body or not streamed
+     */
+    private static long requestBytes(Object body) {
+        if (body instanceof StreamingJsonOutput) {
+            return ((StreamingJsonOutput) body).length();
+        }
+        return 0L;
+    }
+
+    /**
+     * The bytes of the response by the Content-Length, or the chars of the
+     * content if sent in chunks, which are the bytes of the ascii json
+     */
+    private static long responseBytes(RestResult result) {
+        MultivaluedMap<String, Object> headers = result.headers();
+        Object length = headers == null ? null :
+                        headers.getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (length != null) {
+            try {
+                return Long.parseLong(length.toString());
+            } catch (NumberFormatException ignored) {
+                // Count the content instead
+            }
+        }
+        String content = result.content();
+        return content == null ? 0L : content.length();
+    }
+
+    /**
+     * Send the request through the circuit breaker, and retry it by the
+     * retry policy if failed
+     */
+    private RestResult execute(String method, String path, Object body,
+                               Map<String, Object> params,
+                               Function<RestClient, RestResult> request) {
+        RetryPolicy retryPolicy = this.retryPolicy;
+        CircuitBreaker breaker = this.breaker;
+        if (retryPolicy == null && breaker == null) {
+            return this.attempt(method, path, request);
+        }
+        String endpoint = null;
+        if (breaker != null) {
+            endpoint = breaker.endpoint(method, path);
+        }
+        boolean accumulative = false;
+        if (retryPolicy != null) {
+            retryPolicy.deposit();
+            accumulative = RetryPolicy.accumulative(body, params);
+        }
+        for (int retries = 0; ; retries++) {
+            boolean trial = breaker != null && breaker.acquire(endpoint);
+            RuntimeException error;
+            try {
+                RestResult result = this.attempt(method, path, request);
+                if (breaker != null) {
+                    breaker.record(endpoint, trial, false);
+                }
+                return result;
+            } catch (RuntimeException e) {
+                error = e;
+            } catch (Throwable e) {
+                if (breaker != null) {
+                    breaker.cancel(endpoint, trial);
+                }
+                throw e;
+            }
+            if (breaker != null) {
+                if (sent(error)) {
+                    breaker.record(endpoint, trial,
+                                   RetryPolicy.failure(error));
+                } else {
+                    breaker.cancel(endpoint, trial);
+                }
+            }
+            if (retryPolicy == null ||
+                !retryPolicy.retry(method, path, accumulative, error,
+                                   retries)) {
+                throw error;
+            }
+            try {
+                Thread.sleep(retryPolicy.backoff(retries));
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Whether the request failed by the server or the io, the errors
+     * thrown before sent like by the limiter are not
+     */
+    private static boolean sent(RuntimeException e) {
+        if (e instanceof ClientException) {
+            return false;
+        }
+        return e instanceof ServerException ||
+               e instanceof ProcessingException;
+    }
+
+    private RestResult attempt(String method, String path,
+                               Function<RestClient, RestResult> request) {
+        RequestLimiter limiter = this.limiter;
+        if (limiter == null) {
+            return this.send(request);
+        }
+        RequestLimiter.Permit permit = limiter.acquire(method, path);
+        try {
+            return this.send(request);
+        } finally {
+            permit.release();
+        }
+    }
+
+    private RestResult send(Function<RestClient, RestResult> request) {
+        if (this.balancer == null) {
+            return request.apply(this);
+        }
+        return this.balancer.send(request);
+    }
+
+    /**
+     * Send a request bypassing the metrics and the balancer
+     */
+    static <T> T direct(Supplier<T> request) {
+        boolean invoking = INVOKING.get();
+        INVOKING.set(true);
+        try {
+            return request.get();
+        } finally {
+            INVOKING.set(invoking);
+        }
+    }
+
     public void checkApiVersion(String minVersion, String message) {
         if (this.apiVersionLt(minVersion)) {
             throw new ClientException(
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.client;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.ws.rs.ProcessingException;
+
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.serializer.StreamingJsonOutput;
+import com.baidu.hugegraph.structure.graph.BatchEdgeRequest;
+import com.baidu.hugegraph.structure.graph.BatchVertexRequest;
+import com.baidu.hugegraph.structure.graph.UpdateStrategy;
+import com.baidu.hugegraph.util.E;
+
+/**
+ * RetryPolicy decides whether a failed request is retried and how long to
+ * back off before the retry.
+ *
+ * The transient errors, the statuses 429, 502, 503, 504 and the io errors
+ * like timeouts, are retried for the idempotent requests: GET, PUT, DELETE
+ * and the read-only POST of the traversers. The DELETE of the schema isn't
+ * idempotent since it's applied by a task, a retry after the server
+ * received it fails by 404 instead of returning the task. The PUT
+ * accumulating the properties, by the SUM or APPEND update strategies or
+ * the append action, is applied twice if retried after the server
+ * received it, so it's only retried if rejected by 429 or 503. The other
+ * requests are retried only if they didn't reach the server. The backoff
+ * is exponential with full jitter, and the retries are limited by a
+ * budget of a tenth of the requests, so the retries can't multiply the
+ * load of an overloaded server.
+ */
+public class RetryPolicy {
+
+    // A request deposits a token and a retry costs RETRY_COST tokens
+    private static final int RETRY_COST = 10;
+    private static final int INIT_BUDGET = 10 * RETRY_COST;
+    private static final int MAX_BUDGET = 100 * RETRY_COST;
+    private static final String TRAVERSERS = "/traversers/";
+    private static final String SCHEMA = "/schema/";
+    private static final String ACTION = "action";
+    private static final String APPEND = "append";
+
+    private final int maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+    private int budget;
+
+    /**
+     * @param maxRetries the max retries of a request
+     * @param baseDelay  the milliseconds to back off before the first retry
+     * @param maxDelay   the max milliseconds to back off
+     */
+    public RetryPolicy(int maxRetries, long baseDelay, long maxDelay) {
+        E.checkArgument(maxRetries > 0,
+                        "The max retries must be > 0, but got %s",
+                        maxRetries);
+        E.checkArgument(baseDelay > 0 && baseDelay <= maxDelay,
+                        "The retry delay must be in (0, %s], but got %s",
+                        maxDelay, baseDelay);
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.budget = INIT_BUDGET;
+    }
+
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    public static boolean idempotent(String method, String path,
+                                     boolean accumulative) {
+        switch (method) {
+            case "GET":
+                return true;
+            case "DELETE":
+                return !path.contains(SCHEMA);
+            case "PUT":
+                return !accumulative;
+            case "POST":
+                return path.contains(TRAVERSERS);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether the update of the body and params accumulates the properties,
+     * the streamed json is checked by the object written
+     */
+    public static boolean accumulative(Object body,
+                                       Map<String, Object> params) {
+        if (params != null && APPEND.equals(params.get(ACTION))) {
+            return true;
+        }
+        if (body instanceof StreamingJsonOutput) {
+            body = ((StreamingJsonOutput) body).object();
+        }
+        Map<String, UpdateStrategy> strategies = null;
+        if (body instanceof BatchVertexRequest) {
+            strategies = ((BatchVertexRequest) body).updateStrategies();
+        } else if (body instanceof BatchEdgeRequest) {
+            strategies = ((BatchEdgeRequest) body).updateStrategies();
+        }
+        if (strategies == null) {
+            return false;
+        }
+        return strategies.containsValue(UpdateStrategy.SUM) ||
+               strategies.containsValue(UpdateStrategy.APPEND);
+    }
+
+    /**
+     * Whether the error means the server is failing or overloaded, the
+     * errors of the requests themselves like 4xx are not failures, and the
+     * errors raised by the client before sent are neither
+     */
+    public static boolean failure(Throwable e) {
+        if (e instanceof ServerException) {
+            int status = ((ServerException) e).status();
+            return status >= 500 || status == 429;
+        }
+        return ioError(e);
+    }
+
+    /**
+     * Whether to retry the failed request, the retry is taken from the
+     * budget if so
+     */
+    public boolean retry(String method, String path, boolean accumulative,
+                         Throwable e, int retries) {
+        if (retries >= this.maxRetries ||
+            !this.retryable(method, path, accumulative, e)) {
+            return false;
+        }
+        synchronized (this) {
+            if (this.budget < RETRY_COST) {
+                return false;
+            }
+            this.budget -= RETRY_COST;
+            return true;
+        }
+    }
+
+    /**
+     * Record a request sent, which earns a tenth of a retry
+     */
+    public synchronized void deposit() {
+        if (this.budget < MAX_BUDGET) {
+            this.budget++;
+        }
+    }
+
+    /**
+     * The milliseconds to back off before the retry
+     */
+    public long backoff(int retries) {
+        long delay = this.baseDelay << Math.min(retries, 30);
+        if (delay <= 0L || delay > this.maxDelay) {
+            delay = this.maxDelay;
+        }
+        return ThreadLocalRandom.current().nextLong(delay + 1L);
+    }
+
+    private boolean retryable(String method, String path,
+                              boolean accumulative, Throwable e) {
+        if (unreached(e)) {
+            return true;
+        }
+        int status = e instanceof ServerException ?
+                     ((ServerException) e).status() : 0;
+        if (idempotent(method, path, accumulative)) {
+            return status == 429 || status == 502 || status == 503 ||
+                   status == 504 || ioError(e);
+        }
+        // Not applied by the server if rejected by 429 or 503
+        return accumulative && "PUT".equals(method) &&
+               (status == 429 || status == 503);
+    }
+
+    private static boolean ioError(Throwable e) {
+        // The client exception may be a processing exception
+        return e instanceof ProcessingException &&
+               !(e instanceof ClientException);
+    }
+
+    /**
+     * Whether the request failed to connect the server
+     */
+    public static boolean unreached(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException ||
+                cause instanceof NoRouteToHostException ||
+                cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.baidu.hugegraph.util.E;
+
+/**
+ * AdaptiveLimiter adjusts the limit of the concurrent requests by AIMD:
+ * the limit increases by 1 per limit requests completed in time, and
+ * decreases by DECREASE_RATIO when a request is dropped, like timed out
+ * or rejected by an overloaded server, or when its latency exceeds
+ * TOLERANCE times the baseline plus SLACK milliseconds, the baseline is
+ * the min latency of the recent WINDOW requests. It starts by increasing
+ * 1 per request until the first decrease, and decreases at most once for
+ * the requests sent before the last decrease.
+ */
+public class AdaptiveLimiter {
+
+    private static final double DECREASE_RATIO = 0.75D;
+    private static final double TOLERANCE = 2D;
+    private static final long SLACK = 10L;
+    private static final int WINDOW = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private int peakLimit;
+    private int inFlight;
+    private boolean slowStart;
+    private long lastDecrease;
+    private long baseline;
+    private long windowMin;
+    private int windowSamples;
+    private long decreases;
+
+    public AdaptiveLimiter(int initLimit, int minLimit, int maxLimit) {
+        E.checkArgument(minLimit > 0,
+                        "The min limit must be > 0, but got %s", minLimit);
+        E.checkArgument(minLimit <= initLimit && initLimit <= maxLimit,
+                        "The init limit must be in [%s, %s], but got %s",
+                        minLimit, maxLimit, initLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initLimit;
+        this.peakLimit = initLimit;
+        this.inFlight = 0;
+        this.slowStart = true;
+        this.lastDecrease = 0L;
+        this.baseline = Long.MAX_VALUE;
+        this.windowMin = Long.MAX_VALUE;
+        this.windowSamples = 0;
+        this.decreases = 0L;
+    }
+
+    /**
+     * Wait until the requests in flight are under the limit
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (this.inFlight >= this.limit()) {
+            this.wait();
+        }
+        this.inFlight++;
+    }
+
+    public synchronized void release() {
+        E.checkState(this.inFlight > 0, "No request to release");
+        this.inFlight--;
+        this.notifyAll();
+    }
+
+    /**
+     * Sample a request succeeded in latency milliseconds, or dropped like
+     * timed out or rejected by an overloaded server. The other failures,
+     * like the bad requests or the requests rejected by the client, say
+     * nothing about the load and must not be sampled.
+     */
+    public synchronized void sample(long latency, boolean dropped) {
+        long now = System.currentTimeMillis();
+        if (!dropped) {
+            this.updateBaseline(latency);
+        }
+        if (dropped || latency > this.baseline * TOLERANCE + SLACK) {
+            // The requests sent before the last decrease are ignored
+            if (now - latency > this.lastDecrease) {
+                this.limit = Math.max(this.minLimit,
+                                      this.limit * DECREASE_RATIO);
+                this.lastDecrease = now;
+                this.slowStart = false;
+                this.decreases++;
+                this.notifyAll();
+            }
+            return;
+        }
+        // Increase only if the limit is utilized
+        if (this.inFlight * 2 < this.limit()) {
+            return;
+        }
+        double increment = this.slowStart ? 1D : 1D / this.limit;
+        this.limit = Math.min(this.maxLimit, this.limit + increment);
+        this.peakLimit = Math.max(this.peakLimit, this.limit());
+        this.notifyAll();
+    }
+
+    public synchronized int limit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * The max limit ever reached, which bounds the requests in flight
+     */
+    public synchronized int peakLimit() {
+        return this.peakLimit;
+    }
+
+    public synchronized int inFlight() {
+        return this.inFlight;
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("limit", this.limit());
+        metrics.put("peak_limit", this.peakLimit);
+        metrics.put("in_flight", this.inFlight);
+        metrics.put("baseline_ms", this.baseline == Long.MAX_VALUE ?
+                                   0L : this.baseline);
+        metrics.put("decreases", this.decreases);
+        return metrics;
+    }
+
+    private void updateBaseline(long latency) {
+        // Avoid the zero baseline of the requests faster than a millisecond
+        latency = Math.max(latency, 1L);
+        this.baseline = Math.min(this.baseline, latency);
+        this.windowMin = Math.min(this.windowMin, latency);
+        if (++this.windowSamples >= WINDOW) {
+            // Follow the server getting slower, like the graph growing
+            this.baseline = this.windowMin;
+            this.windowMin = Long.MAX_VALUE;
+            this.windowSamples = 0;
+        }
+    }
+}
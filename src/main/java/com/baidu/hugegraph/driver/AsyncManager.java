@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.baidu.hugegraph.api.gremlin.GremlinRequest;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+
+/**
+ * AsyncManager runs the operations of the other managers on a bounded
+ * worker pool and returns CompletableFuture results, so that callers don't
+ * have to park one thread per in-flight request.
+ *
+ * The underlying rest client is blocking, the pool size should therefore be
+ * close to the connection pool size: more workers than connections would
+ * just wait for a connection lease.
+ */
+public class AsyncManager {
+
+    private static final long CLOSE_TIMEOUT = 30L;
+
+    private final HugeClient client;
+    private final ExecutorService executor;
+
+    public AsyncManager(HugeClient client, int threads) {
+        E.checkNotNull(client, "client");
+        E.checkArgument(threads > 0,
+                        "The async threads must be > 0, but got %s", threads);
+        this.client = client;
+        this.executor = ExecutorUtil.newFixedThreadPool(threads,
+                                                        "async-worker-%d");
+    }
+
+    public <T> CompletableFuture<T> submit(Function<HugeClient, T> action) {
+        E.checkNotNull(action, "action");
+        return CompletableFuture.supplyAsync(() -> {
+            return action.apply(this.client);
+        }, this.executor);
+    }
+
+    public <T> CompletableFuture<T> graph(Function<GraphManager, T> action) {
+        return this.submit(client -> action.apply(client.graph()));
+    }
+
+    public <T> CompletableFuture<T> schema(Function<SchemaManager, T> action) {
+        return this.submit(client -> action.apply(client.schema()));
+    }
+
+    public <T> CompletableFuture<T> traverser(
+                                    Function<TraverserManager, T> action) {
+        return this.submit(client -> action.apply(client.traverser()));
+    }
+
+    public <T> CompletableFuture<T> gremlin(
+                                    Function<GremlinManager, T> action) {
+        return this.submit(client -> action.apply(client.gremlin()));
+    }
+
+    public <T> CompletableFuture<T> task(Function<TaskManager, T> action) {
+        return this.submit(client -> action.apply(client.task()));
+    }
+
+    public CompletableFuture<Vertex> addVertex(Vertex vertex) {
+        return this.graph(graph -> graph.addVertex(vertex));
+    }
+
+    public CompletableFuture<Vertex> getVertex(Object vertexId) {
+        return this.graph(graph -> graph.getVertex(vertexId));
+    }
+
+    public CompletableFuture<List<Vertex>> addVertices(List<Vertex> vertices) {
+        return this.graph(graph -> graph.addVertices(vertices));
+    }
+
+    public CompletableFuture<List<Vertex>> listVertices(
+                                           String label,
+                                           Map<String, Object> properties,
+                                           int limit) {
+        return this.graph(graph -> graph.listVertices(label, properties,
+                                                      limit));
+    }
+
+    public CompletableFuture<Edge> addEdge(Edge edge) {
+        return this.graph(graph -> graph.addEdge(edge));
+    }
+
+    public CompletableFuture<Edge> getEdge(String edgeId) {
+        return this.graph(graph -> graph.getEdge(edgeId));
+    }
+
+    public CompletableFuture<List<Edge>> addEdges(List<Edge> edges,
+                                                  boolean checkVertex) {
+        return this.graph(graph -> graph.addEdges(edges, checkVertex));
+    }
+
+    public CompletableFuture<ResultSet> execute(GremlinRequest request) {
+        return this.gremlin(gremlin -> gremlin.execute(request));
+    }
+
+    public CompletableFuture<ResultSet> execute(String gremlin) {
+        return this.execute(new GremlinRequest(gremlin));
+    }
+
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.client.RetryPolicy;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.GraphElement;
+import com.baidu.hugegraph.structure.constant.HugeType;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * BulkLoader accepts an unbounded stream of vertices and edges, cuts them
+ * into batches and posts up to `parallelism` batches concurrently through
+ * GraphManager.addVertices()/addEdges(). Producers are blocked when all the
+ * permits are taken, which bounds the memory held by pending batches.
+ *
+ * In the adaptive mode `parallelism` is the max batches in flight, and the
+ * batches actually in flight are limited by an AdaptiveLimiter, which
+ * tracks the capacity of the server by the latency and the failures of
+ * the batches.
+ *
+ * NOTE: a failed batch is retried as a whole, that is only safe for vertices
+ * with customized or primary-key ids, since vertices with automatic ids and
+ * edges would be inserted again if the server applied the first attempt.
+ */
+public class BulkLoader implements Closeable {
+
+    private static final Logger LOG = Log.logger(BulkLoader.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_MAX_RETRIES = 0;
+    private static final long RETRY_INTERVAL = 100L;
+    private static final long CLOSE_TIMEOUT = 60L;
+
+    private final GraphManager graph;
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxRetries;
+    private final boolean checkVertex;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AdaptiveLimiter limiter;
+    private final Listener listener;
+
+    private List<Vertex> vertices;
+    private List<Edge> edges;
+
+    private final LongAdder loadedVertices;
+    private final LongAdder loadedEdges;
+    private final LongAdder batches;
+    private final LongAdder failedBatches;
+    private final LongAdder batchTime;
+    private final AtomicReference<Throwable> failure;
+    private final long startTime;
+    private volatile boolean closed;
+
+    public BulkLoader(GraphManager graph, int batchSize, int parallelism) {
+        this(graph, batchSize, parallelism, DEFAULT_MAX_RETRIES, true, null);
+    }
+
+    public BulkLoader(GraphManager graph, int batchSize, int parallelism,
+                      int maxRetries, boolean checkVertex, Listener listener) {
+        this(graph, batchSize, parallelism, maxRetries, checkVertex,
+             listener, false);
+    }
+
+    public BulkLoader(GraphManager graph, int batchSize, int parallelism,
+                      int maxRetries, boolean checkVertex, Listener listener,
+                      boolean adaptive) {
+        E.checkNotNull(graph, "graph manager");
+        E.checkArgument(batchSize > 0,
+                        "The batch size must be > 0, but got %s", batchSize);
+        E.checkArgument(parallelism > 0,
+                        "The parallelism must be > 0, but got %s",
+                        parallelism);
+        E.checkArgument(maxRetries >= 0,
+                        "The max retries must be >= 0, but got %s",
+                        maxRetries);
+        this.graph = graph;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.maxRetries = maxRetries;
+        this.checkVertex = checkVertex;
+        this.listener = listener;
+        this.executor = ExecutorUtil.newFixedThreadPool(parallelism,
+                                                        "bulk-loader-%d");
+        this.permits = new Semaphore(parallelism);
+        if (adaptive) {
+            this.limiter = new AdaptiveLimiter(1, 1, parallelism);
+        } else {
+            this.limiter = null;
+        }
+
+        this.vertices = new ArrayList<>(batchSize);
+        this.edges = new ArrayList<>(batchSize);
+
+        this.loadedVertices = new LongAdder();
+        this.loadedEdges = new LongAdder();
+        this.batches = new LongAdder();
+        this.failedBatches = new LongAdder();
+        this.batchTime = new LongAdder();
+        this.failure = new AtomicReference<>();
+        this.startTime = System.currentTimeMillis();
+        this.closed = false;
+    }
+
+    public void addVertex(Vertex vertex) {
+        E.checkArgumentNotNull(vertex, "The vertex can't be null");
+        List<Vertex> batch = null;
+        synchronized (this) {
+            this.checkOpen();
+            this.vertices.add(vertex);
+            if (this.vertices.size() >= this.batchSize) {
+                batch = this.vertices;
+                this.vertices = new ArrayList<>(this.batchSize);
+            }
+        }
+        if (batch != null) {
+            this.submitVertices(batch);
+        }
+    }
+
+    public void addVertices(Iterator<Vertex> vertices) {
+        while (vertices.hasNext()) {
+            this.addVertex(vertices.next());
+        }
+    }
+
+    public void addEdge(Edge edge) {
+        E.checkArgumentNotNull(edge, "The edge can't be null");
+        List<Edge> batch = null;
+        synchronized (this) {
+            this.checkOpen();
+            this.edges.add(edge);
+            if (this.edges.size() >= this.batchSize) {
+                batch = this.edges;
+                this.edges = new ArrayList<>(this.batchSize);
+            }
+        }
+        if (batch != null) {
+            this.submitEdges(batch);
+        }
+    }
+
+    public void addEdges(Iterator<Edge> edges) {
+        while (edges.hasNext()) {
+            this.addEdge(edges.next());
+        }
+    }
+
+    /**
+     * Submit the partial batches and wait for all in-flight batches,
+     * throw the first failure met since the last flush if any.
+     */
+    public void flush() {
+        List<Vertex> vertexBatch;
+        List<Edge> edgeBatch;
+        synchronized (this) {
+            vertexBatch = this.vertices;
+            edgeBatch = this.edges;
+            this.vertices = new ArrayList<>(this.batchSize);
+            this.edges = new ArrayList<>(this.batchSize);
+        }
+        // Vertices go first since the edges may link to them
+        if (!vertexBatch.isEmpty()) {
+            this.submitVertices(vertexBatch);
+        }
+        this.awaitInflight();
+        if (!edgeBatch.isEmpty()) {
+            this.submitEdges(edgeBatch);
+        }
+        this.awaitInflight();
+
+        Throwable cause = this.failure.getAndSet(null);
+        if (cause != null) {
+            throw new ClientException(String.format(
+                      "Failed to load %s batches, the first failure is: %s",
+                      this.failedBatches(), cause.getMessage()), cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.flush();
+        } finally {
+            this.closed = true;
+            this.executor.shutdown();
+            try {
+                this.executor.awaitTermination(CLOSE_TIMEOUT,
+                                               TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.debug("Bulk loader closed: {}", this);
+        }
+    }
+
+    public int inflight() {
+        return this.parallelism - this.permits.availablePermits();
+    }
+
+    /**
+     * The max batches in flight, which is adjusted in the adaptive mode
+     */
+    public int parallelism() {
+        if (this.limiter != null) {
+            return this.limiter.limit();
+        }
+        return this.parallelism;
+    }
+
+    /**
+     * The adaptive limiter of the batches in flight, null if not adaptive
+     */
+    public AdaptiveLimiter limiter() {
+        return this.limiter;
+    }
+
+    public long loadedVertices() {
+        return this.loadedVertices.sum();
+    }
+
+    public long loadedEdges() {
+        return this.loadedEdges.sum();
+    }
+
+    public long batches() {
+        return this.batches.sum();
+    }
+
+    public long failedBatches() {
+        return this.failedBatches.sum();
+    }
+
+    /**
+     * The average elements loaded per second since the loader was created
+     */
+    public double throughput() {
+        long elapsed = System.currentTimeMillis() - this.startTime;
+        long loaded = this.loadedVertices() + this.loadedEdges();
+        return elapsed == 0L ? 0D : loaded * 1000D / elapsed;
+    }
+
+    /**
+     * The average time in milliseconds to post a batch
+     */
+    public double averageBatchTime() {
+        long batches = this.batches();
+        return batches == 0L ? 0D : (double) this.batchTime.sum() / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkLoader{vertices=%s, edges=%s, batches=%s, " +
+                             "failedBatches=%s, throughput=%.2f/s, " +
+                             "averageBatchTime=%.2fms, parallelism=%s}",
+                             this.loadedVertices(), this.loadedEdges(),
+                             this.batches(), this.failedBatches(),
+                             this.throughput(), this.averageBatchTime(),
+                             this.parallelism());
+    }
+
+    private void submitVertices(List<Vertex> batch) {
+        this.submit(HugeType.VERTEX.string(), batch, vertices -> {
+            this.graph.addVertices(vertices);
+            this.loadedVertices.add(vertices.size());
+        });
+    }
+
+    private void submitEdges(List<Edge> batch) {
+        this.submit(HugeType.EDGE.string(), batch, edges -> {
+            this.graph.addEdges(edges, this.checkVertex);
+            this.loadedEdges.add(edges.size());
+        });
+    }
+
+    private <T extends GraphElement> void submit(String type, List<T> batch,
+                                                 Consumer<List<T>> loader) {
+        try {
+            // Block the producer when all the permits are taken
+            this.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting to submit " +
+                                      "a batch of %s %ss", batch.size(), type);
+        }
+        if (this.limiter != null) {
+            try {
+                this.limiter.acquire();
+            } catch (InterruptedException e) {
+                this.permits.release();
+                Thread.currentThread().interrupt();
+                throw new ClientException("Interrupted while waiting to " +
+                                          "submit a batch of %s %ss",
+                                          batch.size(), type);
+            }
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.load(type, batch, loader);
+                } finally {
+                    this.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            this.release();
+            throw e;
+        }
+    }
+
+    private <T extends GraphElement> void load(String type, List<T> batch,
+                                               Consumer<List<T>> loader) {
+        for (int retry = 0; ; retry++) {
+            long start = System.currentTimeMillis();
+            try {
+                loader.accept(batch);
+                long elapsed = System.currentTimeMillis() - start;
+                if (this.limiter != null) {
+                    this.limiter.sample(elapsed, false);
+                }
+                this.batches.increment();
+                this.batchTime.add(elapsed);
+                if (this.listener != null) {
+                    this.listener.onSuccess(type, batch.size(), elapsed);
+                }
+                return;
+            } catch (RuntimeException e) {
+                // The failures of the requests themselves are not sampled
+                boolean failure = RetryPolicy.failure(e);
+                if (this.limiter != null && failure) {
+                    this.limiter.sample(System.currentTimeMillis() - start,
+                                        true);
+                }
+                // The bad requests like 400 or 422 would fail again
+                if (retry < this.maxRetries &&
+                    (failure || RetryPolicy.unreached(e))) {
+                    LOG.warn("Failed to load a batch of {} {}s, retry {}/{}",
+                             batch.size(), type, retry + 1, this.maxRetries, e);
+                    if (backoff(retry)) {
+                        continue;
+                    }
+                }
+                LOG.error("Failed to load a batch of {} {}s",
+                          batch.size(), type, e);
+                this.failedBatches.increment();
+                this.failure.compareAndSet(null, e);
+                if (this.listener != null) {
+                    this.listener.onFailure(type, batch, e);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sleep before the retry, return false if interrupted to give it up
+     */
+    private static boolean backoff(int retry) {
+        try {
+            Thread.sleep(RETRY_INTERVAL << retry);
+            return true;
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void release() {
+        if (this.limiter != null) {
+            this.limiter.release();
+        }
+        this.permits.release();
+    }
+
+    private void awaitInflight() {
+        try {
+            this.permits.acquire(this.parallelism);
+            this.permits.release(this.parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for " +
+                                      "in-flight batches");
+        }
+    }
+
+    private void checkOpen() {
+        E.checkState(!this.closed, "The bulk loader has been closed");
+    }
+
+    public interface Listener {
+
+        void onSuccess(String type, int size, long elapsed);
+
+        void onFailure(String type, List<? extends GraphElement> batch,
+                       Throwable cause);
+    }
+}
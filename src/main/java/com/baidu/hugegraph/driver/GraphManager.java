@@ -22,10 +22,16 @@ package com.baidu.hugegraph.driver;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.baidu.hugegraph.annotation.UnimplementedFeature;
 import com.baidu.hugegraph.api.graph.EdgeAPI;
+import com.baidu.hugegraph.api.graph.GraphAPI;
 import com.baidu.hugegraph.api.graph.VertexAPI;
+import com.baidu.hugegraph.api.traverser.EdgesAPI;
+import com.baidu.hugegraph.api.traverser.VerticesAPI;
 import com.baidu.hugegraph.client.RestClient;
 import com.baidu.hugegraph.exception.InvalidOperationException;
 import com.baidu.hugegraph.structure.GraphElement;
@@ -37,26 +43,101 @@ import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.GraphIterator;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
 
 public class GraphManager {
 
+    private static final long CLOSE_TIMEOUT = 30L;
+
     private final String graph;
     private final VertexAPI vertexAPI;
     private final EdgeAPI edgeAPI;
+    private final VertexCache vertexCache;
+    private final ScheduledExecutorService lookupScheduler;
+    private final ExecutorService lookupExecutor;
+    private final LookupBatcher<Object, Vertex> vertexBatcher;
+    private final LookupBatcher<String, Edge> edgeBatcher;
 
     public GraphManager(RestClient client, String graph) {
+        this(client, graph, null, 0, 0L, 0);
+    }
+
+    /**
+     * @param vertexCache       the vertex cache, null means disabled
+     * @param lookupBatchSize   the max ids of a coalesced lookup of vertices
+     *                          or edges by id, <= 1 means disabled
+     * @param lookupWindow      the max milliseconds a lookup waits for
+     *                          the concurrent ones
+     * @param lookupThreads     the threads shared by the coalesced lookups
+     *                          of vertices and edges
+     */
+    public GraphManager(RestClient client, String graph,
+                        VertexCache vertexCache, int lookupBatchSize,
+                        long lookupWindow, int lookupThreads) {
         this.graph = graph;
         this.vertexAPI = new VertexAPI(client, graph);
         this.edgeAPI = new EdgeAPI(client, graph);
+        this.vertexCache = vertexCache;
+        if (lookupBatchSize > 1) {
+            E.checkArgument(lookupThreads > 0,
+                            "The lookup threads must be > 0, but got %s",
+                            lookupThreads);
+            this.lookupScheduler = ExecutorUtil.newScheduledThreadPool(
+                                   "graph-lookup-timer");
+            this.lookupExecutor = ExecutorUtil.newFixedThreadPool(
+                                  lookupThreads, "graph-lookup-%d");
+            VerticesAPI verticesAPI = new VerticesAPI(client, graph);
+            EdgesAPI edgesAPI = new EdgesAPI(client, graph);
+            this.vertexBatcher = new LookupBatcher<>(
+                                 lookupBatchSize, lookupWindow,
+                                 this.lookupScheduler, this.lookupExecutor,
+                                 verticesAPI::list, this.vertexAPI::get,
+                                 Vertex::id, GraphAPI::formatVertexId);
+            this.edgeBatcher = new LookupBatcher<>(
+                               lookupBatchSize, lookupWindow,
+                               this.lookupScheduler, this.lookupExecutor,
+                               edgesAPI::list, this.edgeAPI::get,
+                               Edge::id, id -> id);
+        } else {
+            this.lookupScheduler = null;
+            this.lookupExecutor = null;
+            this.vertexBatcher = null;
+            this.edgeBatcher = null;
+        }
+    }
+
+    public void close() {
+        if (this.vertexBatcher == null) {
+            return;
+        }
+        this.vertexBatcher.close();
+        this.edgeBatcher.close();
+        // Shut down after the batchers closed, the lookups left are done
+        this.lookupScheduler.shutdownNow();
+        this.lookupExecutor.shutdown();
+        try {
+            this.lookupExecutor.awaitTermination(CLOSE_TIMEOUT,
+                                                 TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     public String graph() {
         return this.graph;
     }
 
+    /**
+     * The vertex cache, null if it's not enabled
+     */
+    public VertexCache vertexCache() {
+        return this.vertexCache;
+    }
+
     public Vertex addVertex(Vertex vertex) {
         vertex = this.vertexAPI.create(vertex);
         this.attachManager(vertex);
+        this.invalidateVertex(vertex.id());
         return vertex;
     }
 
@@ -86,8 +167,26 @@ public class GraphManager {
     }
 
     public Vertex getVertex(Object vertexId) {
-        Vertex vertex = this.vertexAPI.get(vertexId);
+        Vertex vertex;
+        long version = 0L;
+        if (this.vertexCache != null) {
+            vertex = this.vertexCache.get(vertexId);
+            if (vertex != null) {
+                return vertex;
+            }
+            version = this.vertexCache.version();
+        }
+        if (this.vertexBatcher != null) {
+            vertex = this.vertexBatcher.get(vertexId);
+            // The vertex may be shared by the coalesced lookups
+            vertex = vertex.copy();
+        } else {
+            vertex = this.vertexAPI.get(vertexId);
+        }
         this.attachManager(vertex);
+        if (this.vertexCache != null) {
+            this.vertexCache.put(vertex, version);
+        }
         return vertex;
     }
 
@@ -97,6 +196,7 @@ public class GraphManager {
             Vertex vertex = vertices.get(i);
             vertex.id(ids.get(i));
             this.attachManager(vertex);
+            this.invalidateVertex(vertex.id());
         }
         return vertices;
     }
@@ -166,6 +266,28 @@ public class GraphManager {
         return vertices;
     }
 
+    public BulkLoader bulkLoader(int batchSize, int parallelism) {
+        return new BulkLoader(this, batchSize, parallelism);
+    }
+
+    /**
+     * Create a bulk loader adjusting the batches in flight up to
+     * maxParallelism by the latency and the failures of the batches
+     */
+    public BulkLoader adaptiveBulkLoader(int batchSize, int maxParallelism) {
+        return new BulkLoader(this, batchSize, maxParallelism,
+                              BulkLoader.DEFAULT_MAX_RETRIES, true, null,
+                              true);
+    }
+
+    /**
+     * Create a write buffer writing the vertices and edges added one by one
+     * by batches of batchSize, at least every flushInterval milliseconds
+     */
+    public WriteBuffer writeBuffer(int batchSize, long flushInterval) {
+        return new WriteBuffer(this, batchSize, flushInterval, true);
+    }
+
     public Iterator<Vertex> iterateVertices(int sizePerPage) {
         return this.iterateVertices(null, null, sizePerPage);
     }
@@ -177,30 +299,44 @@ public class GraphManager {
     public Iterator<Vertex> iterateVertices(String label,
                                             Map<String, Object> properties,
                                             int sizePerPage) {
-        return new GraphIterator<>(this, sizePerPage, (page) -> {
-            return this.vertexAPI.list(label, properties, 0, page, sizePerPage);
+        return this.iterateVertices(label, properties, sizePerPage, 0);
+    }
+
+    public GraphIterator<Vertex> iterateVertices(String label,
+                                                 Map<String, Object> properties,
+                                                 int sizePerPage,
+                                                 int prefetch) {
+        return new GraphIterator<>(this, sizePerPage, prefetch, (page) -> {
+            return this.vertexAPI.listStream(label, properties, 0, page,
+                                             sizePerPage);
         });
     }
 
     public void removeVertex(Object vertexId) {
         this.vertexAPI.delete(vertexId);
+        this.invalidateVertex(vertexId);
     }
 
     public List<Vertex> updateVertices(BatchVertexRequest request) {
         List<Vertex> newVertices = this.vertexAPI.update(request);
-        newVertices.forEach(vertex -> this.attachManager(vertex));
+        newVertices.forEach(vertex -> {
+            this.attachManager(vertex);
+            this.invalidateVertex(vertex.id());
+        });
         return newVertices;
     }
 
     public Vertex appendVertexProperty(Vertex vertex) {
         vertex = this.vertexAPI.append(vertex);
         this.attachManager(vertex);
+        this.invalidateVertex(vertex.id());
         return vertex;
     }
 
     public Vertex eliminateVertexProperty(Vertex vertex) {
         vertex = this.vertexAPI.eliminate(vertex);
         this.attachManager(vertex);
+        this.invalidateVertex(vertex.id());
         return vertex;
     }
 
@@ -243,7 +379,12 @@ public class GraphManager {
     }
 
     public Edge getEdge(String edgeId) {
-        Edge edge = this.edgeAPI.get(edgeId);
+        Edge edge;
+        if (this.edgeBatcher != null) {
+            edge = this.edgeBatcher.get(edgeId);
+        } else {
+            edge = this.edgeAPI.get(edgeId);
+        }
         this.attachManager(edge);
         return edge;
     }
@@ -388,9 +529,17 @@ public class GraphManager {
     public Iterator<Edge> iterateEdges(String label,
                                        Map<String, Object> properties,
                                        int sizePerPage) {
-        return new GraphIterator<>(this, sizePerPage, (page) -> {
-            return this.edgeAPI.list(null, null, label, properties,
-                                     0, page, sizePerPage);
+        return this.iterateEdges(label, properties, sizePerPage, 0);
+    }
+
+    @UnimplementedFeature(desc = "Server doesn't support paging by label and properties")
+    public GraphIterator<Edge> iterateEdges(String label,
+                                            Map<String, Object> properties,
+                                            int sizePerPage,
+                                            int prefetch) {
+        return new GraphIterator<>(this, sizePerPage, prefetch, (page) -> {
+            return this.edgeAPI.listStream(null, null, label, properties,
+                                           0, page, sizePerPage);
         });
     }
 
@@ -417,9 +566,19 @@ public class GraphManager {
                                        String label,
                                        Map<String, Object> properties,
                                        int sizePerPage) {
-        return new GraphIterator<>(this, sizePerPage, (page) -> {
-            return this.edgeAPI.list(vertexId, direction, label, properties,
-                                     0, page, sizePerPage);
+        return this.iterateEdges(vertexId, direction, label, properties,
+                                 sizePerPage, 0);
+    }
+
+    public GraphIterator<Edge> iterateEdges(Object vertexId,
+                                            Direction direction,
+                                            String label,
+                                            Map<String, Object> properties,
+                                            int sizePerPage,
+                                            int prefetch) {
+        return new GraphIterator<>(this, sizePerPage, prefetch, (page) -> {
+            return this.edgeAPI.listStream(vertexId, direction, label,
+                                           properties, 0, page, sizePerPage);
         });
     }
 
@@ -481,4 +640,10 @@ public class GraphManager {
     private void attachManager(GraphElement element) {
         element.attachManager(this);
     }
+
+    private void invalidateVertex(Object vertexId) {
+        if (this.vertexCache != null) {
+            this.vertexCache.invalidate(vertexId);
+        }
+    }
 }
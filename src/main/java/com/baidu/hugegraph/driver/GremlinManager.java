@@ -19,20 +19,64 @@
 
 package com.baidu.hugegraph.driver;
 
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
 import com.baidu.hugegraph.api.gremlin.GremlinAPI;
 import com.baidu.hugegraph.api.gremlin.GremlinRequest;
 import com.baidu.hugegraph.api.job.GremlinJobAPI;
 import com.baidu.hugegraph.client.RestClient;
+import com.baidu.hugegraph.rest.ClientException;
 import com.baidu.hugegraph.structure.gremlin.Response;
 import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.structure.gremlin.ResultStream;
+import com.baidu.hugegraph.util.E;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 public class GremlinManager {
 
+    public static final int DEFAULT_STREAM_PAGE_SIZE = 500;
+
+    private static final long PREPARED_CAPACITY = 1000L;
+
+    private static final String GROOVY = "gremlin-groovy";
+    private static final String PAGE_OFFSET = "__page_offset";
+    private static final String PAGE_LIMIT = "__page_limit";
+    private static final String TRAVERSAL =
+            "org.apache.tinkerpop.gremlin.process.traversal.Traversal";
+    // The script is evaluated as a closure to allow multiple statements,
+    // a traversal is paged by range() and the other results like a list or
+    // a scalar are paged as a collection
+    private static final String PAGED_GREMLIN = String.format(
+            "def __page_result = { ->\n%%s\n}.call()\n" +
+            "if (!(__page_result instanceof %s) &&\n" +
+            "    !(__page_result instanceof Iterable) &&\n" +
+            "    !(__page_result instanceof Iterator)) {\n" +
+            "    __page_result = [__page_result]\n" +
+            "}\n" +
+            "__page_result instanceof %s ?\n" +
+            "__page_result.range(%s, %s + %s) :\n" +
+            "__page_result.drop(%s as int).take(%s as int)",
+            TRAVERSAL, TRAVERSAL, PAGE_OFFSET, PAGE_OFFSET, PAGE_LIMIT,
+            PAGE_OFFSET, PAGE_LIMIT);
+    // The steps and methods writing the graph or the schema: drop() only
+    // without arguments unlike Iterable.drop(n), and property() only with
+    // a key and a value unlike the read Element.property(key)
+    private static final Pattern MUTATING = Pattern.compile(
+            "\\.\\s*(addV|addE|addVertex|addEdge|remove|create|append|" +
+            "eliminate|commit|rollback|tx)\\s*\\(|" +
+            "\\.\\s*drop\\s*\\(\\s*\\)|" +
+            "\\.\\s*property\\s*\\([^()]*,");
+
     private final GraphManager graphManager;
 
     private GremlinAPI gremlinAPI;
     private GremlinJobAPI gremlinJobAPI;
     private String graph;
+    private final Cache<String, PreparedGremlin> prepared;
 
     public GremlinManager(RestClient client, String graph,
                           GraphManager graphManager) {
@@ -40,20 +84,92 @@ public class GremlinManager {
         this.gremlinAPI = new GremlinAPI(client);
         this.gremlinJobAPI = new GremlinJobAPI(client, graph);
         this.graph = graph;
+        this.prepared = CacheBuilder.newBuilder()
+                                    .maximumSize(PREPARED_CAPACITY)
+                                    .recordStats()
+                                    .build();
     }
 
     public ResultSet execute(GremlinRequest request) {
-        // Bind "graph" to all graphs
-        request.aliases.put("graph", this.graph);
-        // Bind "g" to all graphs by custom rule which define in gremlin server.
-        request.aliases.put("g", "__g_" + this.graph);
-
+        this.bindAliases(request);
         Response response = this.gremlinAPI.post(request);
         response.graphManager(this.graphManager);
         // TODO: Can add some checks later
         return response.result();
     }
 
+    /**
+     * Execute a read-only gremlin page by page with bounded memory.
+     *
+     * NOTE: the server keeps no cursor, so each page re-executes the whole
+     * gremlin and skips the results of the pages before, the server work
+     * grows with the square of the results divided by the page size. Use
+     * it for moderate results, and larger pages for more results.
+     *
+     * The results MUST be in the same order on each execution, otherwise
+     * the pages silently skip or duplicate some results. A traversal like
+     * g.V() is not ordered on most backends, so sort it by an order() step
+     * like g.V().order().by(id), or execute it at once by execute().
+     *
+     * The gremlin writing the graph or the schema is rejected since it
+     * would be applied once per page.
+     */
+    public ResultStream stream(GremlinRequest request, int sizePerPage) {
+        E.checkArgument(GROOVY.equals(request.language),
+                        "Only %s can be executed as stream, but got '%s'",
+                        GROOVY, request.language);
+        E.checkArgument(!MUTATING.matcher(request.gremlin).find(),
+                        "Only read-only gremlin can be executed as stream " +
+                        "since it's executed once per page, but got '%s'",
+                        request.gremlin);
+        E.checkArgument(!request.bindings.containsKey(PAGE_OFFSET) &&
+                        !request.bindings.containsKey(PAGE_LIMIT),
+                        "The bindings '%s' and '%s' are reserved",
+                        PAGE_OFFSET, PAGE_LIMIT);
+        // The script is the same for all the pages to reuse the compiled one
+        String gremlin = String.format(PAGED_GREMLIN, request.gremlin);
+        return new ResultStream(sizePerPage, offset -> {
+            GremlinRequest page = new GremlinRequest(gremlin);
+            page.language = request.language;
+            page.bindings.putAll(request.bindings);
+            page.bindings.put(PAGE_OFFSET, offset);
+            page.bindings.put(PAGE_LIMIT, (long) sizePerPage);
+            page.aliases.putAll(request.aliases);
+            return this.execute(page);
+        });
+    }
+
+    /**
+     * Get the prepared gremlin of the script, the ones prepared before are
+     * reused, the variables of the script should be passed as bindings
+     */
+    public PreparedGremlin prepare(String gremlin) {
+        E.checkArgument(gremlin != null && !gremlin.isEmpty(),
+                        "The gremlin to prepare can't be null or empty");
+        // Prepared once by the concurrent callers of the same script
+        try {
+            return this.prepared.get(gremlin, () -> {
+                GremlinRequest request = new GremlinRequest(gremlin);
+                this.bindAliases(request);
+                return new PreparedGremlin(this.gremlinAPI,
+                                           this.graphManager, request);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ClientException("Failed to prepare gremlin '%s'",
+                                      e.getCause(), gremlin);
+        }
+    }
+
+    /**
+     * The hits of prepare() are the reuses of the prepared scripts
+     */
+    public CacheStats preparedStats() {
+        return this.prepared.stats();
+    }
+
     public long executeAsTask(GremlinRequest request) {
         return this.gremlinJobAPI.execute(request);
     }
@@ -61,4 +177,11 @@ public class GremlinManager {
     public GremlinRequest.Builder gremlin(String gremlin) {
         return new GremlinRequest.Builder(gremlin, this);
     }
+
+    private void bindAliases(GremlinRequest request) {
+        // Bind "graph" to all graphs
+        request.aliases.put("graph", this.graph);
+        // Bind "g" to all graphs by custom rule which define in gremlin server.
+        request.aliases.put("g", "__g_" + this.graph);
+    }
 }
@@ -20,11 +20,24 @@
 package com.baidu.hugegraph.driver;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.ws.rs.ProcessingException;
 
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.baidu.hugegraph.client.CircuitBreaker;
+import com.baidu.hugegraph.client.LoadBalancer;
+import com.baidu.hugegraph.client.PoolMonitor;
+import com.baidu.hugegraph.client.RequestMetrics;
 import com.baidu.hugegraph.client.RestClient;
+import com.baidu.hugegraph.client.RetryPolicy;
 import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.util.ExecutorUtil;
 import com.baidu.hugegraph.util.VersionUtil;
 import com.baidu.hugegraph.version.ClientVersion;
 
@@ -34,6 +47,15 @@ public class HugeClient implements Closeable {
         ClientVersion.check();
     }
     private final RestClient client;
+    private final List<RestClient> nodes;
+    private final Map<String, PoolMonitor> poolMonitors;
+    // Shared by the monitors of the pools, created if any pool is found
+    private ScheduledExecutorService poolScheduler;
+    private final int asyncThreads;
+    private final VertexCache vertexCache;
+    private final int lookupBatchSize;
+    private final int lookupWindow;
+    private final int lookupThreads;
     private VersionManager version;
     private GraphsManager graphs;
     private SchemaManager schema;
@@ -45,35 +67,134 @@ public class HugeClient implements Closeable {
     private TaskManager task;
     private AuthManager auth;
     private MetricsManager metrics;
+    private volatile AsyncManager async;
 
     public HugeClient(HugeClientBuilder builder) {
-        try {
-            this.client = new RestClient(builder.url(),
-                                         builder.username(),
-                                         builder.password(),
-                                         builder.timeout(),
-                                         builder.maxConns(),
-                                         builder.maxConnsPerRoute(),
-                                         builder.protocol(),
-                                         builder.trustStoreFile(),
-                                         builder.trustStorePassword());
-        } catch (ProcessingException e) {
-            throw new ClientException("Failed to connect url '%s'", builder.url());
+        this.client = newRestClient(builder, builder.url());
+        this.client.batchEncoding(builder.batchEncoding());
+        this.nodes = new ArrayList<>(builder.nodeUrls().size());
+        if (!builder.nodeUrls().isEmpty()) {
+            List<RestClient> clients = new ArrayList<>();
+            clients.add(this.client);
+            for (String url : builder.nodeUrls()) {
+                RestClient node = newRestClient(builder, url);
+                this.nodes.add(node);
+                clients.add(node);
+            }
+            this.client.balancer(new LoadBalancer(
+                                 clients, builder.balancePolicy(),
+                                 builder.healthCheckInterval()));
+        }
+        if (builder.maxRetries() > 0) {
+            this.client.retryPolicy(new RetryPolicy(
+                                    builder.maxRetries(),
+                                    builder.retryBaseDelay(),
+                                    builder.retryMaxDelay()));
+        }
+        if (builder.breakerFailureRate() > 0D) {
+            this.client.circuitBreaker(new CircuitBreaker(
+                                       builder.breakerFailureRate(),
+                                       builder.breakerMinRequests(),
+                                       builder.breakerOpenTime()));
+        }
+        if (builder.requestLimiter() != null) {
+            this.client.requestLimiter(builder.requestLimiter());
+        }
+        if (builder.requestMetrics()) {
+            RequestMetrics metrics = new RequestMetrics();
+            if (builder.metricsReporter() != null) {
+                metrics.addReporter(builder.metricsReporter(),
+                                    builder.metricsReportPeriod());
+            }
+            this.client.requestMetrics(metrics);
+        }
+        this.poolMonitors = new LinkedHashMap<>();
+        this.poolScheduler = null;
+        this.monitorPool(this.client, builder);
+        for (RestClient node : this.nodes) {
+            this.monitorPool(node, builder);
         }
+        this.asyncThreads = builder.asyncThreads();
+        if (builder.vertexCacheCapacity() > 0) {
+            this.vertexCache = new VertexCache(builder.vertexCacheCapacity(),
+                                               builder.vertexCacheTtl());
+        } else {
+            this.vertexCache = null;
+        }
+        this.lookupBatchSize = builder.lookupBatchSize();
+        this.lookupWindow = builder.lookupWindow();
+        this.lookupThreads = builder.lookupThreads();
         try {
             this.initManagers(this.client, builder.graph());
         } catch (Throwable e) {
-            this.client.close();
+            this.closeClients();
             throw e;
         }
     }
 
+    private static RestClient newRestClient(HugeClientBuilder builder,
+                                            String url) {
+        try {
+            return new RestClient(url,
+                                  builder.username(),
+                                  builder.password(),
+                                  builder.timeout(),
+                                  builder.maxConns(),
+                                  builder.maxConnsPerRoute(),
+                                  builder.protocol(),
+                                  builder.trustStoreFile(),
+                                  builder.trustStorePassword());
+        } catch (ProcessingException e) {
+            throw new ClientException("Failed to connect url '%s'", url);
+        }
+    }
+
     public static HugeClientBuilder builder(String url, String graph) {
         return new HugeClientBuilder(url, graph);
     }
 
     @Override
     public void close() {
+        if (this.async != null) {
+            this.async.close();
+        }
+        if (this.graph != null) {
+            this.graph.close();
+        }
+        this.closeClients();
+    }
+
+    private void monitorPool(RestClient client, HugeClientBuilder builder) {
+        PoolingHttpClientConnectionManager pool = client.connectionPool();
+        if (pool == null) {
+            return;
+        }
+        if (this.poolScheduler == null) {
+            this.poolScheduler = ExecutorUtil.newScheduledThreadPool(
+                                 "pool-monitor");
+        }
+        this.poolMonitors.put(client.url(),
+                              new PoolMonitor(pool, builder.idleTime(),
+                                              builder.maxConnsLimit(),
+                                              this.poolScheduler));
+    }
+
+    private void closeClients() {
+        for (PoolMonitor monitor : this.poolMonitors.values()) {
+            monitor.close();
+        }
+        if (this.poolScheduler != null) {
+            this.poolScheduler.shutdownNow();
+        }
+        if (this.client.requestMetrics() != null) {
+            this.client.requestMetrics().close();
+        }
+        if (this.client.balancer() != null) {
+            this.client.balancer().close();
+        }
+        for (RestClient node : this.nodes) {
+            node.close();
+        }
         this.client.close();
     }
 
@@ -85,14 +206,16 @@ public class HugeClient implements Closeable {
 
         this.graphs = new GraphsManager(client);
         this.schema = new SchemaManager(client, graph);
-        this.graph = new GraphManager(client, graph);
+        this.graph = new GraphManager(client, graph, this.vertexCache,
+                                      this.lookupBatchSize, this.lookupWindow,
+                                      this.lookupThreads);
         this.gremlin = new GremlinManager(client, graph, this.graph);
         this.traverser = new TraverserManager(client, this.graph);
         this.variable = new VariablesManager(client, graph);
         this.job = new JobManager(client, graph);
         this.task = new TaskManager(client, graph);
         this.auth = new AuthManager(client, graph);
-        this.metrics = new MetricsManager(client);
+        this.metrics = new MetricsManager(client, this.poolMonitors);
     }
 
     private void checkServerApiVersion() {
@@ -142,4 +265,15 @@ public class HugeClient implements Closeable {
     public MetricsManager metrics() {
         return this.metrics;
     }
+
+    public AsyncManager async() {
+        if (this.async == null) {
+            synchronized (this) {
+                if (this.async == null) {
+                    this.async = new AsyncManager(this, this.asyncThreads);
+                }
+            }
+        }
+        return this.async;
+    }
 }
@@ -19,6 +19,14 @@
 
 package com.baidu.hugegraph.driver;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.baidu.hugegraph.client.MetricsReporter;
+import com.baidu.hugegraph.client.RequestLimiter;
+import com.baidu.hugegraph.structure.constant.ApiFamily;
+import com.baidu.hugegraph.structure.constant.BalancePolicy;
+import com.baidu.hugegraph.structure.constant.BatchEncoding;
 import com.baidu.hugegraph.util.E;
 
 public class HugeClientBuilder {
@@ -29,6 +37,15 @@ public class HugeClientBuilder {
     private static final int DEFAULT_MAX_CONNS_PER_ROUTE = 2 * CPUS;
     private static final String DEFAULT_PROTOCOL = "http";
     private static final int DEFAULT_IDLE_TIME = 30;
+    private static final int DEFAULT_ASYNC_THREADS = DEFAULT_MAX_CONNS;
+    private static final int DEFAULT_VERTEX_CACHE_TTL = 60;
+    private static final int DEFAULT_LOOKUP_WINDOW = 2;
+    private static final int DEFAULT_LOOKUP_THREADS = 4;
+    private static final int DEFAULT_HEALTH_CHECK_INTERVAL = 5;
+    private static final int DEFAULT_RETRY_BASE_DELAY = 100;
+    private static final int DEFAULT_RETRY_MAX_DELAY = 5000;
+    private static final int DEFAULT_BREAKER_MIN_REQUESTS = 20;
+    private static final int DEFAULT_BREAKER_OPEN_TIME = 30;
 
     private String url;
     private String graph;
@@ -37,10 +54,31 @@ public class HugeClientBuilder {
     private int timeout;
     private int maxConns;
     private int maxConnsPerRoute;
+    private int maxConnsLimit;
     private int idleTime;
     private String protocol;
     private String trustStoreFile;
     private String trustStorePassword;
+    private int asyncThreads;
+    private BatchEncoding batchEncoding;
+    private int vertexCacheCapacity;
+    private int vertexCacheTtl;
+    private int lookupBatchSize;
+    private int lookupWindow;
+    private int lookupThreads;
+    private boolean requestMetrics;
+    private MetricsReporter metricsReporter;
+    private int metricsReportPeriod;
+    private List<String> nodeUrls;
+    private BalancePolicy balancePolicy;
+    private int healthCheckInterval;
+    private int maxRetries;
+    private int retryBaseDelay;
+    private int retryMaxDelay;
+    private double breakerFailureRate;
+    private int breakerMinRequests;
+    private int breakerOpenTime;
+    private RequestLimiter requestLimiter;
 
     public HugeClientBuilder(String url, String graph) {
         E.checkArgument(url != null && !url.isEmpty(),
@@ -56,10 +94,31 @@ public class HugeClientBuilder {
         this.timeout = DEFAULT_TIMEOUT;
         this.maxConns = DEFAULT_MAX_CONNS;
         this.maxConnsPerRoute = DEFAULT_MAX_CONNS_PER_ROUTE;
+        this.maxConnsLimit = 0;
         this.protocol = DEFAULT_PROTOCOL;
         this.trustStoreFile = "";
         this.trustStorePassword = "";
         this.idleTime = DEFAULT_IDLE_TIME;
+        this.asyncThreads = DEFAULT_ASYNC_THREADS;
+        this.batchEncoding = BatchEncoding.GZIP;
+        this.vertexCacheCapacity = 0;
+        this.vertexCacheTtl = DEFAULT_VERTEX_CACHE_TTL;
+        this.lookupBatchSize = 0;
+        this.lookupWindow = DEFAULT_LOOKUP_WINDOW;
+        this.lookupThreads = DEFAULT_LOOKUP_THREADS;
+        this.requestMetrics = true;
+        this.metricsReporter = null;
+        this.metricsReportPeriod = 0;
+        this.nodeUrls = new ArrayList<>();
+        this.balancePolicy = BalancePolicy.ROUND_ROBIN;
+        this.healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+        this.maxRetries = 0;
+        this.retryBaseDelay = DEFAULT_RETRY_BASE_DELAY;
+        this.retryMaxDelay = DEFAULT_RETRY_MAX_DELAY;
+        this.breakerFailureRate = 0D;
+        this.breakerMinRequests = DEFAULT_BREAKER_MIN_REQUESTS;
+        this.breakerOpenTime = DEFAULT_BREAKER_OPEN_TIME;
+        this.requestLimiter = null;
     }
 
     public HugeClient build() {
@@ -67,9 +126,118 @@ public class HugeClientBuilder {
                         "The url parameter can't be null");
         E.checkArgument(this.graph != null,
                         "The graph parameter can't be null");
+        E.checkArgument(this.maxConnsLimit == 0 ||
+                        this.maxConnsLimit >= this.maxConns,
+                        "The maxConnsLimit parameter must be 0 or >= " +
+                        "maxConns %s, but got %s",
+                        this.maxConns, this.maxConnsLimit);
         return new HugeClient(this);
     }
 
+    /**
+     * Grow the pool up to maxConnsLimit connections when the leases are
+     * pending, and shrink it back when underused, 0 means disabled
+     */
+    public HugeClientBuilder configAdaptivePool(int maxConnsLimit) {
+        E.checkArgument(maxConnsLimit >= 0,
+                        "The maxConnsLimit parameter must be >= 0, " +
+                        "but got %s", maxConnsLimit);
+        this.maxConnsLimit = maxConnsLimit;
+        return this;
+    }
+
+    public HugeClientBuilder configAsync(int asyncThreads) {
+        if (asyncThreads == 0) {
+            asyncThreads = DEFAULT_ASYNC_THREADS;
+        }
+        E.checkArgument(asyncThreads > 0,
+                        "The asyncThreads parameter must be > 0, " +
+                        "but got %s", asyncThreads);
+        this.asyncThreads = asyncThreads;
+        return this;
+    }
+
+    /**
+     * Balance the requests over the url and the urls of the other server
+     * nodes sharing the same backend, the nodes down are checked every
+     * healthCheckInterval seconds, 0 means the default
+     */
+    public HugeClientBuilder configBalance(BalancePolicy policy,
+                                           List<String> nodeUrls,
+                                           int healthCheckInterval) {
+        E.checkArgumentNotNull(policy,
+                               "The balance policy parameter can't be null");
+        E.checkArgumentNotNull(nodeUrls,
+                               "The node urls parameter can't be null");
+        for (String url : nodeUrls) {
+            E.checkArgument(url != null && !url.isEmpty(),
+                            "Expect a string value as the node url, " +
+                            "but got: %s", url);
+        }
+        if (healthCheckInterval == 0) {
+            healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+        }
+        E.checkArgument(healthCheckInterval > 0,
+                        "The health check interval must be > 0, " +
+                        "but got %s", healthCheckInterval);
+        this.balancePolicy = policy;
+        this.nodeUrls = new ArrayList<>(nodeUrls);
+        this.healthCheckInterval = healthCheckInterval;
+        return this;
+    }
+
+    /**
+     * The content encoding of the batch writes, GZIP by default
+     */
+    public HugeClientBuilder configBatchEncoding(BatchEncoding encoding) {
+        E.checkArgumentNotNull(encoding,
+                               "The batch encoding parameter can't be null");
+        this.batchEncoding = encoding;
+        return this;
+    }
+
+    /**
+     * Limit the bulk requests in flight of all the api families, which are
+     * the batch writes, the traversers and the gremlin requests, to keep
+     * the other connections for the interactive requests
+     */
+    public HugeClientBuilder configBulkLimit(int maxInFlight) {
+        E.checkArgument(maxInFlight > 0,
+                        "The max bulk requests in flight must be > 0, " +
+                        "but got %s", maxInFlight);
+        this.limiter().limitBulk(maxInFlight);
+        return this;
+    }
+
+    /**
+     * Reject the requests of an endpoint for openTime seconds once its
+     * failure rate reaches failureRate with at least minRequests in the
+     * window, 0 failureRate means disabled, 0 minRequests or openTime
+     * means the default
+     */
+    public HugeClientBuilder configCircuitBreaker(double failureRate,
+                                                  int minRequests,
+                                                  int openTime) {
+        E.checkArgument(failureRate >= 0D && failureRate <= 1D,
+                        "The failure rate must be in [0, 1], but got %s",
+                        failureRate);
+        if (minRequests == 0) {
+            minRequests = DEFAULT_BREAKER_MIN_REQUESTS;
+        }
+        if (openTime == 0) {
+            openTime = DEFAULT_BREAKER_OPEN_TIME;
+        }
+        E.checkArgument(minRequests > 0,
+                        "The min requests must be > 0, but got %s",
+                        minRequests);
+        E.checkArgument(openTime > 0,
+                        "The open time must be > 0, but got %s", openTime);
+        this.breakerFailureRate = failureRate;
+        this.breakerMinRequests = minRequests;
+        this.breakerOpenTime = openTime;
+        return this;
+    }
+
     public HugeClientBuilder configGraph(String graph) {
         this.graph = graph;
         return this;
@@ -83,6 +251,57 @@ public class HugeClientBuilder {
         return this;
     }
 
+    /**
+     * Coalesce the concurrent lookups of vertices or edges by id into
+     * multi-gets of at most batchSize ids, 0 means disabled, waiting at most
+     * window milliseconds, 0 means the default
+     */
+    public HugeClientBuilder configLookupBatch(int batchSize, int window) {
+        return this.configLookupBatch(batchSize, window, 0);
+    }
+
+    /**
+     * Like configLookupBatch(batchSize, window), and the multi-gets of
+     * vertices and edges are sent by the shared threads, 0 means the
+     * default
+     */
+    public HugeClientBuilder configLookupBatch(int batchSize, int window,
+                                               int threads) {
+        E.checkArgument(batchSize == 0 || batchSize > 1,
+                        "The lookup batch size must be 0 or > 1, " +
+                        "but got %s", batchSize);
+        if (window == 0) {
+            window = DEFAULT_LOOKUP_WINDOW;
+        }
+        E.checkArgument(window > 0,
+                        "The lookup window must be > 0, but got %s", window);
+        if (threads == 0) {
+            threads = DEFAULT_LOOKUP_THREADS;
+        }
+        E.checkArgument(threads > 0,
+                        "The lookup threads must be > 0, but got %s",
+                        threads);
+        this.lookupBatchSize = batchSize;
+        this.lookupWindow = window;
+        this.lookupThreads = threads;
+        return this;
+    }
+
+    /**
+     * Report the request metrics by the reporter every period seconds
+     */
+    public HugeClientBuilder configMetricsReporter(MetricsReporter reporter,
+                                                   int period) {
+        E.checkArgumentNotNull(reporter,
+                               "The metrics reporter parameter can't be null");
+        E.checkArgument(period > 0,
+                        "The report period must be > 0, but got %s", period);
+        this.requestMetrics = true;
+        this.metricsReporter = reporter;
+        this.metricsReportPeriod = period;
+        return this;
+    }
+
     public HugeClientBuilder configPool(int maxConns, int maxConnsPerRoute) {
         if (maxConns == 0) {
             maxConns = DEFAULT_MAX_CONNS;
@@ -95,6 +314,54 @@ public class HugeClientBuilder {
         return this;
     }
 
+    /**
+     * Limit the requests of the api family to rate per second and
+     * maxInFlight in flight, 0 means unlimited. The interactive requests
+     * waiting are permitted before the bulk ones of the family
+     */
+    public HugeClientBuilder configRequestLimit(ApiFamily family, double rate,
+                                                int maxInFlight) {
+        E.checkArgumentNotNull(family,
+                               "The api family parameter can't be null");
+        this.limiter().limit(family, rate, maxInFlight);
+        return this;
+    }
+
+    /**
+     * Record the latency, errors and response length of the requests per
+     * endpoint, enabled by default
+     */
+    public HugeClientBuilder configRequestMetrics(boolean enabled) {
+        this.requestMetrics = enabled;
+        return this;
+    }
+
+    /**
+     * Retry the transient failures at most maxRetries times, 0 means
+     * disabled, backing off from baseDelay up to maxDelay milliseconds,
+     * 0 means the default. Only the idempotent requests are retried unless
+     * the server wasn't reached
+     */
+    public HugeClientBuilder configRetry(int maxRetries, int baseDelay,
+                                         int maxDelay) {
+        E.checkArgument(maxRetries >= 0,
+                        "The max retries must be >= 0, but got %s",
+                        maxRetries);
+        if (baseDelay == 0) {
+            baseDelay = DEFAULT_RETRY_BASE_DELAY;
+        }
+        if (maxDelay == 0) {
+            maxDelay = Math.max(DEFAULT_RETRY_MAX_DELAY, baseDelay);
+        }
+        E.checkArgument(baseDelay > 0 && baseDelay <= maxDelay,
+                        "The retry delay must be in (0, %s], but got %s",
+                        maxDelay, baseDelay);
+        this.maxRetries = maxRetries;
+        this.retryBaseDelay = baseDelay;
+        this.retryMaxDelay = maxDelay;
+        return this;
+    }
+
     public HugeClientBuilder configSSL(String protocol, String trustStoreFile,
                                        String trustStorePassword) {
         if (protocol == null) {
@@ -114,6 +381,24 @@ public class HugeClientBuilder {
         return this;
     }
 
+    /**
+     * Enable the vertex cache with the capacity, 0 means disabled, and
+     * the ttl in seconds, 0 means the default
+     */
+    public HugeClientBuilder configVertexCache(int capacity, int ttl) {
+        E.checkArgument(capacity >= 0,
+                        "The vertex cache capacity must be >= 0, " +
+                        "but got %s", capacity);
+        if (ttl == 0) {
+            ttl = DEFAULT_VERTEX_CACHE_TTL;
+        }
+        E.checkArgument(ttl > 0,
+                        "The vertex cache ttl must be > 0, but got %s", ttl);
+        this.vertexCacheCapacity = capacity;
+        this.vertexCacheTtl = ttl;
+        return this;
+    }
+
     public HugeClientBuilder configUrl(String url) {
         this.url = url;
         return this;
@@ -160,6 +445,10 @@ public class HugeClientBuilder {
         return this.maxConnsPerRoute;
     }
 
+    public int maxConnsLimit() {
+        return this.maxConnsLimit;
+    }
+
     public int idleTime() {
         return this.idleTime;
     }
@@ -175,4 +464,91 @@ public class HugeClientBuilder {
     public String trustStorePassword() {
         return this.trustStorePassword;
     }
+
+    public int asyncThreads() {
+        return this.asyncThreads;
+    }
+
+    public BatchEncoding batchEncoding() {
+        return this.batchEncoding;
+    }
+
+    public int vertexCacheCapacity() {
+        return this.vertexCacheCapacity;
+    }
+
+    public int vertexCacheTtl() {
+        return this.vertexCacheTtl;
+    }
+
+    public int lookupBatchSize() {
+        return this.lookupBatchSize;
+    }
+
+    public int lookupWindow() {
+        return this.lookupWindow;
+    }
+
+    public int lookupThreads() {
+        return this.lookupThreads;
+    }
+
+    public List<String> nodeUrls() {
+        return this.nodeUrls;
+    }
+
+    public BalancePolicy balancePolicy() {
+        return this.balancePolicy;
+    }
+
+    public int healthCheckInterval() {
+        return this.healthCheckInterval;
+    }
+
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    public int retryBaseDelay() {
+        return this.retryBaseDelay;
+    }
+
+    public int retryMaxDelay() {
+        return this.retryMaxDelay;
+    }
+
+    public double breakerFailureRate() {
+        return this.breakerFailureRate;
+    }
+
+    public int breakerMinRequests() {
+        return this.breakerMinRequests;
+    }
+
+    public int breakerOpenTime() {
+        return this.breakerOpenTime;
+    }
+
+    public RequestLimiter requestLimiter() {
+        return this.requestLimiter;
+    }
+
+    public boolean requestMetrics() {
+        return this.requestMetrics;
+    }
+
+    public MetricsReporter metricsReporter() {
+        return this.metricsReporter;
+    }
+
+    public int metricsReportPeriod() {
+        return this.metricsReportPeriod;
+    }
+
+    private RequestLimiter limiter() {
+        if (this.requestLimiter == null) {
+            this.requestLimiter = new RequestLimiter();
+        }
+        return this.requestLimiter;
+    }
 }
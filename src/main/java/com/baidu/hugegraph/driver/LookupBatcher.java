@@ -0,0 +1,304 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * LookupBatcher coalesces the concurrent point lookups: the keys requested
+ * within a time window, or until the batch is full, are fetched by a single
+ * multi-get, then each caller's future is completed with its own element.
+ *
+ * The keys missed by the multi-get, and all the keys of a multi-get
+ * rejected as a bad request like an invalid id, fall back to the single
+ * lookup, so each caller gets the same result or error as it would have
+ * got without batching. The other failures of the multi-get, like timeouts
+ * or server errors, fail all its keys instead of adding more requests to
+ * a struggling server.
+ */
+public class LookupBatcher<K, V> {
+
+    private static final Logger LOG = Log.logger(LookupBatcher.class);
+
+    private static final long CLOSE_TIMEOUT = 30L;
+
+    private final int batchSize;
+    private final long window;
+    private final Function<List<K>, List<V>> batchLoader;
+    private final Function<K, V> singleLoader;
+    private final Function<V, K> keyOf;
+    private final Function<K, Object> normalizer;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService executor;
+    private final boolean ownExecutors;
+
+    private Map<Object, Lookup<K, V>> pending;
+    private boolean scheduled;
+    private volatile boolean closed;
+
+    private final LongAdder lookups;
+    private final LongAdder batches;
+
+    /**
+     * @param batchSize     the max keys of a multi-get
+     * @param window        the max milliseconds a key waits for the others
+     * @param threads       the threads to run the multi-gets
+     * @param batchLoader   the multi-get
+     * @param singleLoader  the single lookup as fallback
+     * @param keyOf         get the key of a loaded element
+     * @param normalizer    map the keys to the ones comparable by equals()
+     */
+    public LookupBatcher(String name, int batchSize, long window, int threads,
+                         Function<List<K>, List<V>> batchLoader,
+                         Function<K, V> singleLoader,
+                         Function<V, K> keyOf,
+                         Function<K, Object> normalizer) {
+        this(batchSize, window,
+             ExecutorUtil.newScheduledThreadPool(name + "-lookup-timer"),
+             executor(name, threads), true, batchLoader, singleLoader,
+             keyOf, normalizer);
+    }
+
+    /**
+     * Run the multi-gets by the scheduler and the executor shared with the
+     * other batchers, which are owned and shut down by the caller after
+     * the batchers closed
+     */
+    public LookupBatcher(int batchSize, long window,
+                         ScheduledExecutorService scheduler,
+                         ExecutorService executor,
+                         Function<List<K>, List<V>> batchLoader,
+                         Function<K, V> singleLoader,
+                         Function<V, K> keyOf,
+                         Function<K, Object> normalizer) {
+        this(batchSize, window, scheduler, executor, false, batchLoader,
+             singleLoader, keyOf, normalizer);
+    }
+
+    private LookupBatcher(int batchSize, long window,
+                          ScheduledExecutorService scheduler,
+                          ExecutorService executor, boolean ownExecutors,
+                          Function<List<K>, List<V>> batchLoader,
+                          Function<K, V> singleLoader,
+                          Function<V, K> keyOf,
+                          Function<K, Object> normalizer) {
+        E.checkArgument(batchSize > 1,
+                        "The lookup batch size must be > 1, but got %s",
+                        batchSize);
+        E.checkArgument(window > 0,
+                        "The lookup window must be > 0, but got %s", window);
+        E.checkNotNull(scheduler, "scheduler");
+        E.checkNotNull(executor, "executor");
+        this.batchSize = batchSize;
+        this.window = window;
+        this.batchLoader = batchLoader;
+        this.singleLoader = singleLoader;
+        this.keyOf = keyOf;
+        this.normalizer = normalizer;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.ownExecutors = ownExecutors;
+        this.pending = new LinkedHashMap<>();
+        this.scheduled = false;
+        this.closed = false;
+        this.lookups = new LongAdder();
+        this.batches = new LongAdder();
+    }
+
+    private static ExecutorService executor(String name, int threads) {
+        E.checkArgument(threads > 0,
+                        "The lookup threads must be > 0, but got %s",
+                        threads);
+        return ExecutorUtil.newFixedThreadPool(threads, name + "-lookup-%d");
+    }
+
+    public CompletableFuture<V> submit(K key) {
+        E.checkArgumentNotNull(key, "The lookup key can't be null");
+        Object normalized = this.normalizer.apply(key);
+        Map<Object, Lookup<K, V>> batch = null;
+        Lookup<K, V> lookup;
+        synchronized (this) {
+            E.checkState(!this.closed, "The lookup batcher has been closed");
+            this.lookups.increment();
+            // The same key requested within a window shares the future
+            lookup = this.pending.get(normalized);
+            if (lookup != null) {
+                return lookup.future;
+            }
+            lookup = new Lookup<>(key);
+            this.pending.put(normalized, lookup);
+            if (this.pending.size() >= this.batchSize) {
+                batch = this.pending;
+                this.pending = new LinkedHashMap<>();
+            } else if (!this.scheduled) {
+                this.scheduled = true;
+                this.scheduler.schedule(this::flushPending, this.window,
+                                        TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            this.dispatch(batch);
+        }
+        return lookup.future;
+    }
+
+    /**
+     * Lookup synchronously, throw the error of the lookup if failed
+     */
+    public V get(K key) {
+        try {
+            return this.submit(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ClientException(String.format(
+                      "Failed to lookup '%s'", key), e.getCause());
+        }
+    }
+
+    /**
+     * The average count of lookups served by a request
+     */
+    public double batchingRatio() {
+        long batches = this.batches.sum();
+        return batches == 0L ? 0D : (double) this.lookups.sum() / batches;
+    }
+
+    public void close() {
+        Map<Object, Lookup<K, V>> batch;
+        synchronized (this) {
+            this.closed = true;
+            batch = this.pending;
+            this.pending = new LinkedHashMap<>();
+        }
+        if (!batch.isEmpty()) {
+            this.load(batch);
+        }
+        if (!this.ownExecutors) {
+            return;
+        }
+        this.scheduler.shutdownNow();
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushPending() {
+        Map<Object, Lookup<K, V>> batch;
+        synchronized (this) {
+            this.scheduled = false;
+            if (this.pending.isEmpty()) {
+                return;
+            }
+            batch = this.pending;
+            this.pending = new LinkedHashMap<>();
+        }
+        this.dispatch(batch);
+    }
+
+    private void dispatch(Map<Object, Lookup<K, V>> batch) {
+        try {
+            this.executor.execute(() -> this.load(batch));
+        } catch (RuntimeException e) {
+            // Rejected after closed, let the caller do it
+            this.load(batch);
+        }
+    }
+
+    private void load(Map<Object, Lookup<K, V>> batch) {
+        this.batches.increment();
+        if (batch.size() > 1) {
+            List<K> keys = new ArrayList<>(batch.size());
+            for (Lookup<K, V> lookup : batch.values()) {
+                keys.add(lookup.key);
+            }
+            try {
+                for (V value : this.batchLoader.apply(keys)) {
+                    Object key = this.normalizer.apply(this.keyOf.apply(value));
+                    Lookup<K, V> lookup = batch.remove(key);
+                    if (lookup != null) {
+                        lookup.future.complete(value);
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!badRequest(e)) {
+                    LOG.warn("Failed to lookup {} keys in batch",
+                             keys.size(), e);
+                    for (Lookup<K, V> lookup : batch.values()) {
+                        lookup.future.completeExceptionally(e);
+                    }
+                    return;
+                }
+                LOG.debug("Failed to lookup {} keys in batch, fallback to " +
+                          "single lookup", keys.size(), e);
+            }
+        }
+        for (Lookup<K, V> lookup : batch.values()) {
+            try {
+                lookup.future.complete(this.singleLoader.apply(lookup.key));
+            } catch (Throwable e) {
+                lookup.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static boolean badRequest(Throwable e) {
+        if (!(e instanceof ServerException)) {
+            return false;
+        }
+        int status = ((ServerException) e).status();
+        return status >= 400 && status < 500 && status != 408 &&
+               status != 429;
+    }
+
+    private static class Lookup<K, V> {
+
+        private final K key;
+        private final CompletableFuture<V> future;
+
+        public Lookup(K key) {
+            this.key = key;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
@@ -19,17 +19,33 @@
 
 package com.baidu.hugegraph.driver;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.baidu.hugegraph.api.metrics.MetricsAPI;
+import com.baidu.hugegraph.client.CircuitBreaker;
+import com.baidu.hugegraph.client.LoadBalancer;
+import com.baidu.hugegraph.client.PoolMonitor;
+import com.baidu.hugegraph.client.RequestLimiter;
+import com.baidu.hugegraph.client.RequestMetrics;
 import com.baidu.hugegraph.client.RestClient;
+import com.google.common.collect.ImmutableMap;
 
 public class MetricsManager {
 
     private MetricsAPI metricsAPI;
+    private RestClient client;
+    private Map<String, PoolMonitor> poolMonitors;
 
     public MetricsManager(RestClient client) {
+        this(client, ImmutableMap.of());
+    }
+
+    public MetricsManager(RestClient client,
+                          Map<String, PoolMonitor> poolMonitors) {
         this.metricsAPI = new MetricsAPI(client);
+        this.client = client;
+        this.poolMonitors = poolMonitors;
     }
 
     public Map<String, Map<String, Object>> backend() {
@@ -44,6 +60,87 @@ public class MetricsManager {
         return this.metricsAPI.system();
     }
 
+    /**
+     * The metrics of the requests sent by this client, keyed by the request
+     * method and path template, empty if the request metrics are disabled
+     */
+    public Map<String, Map<String, Object>> client() {
+        RequestMetrics metrics = this.client.requestMetrics();
+        if (metrics == null) {
+            return ImmutableMap.of();
+        }
+        return metrics.snapshot();
+    }
+
+    /**
+     * The circuit breaker state of each endpoint requested, empty if the
+     * circuit breaker is disabled
+     */
+    public Map<String, CircuitBreaker.State> breakers() {
+        CircuitBreaker breaker = this.client.circuitBreaker();
+        if (breaker == null) {
+            return ImmutableMap.of();
+        }
+        return breaker.states();
+    }
+
+    /**
+     * The state of the request limit of each api family, and of the bulk
+     * requests, empty if the requests are not limited
+     */
+    public Map<String, Map<String, Object>> limits() {
+        RequestLimiter limiter = this.client.requestLimiter();
+        if (limiter == null) {
+            return ImmutableMap.of();
+        }
+        return limiter.metrics();
+    }
+
+    /**
+     * The state of each server node balanced by this client, keyed by the
+     * url, empty if the requests are not balanced
+     */
+    public Map<String, Map<String, Object>> nodes() {
+        LoadBalancer balancer = this.client.balancer();
+        if (balancer == null) {
+            return ImmutableMap.of();
+        }
+        Map<String, Map<String, Object>> nodes = new LinkedHashMap<>();
+        for (LoadBalancer.Node node : balancer.nodes()) {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("up", node.up());
+            metrics.put("in_flight", node.inFlight());
+            metrics.put("latency_ms", node.latency());
+            nodes.put(node.url(), metrics);
+        }
+        return nodes;
+    }
+
+    /**
+     * The metrics of the connection pool of this client, sampled every
+     * second, empty if the pool is not found
+     */
+    public Map<String, Object> pool() {
+        PoolMonitor monitor = this.poolMonitors.get(this.client.url());
+        if (monitor == null) {
+            return ImmutableMap.of();
+        }
+        return monitor.metrics();
+    }
+
+    /**
+     * The metrics of the connection pool of each server node, keyed by the
+     * url of the node, the pools not found are absent
+     */
+    public Map<String, Map<String, Object>> pools() {
+        Map<String, Map<String, Object>> pools = new LinkedHashMap<>();
+        for (Map.Entry<String, PoolMonitor> e :
+             this.poolMonitors.entrySet()) {
+            pools.put(e.getKey(), e.getValue().metrics());
+        }
+        return pools;
+    }
+
     /**
      * The nesting level is too deep, may need to optimize the server first
      */
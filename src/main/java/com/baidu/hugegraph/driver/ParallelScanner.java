@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.GraphElement;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Shard;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * ParallelScanner splits the vertices or edges into shards and scans up to
+ * `parallelism` shards concurrently, each of them page by page. The results
+ * are either pushed to a callback sink from the worker threads, or exposed
+ * as a Stream fed by the workers through a bounded queue.
+ */
+public class ParallelScanner implements Closeable {
+
+    private static final Logger LOG = Log.logger(ParallelScanner.class);
+
+    public static final int DEFAULT_SIZE_PER_PAGE = 1000;
+    private static final long OFFER_INTERVAL = 100L;
+    private static final long CLOSE_TIMEOUT = 30L;
+    private static final Object END = new Object();
+
+    private final TraverserManager traverser;
+    private final int parallelism;
+    private final int sizePerPage;
+    private final ExecutorService executor;
+
+    public ParallelScanner(TraverserManager traverser, int parallelism) {
+        this(traverser, parallelism, DEFAULT_SIZE_PER_PAGE);
+    }
+
+    public ParallelScanner(TraverserManager traverser, int parallelism,
+                           int sizePerPage) {
+        E.checkNotNull(traverser, "traverser manager");
+        E.checkArgument(parallelism > 0,
+                        "The parallelism must be > 0, but got %s",
+                        parallelism);
+        E.checkArgument(sizePerPage > 0,
+                        "The size per page must be > 0, but got %s",
+                        sizePerPage);
+        this.traverser = traverser;
+        this.parallelism = parallelism;
+        this.sizePerPage = sizePerPage;
+        this.executor = ExecutorUtil.newFixedThreadPool(parallelism,
+                                                        "parallel-scanner-%d");
+    }
+
+    /**
+     * Scan all the vertices and pass them to the sink, which is called
+     * concurrently from the worker threads and must be thread safe.
+     * @return the count of scanned vertices
+     */
+    public long scanVertices(long splitSize, Consumer<Vertex> sink) {
+        return this.scan(this.traverser.vertexShards(splitSize),
+                         this.traverser::iteratorVertices, sink);
+    }
+
+    /**
+     * Scan all the edges and pass them to the sink, which is called
+     * concurrently from the worker threads and must be thread safe.
+     * @return the count of scanned edges
+     */
+    public long scanEdges(long splitSize, Consumer<Edge> sink) {
+        return this.scan(this.traverser.edgeShards(splitSize),
+                         this.traverser::iteratorEdges, sink);
+    }
+
+    /**
+     * The returned stream should be closed if it's not fully consumed,
+     * it can be turned to parallel to spread the downstream operations.
+     */
+    public Stream<Vertex> streamVertices(long splitSize) {
+        return this.stream(this.traverser.vertexShards(splitSize),
+                           this.traverser::iteratorVertices);
+    }
+
+    /**
+     * The returned stream should be closed if it's not fully consumed,
+     * it can be turned to parallel to spread the downstream operations.
+     */
+    public Stream<Edge> streamEdges(long splitSize) {
+        return this.stream(this.traverser.edgeShards(splitSize),
+                           this.traverser::iteratorEdges);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T extends GraphElement> long scan(
+            List<Shard> shards,
+            BiFunction<Shard, Integer, Iterator<T>> iteratorFetcher,
+            Consumer<T> sink) {
+        E.checkNotNull(sink, "sink");
+        LongAdder count = new LongAdder();
+        List<Future<?>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(this.executor.submit(() -> {
+                Iterator<T> iter = iteratorFetcher.apply(shard,
+                                                         this.sizePerPage);
+                while (iter.hasNext()) {
+                    sink.accept(iter.next());
+                    count.increment();
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while scanning shards", e);
+        } catch (ExecutionException e) {
+            throw new ClientException("Failed to scan shards", e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return count.sum();
+    }
+
+    private <T extends GraphElement> Stream<T> stream(
+            List<Shard> shards,
+            BiFunction<Shard, Integer, Iterator<T>> iteratorFetcher) {
+        ShardsIterator<T> iterator = new ShardsIterator<>(shards.size());
+        for (Shard shard : shards) {
+            iterator.add(this.executor.submit(() -> {
+                iterator.scan(iteratorFetcher.apply(shard, this.sizePerPage));
+            }));
+        }
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(
+                                     iterator, Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                            .onClose(iterator::close);
+    }
+
+    /**
+     * Merge the elements of all shards, which are handed over by the workers
+     * in batches of the page size to reduce the contention on the queue.
+     */
+    private class ShardsIterator<T extends GraphElement>
+            implements Iterator<T> {
+
+        private final BlockingQueue<Object> batches;
+        private final AtomicInteger remaining;
+        private final List<Future<?>> futures;
+        private List<T> batch;
+        private int cursor;
+        private boolean finished;
+        private volatile boolean closed;
+
+        public ShardsIterator(int shards) {
+            this.batches = new ArrayBlockingQueue<>(
+                           2 * ParallelScanner.this.parallelism);
+            this.remaining = new AtomicInteger(shards);
+            this.futures = new ArrayList<>(shards);
+            this.batch = Collections.emptyList();
+            this.cursor = 0;
+            this.finished = shards == 0;
+            this.closed = false;
+        }
+
+        public void add(Future<?> future) {
+            this.futures.add(future);
+        }
+
+        public void scan(Iterator<T> iter) {
+            int size = ParallelScanner.this.sizePerPage;
+            try {
+                List<T> batch = new ArrayList<>(size);
+                while (iter.hasNext()) {
+                    batch.add(iter.next());
+                    if (batch.size() >= size) {
+                        if (!this.offer(batch)) {
+                            return;
+                        }
+                        batch = new ArrayList<>(size);
+                    }
+                }
+                if (!batch.isEmpty() && !this.offer(batch)) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                this.offer(e);
+                return;
+            }
+            if (this.remaining.decrementAndGet() == 0) {
+                this.offer(END);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.cursor >= this.batch.size()) {
+                if (this.finished) {
+                    return false;
+                }
+                this.take();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.batch.get(this.cursor++);
+        }
+
+        public void close() {
+            this.closed = true;
+            for (Future<?> future : this.futures) {
+                future.cancel(true);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void take() {
+            Object item;
+            try {
+                item = this.batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.close();
+                throw new ClientException("Interrupted while waiting for " +
+                                          "the scanned elements", e);
+            }
+            if (item == END) {
+                this.finished = true;
+                return;
+            }
+            if (item instanceof RuntimeException) {
+                this.finished = true;
+                this.close();
+                throw new ClientException("Failed to scan shards",
+                                          (RuntimeException) item);
+            }
+            this.batch = (List<T>) item;
+            this.cursor = 0;
+        }
+
+        private boolean offer(Object item) {
+            try {
+                while (!this.batches.offer(item, OFFER_INTERVAL,
+                                           TimeUnit.MILLISECONDS)) {
+                    if (this.closed) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                LOG.debug("Shard scanning is interrupted");
+                return false;
+            }
+        }
+    }
+}
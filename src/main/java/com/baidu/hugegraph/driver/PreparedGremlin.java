@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.baidu.hugegraph.api.gremlin.GremlinAPI;
+import com.baidu.hugegraph.api.gremlin.GremlinRequest;
+import com.baidu.hugegraph.structure.gremlin.Response;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.util.JsonUtil;
+
+/**
+ * PreparedGremlin serializes the constant parts of a gremlin request, the
+ * script, language and aliases, only once, then only the bindings are
+ * serialized for each execution. Passing the variables as bindings instead
+ * of formatting them into the script keeps the script text the same, which
+ * lets the server reuse the script compiled at the first execution.
+ */
+public class PreparedGremlin {
+
+    private static final String BINDINGS = ",\"bindings\":";
+
+    private final GremlinAPI gremlinAPI;
+    private final GraphManager graphManager;
+    private final String gremlin;
+    private final String request;
+    private final String requestHead;
+    private final LongAdder executions;
+
+    public PreparedGremlin(GremlinAPI gremlinAPI, GraphManager graphManager,
+                           GremlinRequest request) {
+        this.gremlinAPI = gremlinAPI;
+        this.graphManager = graphManager;
+        this.gremlin = request.gremlin;
+        // The empty bindings are not serialized
+        request.bindings.clear();
+        this.request = JsonUtil.toJson(request);
+        this.requestHead = this.request.substring(0,
+                                                  this.request.length() - 1);
+        this.executions = new LongAdder();
+    }
+
+    public String gremlin() {
+        return this.gremlin;
+    }
+
+    public ResultSet execute() {
+        return this.execute(null);
+    }
+
+    public ResultSet execute(Map<String, Object> bindings) {
+        String request;
+        if (bindings == null || bindings.isEmpty()) {
+            request = this.request;
+        } else {
+            request = this.requestHead + BINDINGS +
+                      JsonUtil.toJson(bindings) + "}";
+        }
+        this.executions.increment();
+        Response response = this.gremlinAPI.post(request);
+        response.graphManager(this.graphManager);
+        return response.result();
+    }
+
+    /**
+     * The count of executions of this prepared gremlin
+     */
+    public long executions() {
+        return this.executions.sum();
+    }
+}
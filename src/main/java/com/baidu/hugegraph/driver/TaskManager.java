@@ -19,11 +19,17 @@
 
 package com.baidu.hugegraph.driver;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.baidu.hugegraph.api.task.TaskAPI;
 import com.baidu.hugegraph.api.task.TasksWithPage;
 import com.baidu.hugegraph.client.RestClient;
+import com.baidu.hugegraph.rest.ClientException;
 import com.baidu.hugegraph.structure.Task;
 
 public class TaskManager {
@@ -73,4 +79,88 @@ public class TaskManager {
     public Task waitUntilTaskCompleted(long taskId, long seconds) {
         return this.taskAPI.waitUntilTaskSuccess(taskId, seconds);
     }
+
+    /**
+     * Watch the tasks without blocking, each future completes with the task
+     * once it's completed whatever the status is, and cancelling a future
+     * stops watching the task
+     */
+    public List<CompletableFuture<Task>> watch(long... taskIds) {
+        List<CompletableFuture<Task>> futures = new ArrayList<>(
+                                                taskIds.length);
+        for (long taskId : taskIds) {
+            futures.add(this.watchTask(taskId));
+        }
+        return futures;
+    }
+
+    /**
+     * Wait until all the tasks are completed within the timeout shared by
+     * them, return the tasks in order if all of them are successful
+     */
+    public List<Task> awaitAll(long seconds, long... taskIds) {
+        List<CompletableFuture<Task>> futures = this.watch(taskIds);
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                             .get(seconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            List<Long> pendings = new ArrayList<>();
+            for (int i = 0; i < taskIds.length; i++) {
+                if (!futures.get(i).isDone()) {
+                    pendings.add(taskIds[i]);
+                }
+            }
+            throw new ClientException(
+                      "Tasks %s not completed in %s seconds, " +
+                      "they can still be queried by task-get API",
+                      pendings, seconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for " +
+                                      "%s tasks", taskIds.length);
+        } catch (ExecutionException e) {
+            throw new ClientException(String.format(
+                      "Failed to wait for %s tasks", taskIds.length),
+                      e.getCause());
+        } finally {
+            // Stop querying the tasks not completed
+            for (CompletableFuture<Task> future : futures) {
+                future.cancel(false);
+            }
+        }
+
+        List<Task> tasks = new ArrayList<>(futures.size());
+        List<String> failures = new ArrayList<>();
+        for (CompletableFuture<Task> future : futures) {
+            Task task = future.join();
+            tasks.add(task);
+            if (!task.success()) {
+                failures.add(String.format("%s(%s)", task.id(),
+                                           task.status()));
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new ClientException("Tasks %s are not successful",
+                                      failures);
+        }
+        return tasks;
+    }
+
+    private CompletableFuture<Task> watchTask(long taskId) {
+        CompletableFuture<Task> watch = this.taskAPI.watch(taskId);
+        CompletableFuture<Task> future = new CompletableFuture<>();
+        watch.whenComplete((task, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(task);
+            }
+        });
+        future.whenComplete((task, error) -> {
+            if (future.isCancelled()) {
+                this.taskAPI.unwatch(taskId, watch);
+            }
+        });
+        return future;
+    }
 }
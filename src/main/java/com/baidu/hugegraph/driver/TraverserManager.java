@@ -441,7 +441,19 @@ public class TraverserManager {
         return this.edgesAPI.shards(splitSize);
     }
 
+    public ParallelScanner parallelScanner(int parallelism, int sizePerPage) {
+        return new ParallelScanner(this, parallelism, sizePerPage);
+    }
+
     public List<Vertex> vertices(List<Object> ids) {
+        VertexCache cache = this.graphManager.vertexCache();
+        if (cache != null) {
+            return cache.getAll(ids, this::listVertices);
+        }
+        return this.listVertices(ids);
+    }
+
+    private List<Vertex> listVertices(List<Object> ids) {
         List<Vertex> vertices = this.verticesAPI.list(ids);
         for (Vertex vertex : vertices) {
             vertex.attachManager(this.graphManager);
@@ -473,8 +485,14 @@ public class TraverserManager {
     }
 
     public Iterator<Vertex> iteratorVertices(Shard shard, int sizePerPage) {
-        return new GraphIterator<>(this.graphManager, sizePerPage, (page) -> {
-            return this.vertices(shard, page, sizePerPage);
+        return this.iteratorVertices(shard, sizePerPage, 0);
+    }
+
+    public GraphIterator<Vertex> iteratorVertices(Shard shard, int sizePerPage,
+                                                  int prefetch) {
+        return new GraphIterator<>(this.graphManager, sizePerPage, prefetch,
+                                   (page) -> {
+            return this.verticesAPI.scanStream(shard, page, sizePerPage);
         });
     }
 
@@ -509,8 +527,14 @@ public class TraverserManager {
     }
 
     public Iterator<Edge> iteratorEdges(Shard shard, int sizePerPage) {
-        return new GraphIterator<>(this.graphManager, sizePerPage, (page) -> {
-            return this.edges(shard, page, sizePerPage);
+        return this.iteratorEdges(shard, sizePerPage, 0);
+    }
+
+    public GraphIterator<Edge> iteratorEdges(Shard shard, int sizePerPage,
+                                             int prefetch) {
+        return new GraphIterator<>(this.graphManager, sizePerPage, prefetch,
+                                   (page) -> {
+            return this.edgesAPI.scanStream(shard, page, sizePerPage);
         });
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.baidu.hugegraph.api.graph.GraphAPI;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.util.E;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * VertexCache keeps the recently read vertices in a size-bounded LRU cache
+ * whose entries expire after a while. It's invalidated by the vertex writes
+ * made through the GraphManager owning it, but not by the writes of other
+ * clients or gremlin, so the ttl bounds how stale a cached vertex can be.
+ *
+ * The vertices are copied when cached and got, so a caller changing its
+ * vertex doesn't affect the cache or the other callers. A vertex loaded
+ * before a write and put after the invalidation would be stale, so the
+ * version of the cache, changed by each invalidation, is taken before the
+ * load and the vertices loaded are not kept if it's changed since.
+ */
+public class VertexCache {
+
+    private final Cache<String, Vertex> cache;
+    private final AtomicLong version;
+
+    public VertexCache(long capacity, long ttl) {
+        E.checkArgument(capacity > 0,
+                        "The vertex cache capacity must be > 0, but got %s",
+                        capacity);
+        E.checkArgument(ttl > 0,
+                        "The vertex cache ttl must be > 0, but got %s", ttl);
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumSize(capacity)
+                                 .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                                 .recordStats()
+                                 .build();
+        this.version = new AtomicLong();
+    }
+
+    public Vertex get(Object id) {
+        Vertex vertex = this.cache.getIfPresent(key(id));
+        return vertex == null ? null : vertex.copy();
+    }
+
+    /**
+     * Get the vertices by ids in order, the missed ones are loaded by a
+     * single call of the loader, and the non-existent ones are skipped
+     */
+    public List<Vertex> getAll(List<Object> ids,
+                               Function<List<Object>, List<Vertex>> loader) {
+        Map<String, Vertex> vertices = new HashMap<>(ids.size());
+        List<Object> misses = new ArrayList<>();
+        for (Object id : ids) {
+            String key = key(id);
+            Vertex vertex = this.cache.getIfPresent(key);
+            if (vertex != null) {
+                vertices.put(key, vertex.copy());
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            long version = this.version();
+            for (Vertex vertex : loader.apply(misses)) {
+                this.put(vertex, version);
+                vertices.put(key(vertex.id()), vertex);
+            }
+        }
+
+        List<Vertex> results = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            Vertex vertex = vertices.get(key(id));
+            if (vertex != null) {
+                results.add(vertex);
+            }
+        }
+        return results;
+    }
+
+    public void put(Vertex vertex) {
+        if (vertex != null && vertex.id() != null) {
+            this.cache.put(key(vertex.id()), vertex.copy());
+        }
+    }
+
+    /**
+     * Put the vertex loaded after the version taken, it's not kept if the
+     * cache is invalidated since, which may be a write the load missed
+     */
+    public void put(Vertex vertex, long version) {
+        if (vertex == null || vertex.id() == null) {
+            return;
+        }
+        String key = key(vertex.id());
+        this.cache.put(key, vertex.copy());
+        // Checked after put, the invalidations later remove it themselves
+        if (this.version.get() != version) {
+            this.cache.invalidate(key);
+        }
+    }
+
+    /**
+     * The version changed by each invalidation, take it before loading the
+     * vertices to put
+     */
+    public long version() {
+        return this.version.get();
+    }
+
+    public void invalidate(Object id) {
+        if (id != null) {
+            this.version.incrementAndGet();
+            this.cache.invalidate(key(id));
+        }
+    }
+
+    public void invalidateAll() {
+        this.version.incrementAndGet();
+        this.cache.invalidateAll();
+    }
+
+    public long size() {
+        return this.cache.size();
+    }
+
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+
+    private static String key(Object id) {
+        // The same as the id in url, so Integer 1 and Long 1 are the same
+        return GraphAPI.formatVertexId(id);
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.driver;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.exception.InvalidOperationException;
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.GraphElement;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * WriteBuffer buffers the vertices and edges added one by one, and writes
+ * them by the batch apis of GraphManager when `batchSize` elements are
+ * buffered, every `flushInterval` milliseconds, or on flush(). Each added
+ * element gets a future completed with the element holding its id once
+ * written, or with its own error.
+ *
+ * The buffered vertices are always written before the buffered edges, so
+ * an edge can link to the vertices added before it. When a batch is
+ * rejected as a bad request by 400 or 422, its elements are written one
+ * by one to find the bad ones, the other errors like 408, 429 and 5xx
+ * fail all the elements of the batch.
+ */
+public class WriteBuffer implements Closeable {
+
+    private static final Logger LOG = Log.logger(WriteBuffer.class);
+
+    private final GraphManager graph;
+    private final int batchSize;
+    private final boolean checkVertex;
+    private final ScheduledExecutorService scheduler;
+    private final Object flushLock;
+
+    private List<Pending<Vertex>> vertices;
+    private List<Pending<Edge>> edges;
+    private volatile boolean closed;
+
+    private final LongAdder written;
+    private final LongAdder failed;
+    private final AtomicReference<Throwable> failure;
+
+    /**
+     * @param batchSize     the elements to write by a batch
+     * @param flushInterval the max milliseconds an element is buffered,
+     *                      0 means only flushed when full or by flush()
+     * @param checkVertex   check the vertices of the edges exist or not
+     */
+    public WriteBuffer(GraphManager graph, int batchSize, long flushInterval,
+                       boolean checkVertex) {
+        E.checkNotNull(graph, "graph manager");
+        E.checkArgument(batchSize > 0,
+                        "The batch size must be > 0, but got %s", batchSize);
+        E.checkArgument(flushInterval >= 0,
+                        "The flush interval must be >= 0, but got %s",
+                        flushInterval);
+        this.graph = graph;
+        this.batchSize = batchSize;
+        this.checkVertex = checkVertex;
+        if (flushInterval > 0) {
+            this.scheduler = ExecutorUtil.newScheduledThreadPool(
+                             "write-buffer");
+            this.scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                                                  flushInterval,
+                                                  flushInterval,
+                                                  TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+        this.flushLock = new Object();
+        this.vertices = new ArrayList<>(batchSize);
+        this.edges = new ArrayList<>(batchSize);
+        this.closed = false;
+        this.written = new LongAdder();
+        this.failed = new LongAdder();
+        this.failure = new AtomicReference<>();
+    }
+
+    public CompletableFuture<Vertex> addVertex(Vertex vertex) {
+        E.checkArgumentNotNull(vertex, "The vertex can't be null");
+        Pending<Vertex> pending = new Pending<>(vertex);
+        boolean full;
+        synchronized (this) {
+            this.checkOpen();
+            this.vertices.add(pending);
+            full = this.vertices.size() >= this.batchSize;
+        }
+        if (full) {
+            synchronized (this.flushLock) {
+                this.writeVertices(this.takeVertices());
+            }
+        }
+        return pending.future;
+    }
+
+    public CompletableFuture<Edge> addEdge(Edge edge) {
+        E.checkArgumentNotNull(edge, "The edge can't be null");
+        if (edge.id() != null) {
+            throw new InvalidOperationException(
+                      "Not allowed to custom id for edge: '%s'", edge);
+        }
+        Pending<Edge> pending = new Pending<>(edge);
+        boolean full;
+        synchronized (this) {
+            this.checkOpen();
+            this.edges.add(pending);
+            full = this.edges.size() >= this.batchSize;
+        }
+        if (full) {
+            // The vertices linked by the edges go first
+            this.flushBuffered();
+        }
+        return pending.future;
+    }
+
+    /**
+     * Write all the buffered elements, throw the first failure met since
+     * the last flush if any
+     */
+    public void flush() {
+        this.flushBuffered();
+        Throwable cause = this.failure.getAndSet(null);
+        if (cause != null) {
+            throw new ClientException(String.format(
+                      "Failed to write %s elements, the first failure is: %s",
+                      this.failed(), cause.getMessage()), cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        synchronized (this) {
+            this.closed = true;
+        }
+        if (this.scheduler != null) {
+            this.scheduler.shutdown();
+        }
+        this.flush();
+    }
+
+    /**
+     * The count of the elements buffered and not written yet
+     */
+    public synchronized int pending() {
+        return this.vertices.size() + this.edges.size();
+    }
+
+    public long written() {
+        return this.written.sum();
+    }
+
+    public long failed() {
+        return this.failed.sum();
+    }
+
+    private void flushQuietly() {
+        try {
+            this.flushBuffered();
+        } catch (Throwable e) {
+            LOG.warn("Failed to flush the write buffer", e);
+        }
+    }
+
+    private void flushBuffered() {
+        synchronized (this.flushLock) {
+            this.writeVertices(this.takeVertices());
+            this.writeEdges(this.takeEdges());
+        }
+    }
+
+    private synchronized List<Pending<Vertex>> takeVertices() {
+        List<Pending<Vertex>> batch = this.vertices;
+        this.vertices = new ArrayList<>(this.batchSize);
+        return batch;
+    }
+
+    private synchronized List<Pending<Edge>> takeEdges() {
+        List<Pending<Edge>> batch = this.edges;
+        this.edges = new ArrayList<>(this.batchSize);
+        return batch;
+    }
+
+    private void writeVertices(List<Pending<Vertex>> batch) {
+        this.write(batch, this.graph::addVertices, this.graph::addVertex);
+    }
+
+    private void writeEdges(List<Pending<Edge>> batch) {
+        List<Pending<Edge>> valid = new ArrayList<>(batch.size());
+        for (Pending<Edge> pending : batch) {
+            try {
+                // The vertices linked may have failed to be written
+                pending.element.sourceId();
+                pending.element.targetId();
+                valid.add(pending);
+            } catch (RuntimeException e) {
+                this.fail(pending, e);
+            }
+        }
+        this.write(valid, edges -> {
+            return this.graph.addEdges(edges, this.checkVertex);
+        }, this.graph::addEdge);
+    }
+
+    private <T extends GraphElement> void write(
+                                      List<Pending<T>> batch,
+                                      Function<List<T>, List<T>> batchWriter,
+                                      Function<T, T> singleWriter) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<T> elements = new ArrayList<>(batch.size());
+        for (Pending<T> pending : batch) {
+            elements.add(pending.element);
+        }
+        try {
+            List<T> results = batchWriter.apply(elements);
+            for (int i = 0; i < batch.size(); i++) {
+                this.succeed(batch.get(i), results.get(i));
+            }
+        } catch (ServerException e) {
+            if (batch.size() > 1 && badRequest(e)) {
+                // Nothing is written by a bad request, find the bad ones
+                LOG.debug("Failed to write a batch of {} elements, " +
+                          "fallback to single writes", batch.size(), e);
+                this.writeOneByOne(batch, singleWriter);
+            } else {
+                this.failAll(batch, e);
+            }
+        } catch (RuntimeException e) {
+            this.failAll(batch, e);
+        }
+    }
+
+    private static boolean badRequest(ServerException e) {
+        return e.status() == 400 || e.status() == 422;
+    }
+
+    private <T extends GraphElement> void writeOneByOne(
+                                          List<Pending<T>> batch,
+                                          Function<T, T> singleWriter) {
+        for (Pending<T> pending : batch) {
+            try {
+                this.succeed(pending, singleWriter.apply(pending.element));
+            } catch (RuntimeException e) {
+                this.fail(pending, e);
+            }
+        }
+    }
+
+    private <T extends GraphElement> void succeed(Pending<T> pending,
+                                                  T result) {
+        this.written.increment();
+        pending.future.complete(result);
+    }
+
+    private <T extends GraphElement> void failAll(List<Pending<T>> batch,
+                                                  RuntimeException e) {
+        LOG.warn("Failed to write a batch of {} elements", batch.size(), e);
+        for (Pending<T> pending : batch) {
+            this.fail(pending, e);
+        }
+    }
+
+    private void fail(Pending<?> pending, Throwable e) {
+        this.failed.increment();
+        this.failure.compareAndSet(null, e);
+        pending.future.completeExceptionally(e);
+    }
+
+    private void checkOpen() {
+        E.checkState(!this.closed, "The write buffer has been closed");
+    }
+
+    private static class Pending<T extends GraphElement> {
+
+        private final T element;
+        private final CompletableFuture<T> future;
+
+        public Pending(T element) {
+            this.element = element;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * StreamingJsonOutput serializes the object as json straight into the
+ * request entity stream, which is compressed and sent in chunks by the
+ * content encoder of the rest client, so a batch is never held in memory
+ * as a whole json. The writes are gathered by a buffer borrowed from a
+ * pool to feed the encoder with large blocks.
+ */
+public class StreamingJsonOutput implements StreamingOutput {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+    private static final int POOL_SIZE = 16;
+
+    private static final BlockingQueue<byte[]> BUFFERS =
+                         new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final Object object;
+    private volatile long length;
+
+    public StreamingJsonOutput(Object object) {
+        E.checkNotNull(object, "object");
+        this.object = object;
+        this.length = 0L;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        byte[] buffer = borrowBuffer();
+        try (BufferedStream stream = new BufferedStream(output, buffer)) {
+            if (this.object instanceof String) {
+                // The string is the json already like a string entity
+                String json = (String) this.object;
+                stream.write(json.getBytes(StandardCharsets.UTF_8));
+            } else {
+                try (JsonGenerator generator = JsonUtil.generator(stream)) {
+                    generator.writeObject(this.object);
+                }
+            }
+            stream.flush();
+            this.length = stream.written();
+        } finally {
+            returnBuffer(buffer);
+        }
+    }
+
+    public Object object() {
+        return this.object;
+    }
+
+    /**
+     * The bytes of the json written last time, before compressed, 0 if not
+     * written yet, which are counted while written without another pass
+     */
+    public long length() {
+        return this.length;
+    }
+
+    public static int pooledBuffers() {
+        return BUFFERS.size();
+    }
+
+    private static byte[] borrowBuffer() {
+        byte[] buffer = BUFFERS.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    private static void returnBuffer(byte[] buffer) {
+        // Drop the buffer if the pool is full
+        BUFFERS.offer(buffer);
+    }
+
+    /**
+     * Like BufferedOutputStream but with the given buffer, and it doesn't
+     * close the entity stream which is owned by the rest client
+     */
+    private static class BufferedStream extends OutputStream {
+
+        private final OutputStream out;
+        private final byte[] buffer;
+        private int count;
+        private long written;
+
+        public BufferedStream(OutputStream out, byte[] buffer) {
+            this.out = out;
+            this.buffer = buffer;
+            this.count = 0;
+            this.written = 0L;
+        }
+
+        public long written() {
+            return this.written;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.count >= this.buffer.length) {
+                this.flushBuffer();
+            }
+            this.buffer[this.count++] = (byte) b;
+            this.written++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+                          throws IOException {
+            this.written += length;
+            if (length >= this.buffer.length) {
+                this.flushBuffer();
+                this.out.write(bytes, offset, length);
+                return;
+            }
+            if (length > this.buffer.length - this.count) {
+                this.flushBuffer();
+            }
+            System.arraycopy(bytes, offset, this.buffer, this.count, length);
+            this.count += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.flushBuffer();
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.flushBuffer();
+        }
+
+        private void flushBuffer() throws IOException {
+            if (this.count > 0) {
+                this.out.write(this.buffer, 0, this.count);
+                this.count = 0;
+            }
+        }
+    }
+}
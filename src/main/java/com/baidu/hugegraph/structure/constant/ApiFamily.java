@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.structure.constant;
+
+/**
+ * The family of the apis a request belongs to, which the request limits
+ * are configured by
+ */
+public enum ApiFamily {
+
+    // The gets of vertices and edges
+    GRAPH_READ,
+
+    // The creations, updates and deletions of vertices and edges
+    GRAPH_WRITE,
+
+    // The traversers like kout, kneighbor and paths
+    TRAVERSER,
+
+    // The gremlin requests and jobs
+    GREMLIN,
+
+    // The schema requests
+    SCHEMA,
+
+    // The others like tasks, auth and metrics, which are not limited
+    OTHER
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.structure.constant;
+
+/**
+ * The content encoding of the batch write requests, it's applied by the
+ * content encoder of the rest client and decoded by the server. GZIP trades
+ * the cpu of both ends for less bytes, IDENTITY sends the plain json which
+ * is cheaper on a fast network.
+ */
+public enum BatchEncoding {
+
+    GZIP("gzip"),
+
+    IDENTITY("identity");
+
+    private final String name;
+
+    BatchEncoding(String name) {
+        this.name = name;
+    }
+
+    public String string() {
+        return this.name;
+    }
+}
@@ -48,6 +48,10 @@ public class BatchEdgeRequest {
         return new Builder();
     }
 
+    public Map<String, UpdateStrategy> updateStrategies() {
+        return this.updateStrategies;
+    }
+
     @Override
     public String toString() {
         return String.format("BatchEdgeRequest{edges=%s," +
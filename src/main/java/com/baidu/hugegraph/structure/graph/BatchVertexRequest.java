@@ -45,6 +45,10 @@ public class BatchVertexRequest {
         return new Builder();
     }
 
+    public Map<String, UpdateStrategy> updateStrategies() {
+        return this.updateStrategies;
+    }
+
     @Override
     public String toString() {
         return String.format("BatchVertexRequest{vertices=%s," +
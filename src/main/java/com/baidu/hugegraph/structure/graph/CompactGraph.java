@@ -0,0 +1,574 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.structure.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+
+import com.baidu.hugegraph.driver.GraphManager;
+import com.baidu.hugegraph.structure.constant.Direction;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.Log;
+
+/**
+ * CompactGraph is a read-only local copy of a graph stored in compressed
+ * sparse row form: the vertices are numbered by dense int indexes, the
+ * adjacency of each direction is a pair of int arrays, and the properties
+ * are stored by columns backed by primitive arrays when possible. It takes
+ * about 20 bytes per edge plus its properties, rather than several objects
+ * per edge like Graph does.
+ *
+ * It's built incrementally by CompactGraph.Builder, e.g. from the paged
+ * iterators of GraphManager or the streams of ParallelScanner.
+ */
+public class CompactGraph {
+
+    private static final Logger LOG = Log.logger(CompactGraph.class);
+
+    private final Map<Object, Integer> indexes;
+    private final Object[] ids;
+    private final int[] vertexLabels;
+    private final Map<String, Column> vertexColumns;
+
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] edgeLabels;
+    private final Map<String, Column> edgeColumns;
+
+    private final String[] labels;
+
+    // CSR offsets are indexed by vertex, the edges are indexed by offset
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    private CompactGraph(Builder builder) {
+        int vertices = builder.vertexCount;
+        int edges = builder.edgeCount;
+
+        this.indexes = builder.indexes;
+        this.ids = Arrays.copyOf(builder.ids, vertices);
+        this.vertexLabels = Arrays.copyOf(builder.vertexLabels, vertices);
+        this.vertexColumns = trim(builder.vertexColumns, vertices);
+
+        this.sources = Arrays.copyOf(builder.sources, edges);
+        this.targets = Arrays.copyOf(builder.targets, edges);
+        this.edgeLabels = Arrays.copyOf(builder.edgeLabels, edges);
+        this.edgeColumns = trim(builder.edgeColumns, edges);
+
+        this.labels = builder.labels.toArray(new String[0]);
+
+        this.outOffsets = new int[vertices + 1];
+        this.outEdges = new int[edges];
+        link(this.sources, this.outOffsets, this.outEdges);
+        this.inOffsets = new int[vertices + 1];
+        this.inEdges = new int[edges];
+        link(this.targets, this.inOffsets, this.inEdges);
+    }
+
+    public static CompactGraph load(GraphManager graph, int sizePerPage) {
+        LOG.debug("Loading compact graph...");
+        Builder builder = new Builder();
+        builder.addVertices(graph.iterateVertices(sizePerPage));
+        LOG.debug("Loaded vertices: {}", builder.vertexCount);
+        builder.addEdges(graph.iterateEdges(sizePerPage));
+        LOG.debug("Loaded edges: {}", builder.edgeCount);
+        return builder.build();
+    }
+
+    public int vertexCount() {
+        return this.ids.length;
+    }
+
+    public int edgeCount() {
+        return this.sources.length;
+    }
+
+    /**
+     * Get the index of a vertex by its id, return -1 if not exist
+     */
+    public int index(Object id) {
+        Integer index = this.indexes.get(id);
+        return index == null ? -1 : index;
+    }
+
+    public Object id(int vertex) {
+        return this.ids[vertex];
+    }
+
+    /**
+     * The label of a vertex, null if the vertex is only referred by edges
+     */
+    public String label(int vertex) {
+        int label = this.vertexLabels[vertex];
+        return label < 0 ? null : this.labels[label];
+    }
+
+    public Object property(int vertex, String key) {
+        Column column = this.vertexColumns.get(key);
+        return column == null ? null : column.get(vertex);
+    }
+
+    public Set<String> propertyKeys() {
+        return Collections.unmodifiableSet(this.vertexColumns.keySet());
+    }
+
+    public int source(int edge) {
+        return this.sources[edge];
+    }
+
+    public int target(int edge) {
+        return this.targets[edge];
+    }
+
+    public String edgeLabel(int edge) {
+        return this.labels[this.edgeLabels[edge]];
+    }
+
+    public Object edgeProperty(int edge, String key) {
+        Column column = this.edgeColumns.get(key);
+        return column == null ? null : column.get(edge);
+    }
+
+    public Set<String> edgePropertyKeys() {
+        return Collections.unmodifiableSet(this.edgeColumns.keySet());
+    }
+
+    public int degree(int vertex, Direction direction) {
+        int degree = 0;
+        if (direction != Direction.IN) {
+            degree += this.outOffsets[vertex + 1] - this.outOffsets[vertex];
+        }
+        if (direction != Direction.OUT) {
+            degree += this.inOffsets[vertex + 1] - this.inOffsets[vertex];
+        }
+        return degree;
+    }
+
+    /**
+     * Get the i-th out edge of a vertex, i must be < degree(vertex, OUT)
+     */
+    public int outEdge(int vertex, int i) {
+        return this.outEdges[this.outOffsets[vertex] + i];
+    }
+
+    /**
+     * Get the i-th in edge of a vertex, i must be < degree(vertex, IN)
+     */
+    public int inEdge(int vertex, int i) {
+        return this.inEdges[this.inOffsets[vertex] + i];
+    }
+
+    public void forEachEdge(int vertex, Direction direction,
+                            IntConsumer consumer) {
+        if (direction != Direction.IN) {
+            for (int i = this.outOffsets[vertex];
+                 i < this.outOffsets[vertex + 1]; i++) {
+                consumer.accept(this.outEdges[i]);
+            }
+        }
+        if (direction != Direction.OUT) {
+            for (int i = this.inOffsets[vertex];
+                 i < this.inOffsets[vertex + 1]; i++) {
+                consumer.accept(this.inEdges[i]);
+            }
+        }
+    }
+
+    public void forEachNeighbor(int vertex, Direction direction,
+                                IntConsumer consumer) {
+        if (direction != Direction.IN) {
+            for (int i = this.outOffsets[vertex];
+                 i < this.outOffsets[vertex + 1]; i++) {
+                consumer.accept(this.targets[this.outEdges[i]]);
+            }
+        }
+        if (direction != Direction.OUT) {
+            for (int i = this.inOffsets[vertex];
+                 i < this.inOffsets[vertex + 1]; i++) {
+                consumer.accept(this.sources[this.inEdges[i]]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompactGraph{vertices=%s, edges=%s}",
+                             this.vertexCount(), this.edgeCount());
+    }
+
+    /**
+     * Sort the edges by the vertex at one side with a counting sort
+     */
+    private static void link(int[] vertices, int[] offsets, int[] edges) {
+        for (int vertex : vertices) {
+            offsets[vertex + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] cursors = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int edge = 0; edge < vertices.length; edge++) {
+            edges[cursors[vertices[edge]]++] = edge;
+        }
+    }
+
+    private static Map<String, Column> trim(Map<String, Column> columns,
+                                            int size) {
+        for (Column column : columns.values()) {
+            column.trim(size);
+        }
+        return columns;
+    }
+
+    public static class Builder {
+
+        private static final int INIT_CAPACITY = 1024;
+
+        private final Set<String> vertexKeys;
+        private final Set<String> edgeKeys;
+
+        private final Map<Object, Integer> indexes;
+        private final List<String> labels;
+        private final Map<String, Integer> labelIndexes;
+
+        private Object[] ids;
+        private int[] vertexLabels;
+        private int vertexCount;
+        private final Map<String, Column> vertexColumns;
+
+        private int[] sources;
+        private int[] targets;
+        private int[] edgeLabels;
+        private int edgeCount;
+        private final Map<String, Column> edgeColumns;
+
+        private boolean built;
+
+        public Builder() {
+            this.vertexKeys = new HashSet<>();
+            this.edgeKeys = new HashSet<>();
+            this.indexes = new HashMap<>();
+            this.labels = new ArrayList<>();
+            this.labelIndexes = new HashMap<>();
+
+            this.ids = new Object[INIT_CAPACITY];
+            this.vertexLabels = new int[INIT_CAPACITY];
+            this.vertexCount = 0;
+            this.vertexColumns = new HashMap<>();
+
+            this.sources = new int[INIT_CAPACITY];
+            this.targets = new int[INIT_CAPACITY];
+            this.edgeLabels = new int[INIT_CAPACITY];
+            this.edgeCount = 0;
+            this.edgeColumns = new HashMap<>();
+
+            this.built = false;
+        }
+
+        /**
+         * Only keep the specified vertex properties, all are kept if unset
+         */
+        public Builder vertexProperties(String... keys) {
+            this.vertexKeys.addAll(Arrays.asList(keys));
+            return this;
+        }
+
+        /**
+         * Only keep the specified edge properties, all are kept if unset
+         */
+        public Builder edgeProperties(String... keys) {
+            this.edgeKeys.addAll(Arrays.asList(keys));
+            return this;
+        }
+
+        public synchronized Builder addVertex(Vertex vertex) {
+            E.checkState(!this.built, "The compact graph has been built");
+            E.checkArgumentNotNull(vertex, "The vertex can't be null");
+            int index = this.vertexIndex(vertex.id());
+            this.vertexLabels[index] = this.labelIndex(vertex.label());
+            addProperties(this.vertexColumns, this.vertexKeys, index,
+                          vertex.properties());
+            return this;
+        }
+
+        public Builder addVertices(Iterator<Vertex> vertices) {
+            while (vertices.hasNext()) {
+                this.addVertex(vertices.next());
+            }
+            return this;
+        }
+
+        public synchronized Builder addEdge(Edge edge) {
+            E.checkState(!this.built, "The compact graph has been built");
+            E.checkArgumentNotNull(edge, "The edge can't be null");
+            int index = this.edgeCount;
+            if (index == this.sources.length) {
+                int capacity = grow(index);
+                this.sources = Arrays.copyOf(this.sources, capacity);
+                this.targets = Arrays.copyOf(this.targets, capacity);
+                this.edgeLabels = Arrays.copyOf(this.edgeLabels, capacity);
+            }
+            this.sources[index] = this.vertexIndex(edge.sourceId());
+            this.targets[index] = this.vertexIndex(edge.targetId());
+            this.edgeLabels[index] = this.labelIndex(edge.label());
+            this.edgeCount++;
+            addProperties(this.edgeColumns, this.edgeKeys, index,
+                          edge.properties());
+            return this;
+        }
+
+        public Builder addEdges(Iterator<Edge> edges) {
+            while (edges.hasNext()) {
+                this.addEdge(edges.next());
+            }
+            return this;
+        }
+
+        public synchronized CompactGraph build() {
+            E.checkState(!this.built, "The compact graph has been built");
+            this.built = true;
+            return new CompactGraph(this);
+        }
+
+        private int vertexIndex(Object id) {
+            E.checkArgumentNotNull(id, "The vertex id can't be null");
+            Integer index = this.indexes.get(id);
+            if (index != null) {
+                return index;
+            }
+            // The vertex may be referred by an edge before added
+            index = this.vertexCount;
+            if (index == this.ids.length) {
+                int capacity = grow(index);
+                this.ids = Arrays.copyOf(this.ids, capacity);
+                this.vertexLabels = Arrays.copyOf(this.vertexLabels, capacity);
+            }
+            this.ids[index] = id;
+            this.vertexLabels[index] = -1;
+            this.indexes.put(id, index);
+            this.vertexCount++;
+            return index;
+        }
+
+        private int labelIndex(String label) {
+            if (label == null) {
+                return -1;
+            }
+            Integer index = this.labelIndexes.get(label);
+            if (index == null) {
+                index = this.labels.size();
+                this.labels.add(label);
+                this.labelIndexes.put(label, index);
+            }
+            return index;
+        }
+
+        private static void addProperties(Map<String, Column> columns,
+                                          Set<String> keys, int index,
+                                          Map<String, Object> properties) {
+            for (Map.Entry<String, Object> e : properties.entrySet()) {
+                if (!keys.isEmpty() && !keys.contains(e.getKey())) {
+                    continue;
+                }
+                Column column = columns.get(e.getKey());
+                if (column == null) {
+                    column = new Column();
+                    columns.put(e.getKey(), column);
+                }
+                column.set(index, e.getValue());
+            }
+        }
+    }
+
+    private static int grow(int capacity) {
+        E.checkState(capacity < Integer.MAX_VALUE - 8,
+                     "Too many elements for compact graph: %s", capacity);
+        return (int) Math.min(capacity + (capacity >> 1) + 1L,
+                              Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * A column holds the values of a property, it's backed by a primitive
+     * array while all the values are of the same primitive type, and falls
+     * back to an Object array otherwise.
+     */
+    private static final class Column {
+
+        private static final byte INT = 1;
+        private static final byte LONG = 2;
+        private static final byte DOUBLE = 3;
+        private static final byte OBJECT = 4;
+
+        private byte kind;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private Object[] objects;
+        private final BitSet present;
+
+        public Column() {
+            this.kind = 0;
+            this.present = new BitSet();
+        }
+
+        public Object get(int index) {
+            if (!this.present.get(index)) {
+                return null;
+            }
+            switch (this.kind) {
+                case INT:
+                    return this.ints[index];
+                case LONG:
+                    return this.longs[index];
+                case DOUBLE:
+                    return this.doubles[index];
+                default:
+                    return this.objects[index];
+            }
+        }
+
+        public void set(int index, Object value) {
+            if (value == null) {
+                return;
+            }
+            if (this.kind == 0) {
+                this.kind = kindOf(value);
+            } else if (this.kind != OBJECT && this.kind != kindOf(value)) {
+                this.toObjects();
+            }
+            this.ensureCapacity(index + 1);
+            switch (this.kind) {
+                case INT:
+                    this.ints[index] = (Integer) value;
+                    break;
+                case LONG:
+                    this.longs[index] = (Long) value;
+                    break;
+                case DOUBLE:
+                    this.doubles[index] = (Double) value;
+                    break;
+                default:
+                    this.objects[index] = value;
+                    break;
+            }
+            this.present.set(index);
+        }
+
+        public void trim(int size) {
+            if (this.kind == 0) {
+                return;
+            }
+            switch (this.kind) {
+                case INT:
+                    this.ints = Arrays.copyOf(this.ints, size);
+                    break;
+                case LONG:
+                    this.longs = Arrays.copyOf(this.longs, size);
+                    break;
+                case DOUBLE:
+                    this.doubles = Arrays.copyOf(this.doubles, size);
+                    break;
+                default:
+                    this.objects = Arrays.copyOf(this.objects, size);
+                    break;
+            }
+        }
+
+        private void ensureCapacity(int size) {
+            int capacity = this.capacity();
+            if (size <= capacity) {
+                return;
+            }
+            capacity = Math.max(size, grow(capacity));
+            switch (this.kind) {
+                case INT:
+                    this.ints = this.ints == null ? new int[capacity] :
+                                Arrays.copyOf(this.ints, capacity);
+                    break;
+                case LONG:
+                    this.longs = this.longs == null ? new long[capacity] :
+                                 Arrays.copyOf(this.longs, capacity);
+                    break;
+                case DOUBLE:
+                    this.doubles = this.doubles == null ?
+                                   new double[capacity] :
+                                   Arrays.copyOf(this.doubles, capacity);
+                    break;
+                default:
+                    this.objects = this.objects == null ?
+                                   new Object[capacity] :
+                                   Arrays.copyOf(this.objects, capacity);
+                    break;
+            }
+        }
+
+        private int capacity() {
+            switch (this.kind) {
+                case INT:
+                    return this.ints == null ? 0 : this.ints.length;
+                case LONG:
+                    return this.longs == null ? 0 : this.longs.length;
+                case DOUBLE:
+                    return this.doubles == null ? 0 : this.doubles.length;
+                default:
+                    return this.objects == null ? 0 : this.objects.length;
+            }
+        }
+
+        private void toObjects() {
+            int capacity = this.capacity();
+            Object[] objects = new Object[capacity];
+            for (int i = this.present.nextSetBit(0); i >= 0;
+                 i = this.present.nextSetBit(i + 1)) {
+                objects[i] = this.get(i);
+            }
+            this.objects = objects;
+            this.ints = null;
+            this.longs = null;
+            this.doubles = null;
+            this.kind = OBJECT;
+        }
+
+        private static byte kindOf(Object value) {
+            if (value instanceof Integer) {
+                return INT;
+            } else if (value instanceof Long) {
+                return LONG;
+            } else if (value instanceof Double) {
+                return DOUBLE;
+            } else {
+                return OBJECT;
+            }
+        }
+    }
+}
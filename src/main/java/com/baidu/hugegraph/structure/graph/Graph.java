@@ -32,7 +32,8 @@ import com.baidu.hugegraph.util.Log;
 
 /**
  * HugeGraph is a mirror of server-side data(vertex/edge), it used to speed up
- * data access. Note, however, the memory can't hold large amounts of data.
+ * data access. Note, however, the memory can't hold large amounts of data,
+ * use CompactGraph instead for large graphs.
  */
 public class Graph {
 
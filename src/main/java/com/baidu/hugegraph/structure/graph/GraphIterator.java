@@ -19,61 +19,216 @@
 
 package com.baidu.hugegraph.structure.graph;
 
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import com.baidu.hugegraph.driver.GraphManager;
+import com.baidu.hugegraph.rest.ClientException;
 import com.baidu.hugegraph.structure.GraphElement;
 import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
 
-public class GraphIterator<T extends GraphElement> implements Iterator<T> {
+/**
+ * GraphIterator fetches the elements page by page. When the prefetch depth
+ * is > 0, the following pages are requested in background while the
+ * current one is consumed, buffering at most `prefetch` pages, which hides
+ * the latency of the page boundaries on full scans.
+ *
+ * The pages are prefetched by a pool shared by all the iterators, and a
+ * page is requested only if there is room to buffer it, so the prefetching
+ * pauses while the consumer is idle and holds no thread, an abandoned
+ * iterator is just garbage collected.
+ */
+public class GraphIterator<T extends GraphElement>
+       implements Iterator<T>, AutoCloseable {
+
+    private static final long POLL_INTERVAL = 100L;
+    private static final int PREFETCH_THREADS =
+                             Runtime.getRuntime().availableProcessors();
+    private static final long PREFETCH_IDLE_TIME = 60L;
+
+    private static final ThreadPoolExecutor PREFETCHER = newPrefetcher();
 
     private final GraphManager graphManager;
     private final int sizePerPage;
+    private final int prefetch;
     private final Function<String, Pageable<T>> pageFetcher;
-    private List<T> results;
+    private Pageable<T> pageable;
+    private Iterator<T> results;
     private String page;
-    private int cursor;
+    private int count;
     private boolean finished;
 
+    // Guarded by this, the next page to prefetch and whether it's fetching
+    private BlockingQueue<Object> pages;
+    private String prefetchPage;
+    private boolean prefetching;
+    private boolean prefetchedAll;
+    private volatile boolean closed;
+
     public GraphIterator(final GraphManager graphManager, final int sizePerPage,
                          final Function<String, Pageable<T>> pageFetcher) {
+        this(graphManager, sizePerPage, 0, pageFetcher);
+    }
+
+    public GraphIterator(final GraphManager graphManager, final int sizePerPage,
+                         final int prefetch,
+                         final Function<String, Pageable<T>> pageFetcher) {
         E.checkNotNull(graphManager, "Graph manager");
         E.checkNotNull(pageFetcher, "Page fetcher");
+        E.checkArgument(prefetch >= 0,
+                        "The prefetch depth must be >= 0, but got %s",
+                        prefetch);
         this.graphManager = graphManager;
         this.sizePerPage = sizePerPage;
+        this.prefetch = prefetch;
         this.pageFetcher = pageFetcher;
+        this.pageable = null;
         this.results = null;
         this.page = "";
-        this.cursor = 0;
+        this.count = 0;
         this.finished = false;
+        this.pages = null;
+        this.prefetchPage = null;
+        this.prefetching = false;
+        this.prefetchedAll = false;
+        this.closed = false;
     }
 
     @Override
     public boolean hasNext() {
-        if (this.results == null || this.cursor >= this.results.size()) {
+        if (this.closed) {
+            return false;
+        }
+        while (this.results == null || !this.results.hasNext()) {
+            if (this.results != null && this.lastPage()) {
+                this.finished = true;
+            }
+            if (this.finished) {
+                return false;
+            }
             this.fetch();
         }
-        assert this.results != null;
-        return this.cursor < this.results.size();
+        return true;
     }
 
     private void fetch() {
-        if (this.finished) {
-            return;
+        if (this.pageable != null) {
+            this.page = this.pageable.page();
         }
-        Pageable<T> pageable = this.pageFetcher.apply(this.page);
-        this.results = pageable.results();
-        this.page = pageable.page();
-        this.cursor = 0;
-        E.checkState(this.results.size() <= this.sizePerPage,
-                     "Server returned unexpected results: %s > %s",
-                     this.results.size(), this.sizePerPage);
-        if (this.results.size() < this.sizePerPage || this.page == null) {
+        Pageable<T> pageable;
+        if (this.prefetch > 0) {
+            pageable = this.takePage();
+        } else {
+            pageable = this.pageFetcher.apply(this.page);
+        }
+        this.pageable = pageable;
+        this.results = pageable.iterator();
+        this.count = 0;
+    }
+
+    private boolean lastPage() {
+        // The page token of a streaming page is known after consumed
+        return this.count < this.sizePerPage || this.pageable.page() == null;
+    }
+
+    private boolean lastPage(Pageable<T> pageable) {
+        return pageable.results().size() < this.sizePerPage ||
+               pageable.page() == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Pageable<T> takePage() {
+        synchronized (this) {
+            if (this.pages == null) {
+                this.pages = new ArrayBlockingQueue<>(this.prefetch);
+                this.prefetchPage = this.page;
+            }
+            this.schedulePrefetch();
+        }
+        Object item;
+        try {
+            do {
+                if (this.closed) {
+                    throw new ClientException("The graph iterator is closed");
+                }
+                item = this.pages.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } while (item == null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new ClientException("Interrupted while waiting for the " +
+                                      "prefetched page", e);
+        }
+        // Continue prefetching since a page is taken out
+        synchronized (this) {
+            this.schedulePrefetch();
+        }
+        if (item instanceof RuntimeException) {
             this.finished = true;
+            this.results = Collections.emptyIterator();
+            throw (RuntimeException) item;
+        }
+        return (Pageable<T>) item;
+    }
+
+    private void schedulePrefetch() {
+        assert Thread.holdsLock(this);
+        if (this.closed || this.prefetching || this.prefetchedAll ||
+            this.pages.remainingCapacity() == 0) {
+            return;
         }
+        this.prefetching = true;
+        PREFETCHER.execute(this::prefetchPage);
+    }
+
+    private void prefetchPage() {
+        String page;
+        synchronized (this) {
+            page = this.prefetchPage;
+        }
+        Object item;
+        boolean last;
+        try {
+            Pageable<T> pageable = this.pageFetcher.apply(page);
+            item = pageable;
+            last = this.lastPage(pageable);
+            page = pageable.page();
+        } catch (RuntimeException e) {
+            item = e;
+            last = true;
+        }
+        synchronized (this) {
+            // The room is reserved since only one page is fetched at a time
+            this.pages.add(item);
+            this.prefetchPage = page;
+            this.prefetching = false;
+            this.prefetchedAll = last;
+            this.schedulePrefetch();
+        }
+    }
+
+    private static ThreadPoolExecutor newPrefetcher() {
+        ThreadPoolExecutor executor = ExecutorUtil.newFixedThreadPool(
+                                      PREFETCH_THREADS,
+                                      "graph-iterator-prefetch-%d");
+        // Let the idle threads exit and not prevent the JVM from exiting
+        ThreadFactory factory = executor.getThreadFactory();
+        executor.setThreadFactory(r -> {
+            Thread thread = factory.newThread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(PREFETCH_IDLE_TIME, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
@@ -82,10 +237,27 @@ public class GraphIterator<T extends GraphElement> implements Iterator<T> {
             throw new NoSuchElementException();
         }
 
-        T elem = this.results.get(this.cursor++);
+        T elem = this.results.next();
+        E.checkState(++this.count <= this.sizePerPage,
+                     "Server returned unexpected results: %s > %s",
+                     this.count, this.sizePerPage);
         E.checkState(elem != null,
                      "The server data is invalid, some records are null");
         elem.attachManager(this.graphManager);
         return elem;
     }
+
+    /**
+     * Stop the background prefetching and drop the pages buffered, the
+     * iterator has no more elements once closed
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        synchronized (this) {
+            if (this.pages != null) {
+                this.pages.clear();
+            }
+        }
+    }
 }
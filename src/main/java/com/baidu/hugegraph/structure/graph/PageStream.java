@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.structure.graph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.baidu.hugegraph.rest.SerializeException;
+import com.baidu.hugegraph.structure.GraphElement;
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * PageStream decodes a page like {"vertices": [...], "page": "..."} lazily,
+ * the elements are bound one by one while iterating, so only the element
+ * being consumed is held instead of the whole list of a large page.
+ *
+ * The page token is known after the elements are consumed since the server
+ * writes it behind them, calling page() or results() before that would
+ * decode the remaining elements at once.
+ */
+public class PageStream<T extends GraphElement> extends Pageable<T> {
+
+    private static final String PAGE = "page";
+
+    private final JsonParser parser;
+    private final String key;
+    private final Class<T> clazz;
+    private String page;
+    private List<T> results;
+    private boolean inArray;
+    private boolean finished;
+    private boolean iterated;
+
+    public PageStream(String json, String key, Class<T> clazz) {
+        super(null);
+        this.parser = JsonUtil.parser(json);
+        this.key = key;
+        this.clazz = clazz;
+        this.page = null;
+        this.results = null;
+        this.inArray = false;
+        this.finished = false;
+        this.iterated = false;
+
+        E.checkState(this.nextToken() == JsonToken.START_OBJECT,
+                     "Expect a json object for %s", key);
+        this.seek();
+    }
+
+    @Override
+    public String page() {
+        if (!this.finished) {
+            this.results();
+        }
+        return this.page;
+    }
+
+    @Override
+    public List<T> results() {
+        if (this.results == null) {
+            E.checkState(!this.iterated,
+                         "Can't get results of a partially iterated page");
+            List<T> results = new ArrayList<>();
+            while (this.inArray) {
+                T element = this.readElement();
+                if (element != null) {
+                    results.add(element);
+                }
+            }
+            this.results = results;
+        }
+        return this.results;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (this.results != null) {
+            return this.results.iterator();
+        }
+        return new Iterator<T>() {
+
+            private T next = null;
+
+            @Override
+            public boolean hasNext() {
+                if (this.next == null && PageStream.this.inArray) {
+                    PageStream.this.iterated = true;
+                    this.next = PageStream.this.readElement();
+                }
+                return this.next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T element = this.next;
+                this.next = null;
+                return element;
+            }
+        };
+    }
+
+    private T readElement() {
+        assert this.inArray;
+        if (this.nextToken() == JsonToken.END_ARRAY) {
+            this.inArray = false;
+            this.seek();
+            return null;
+        }
+        return JsonUtil.fromJson(this.parser, this.clazz);
+    }
+
+    /**
+     * Move forward to the elements array, or to the end of the page if the
+     * array has been consumed, collecting the page token on the way
+     */
+    private void seek() {
+        JsonToken token;
+        while ((token = this.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = this.currentName();
+            token = this.nextToken();
+            if (this.key.equals(field) && token == JsonToken.START_ARRAY) {
+                this.inArray = true;
+                return;
+            } else if (PAGE.equals(field)) {
+                this.page = token == JsonToken.VALUE_NULL ?
+                            null : this.valueAsString();
+            } else {
+                this.skipChildren();
+            }
+        }
+        E.checkState(token == JsonToken.END_OBJECT,
+                     "Unexpected json token %s in %s page", token, this.key);
+        this.finished = true;
+        this.close();
+    }
+
+    private JsonToken nextToken() {
+        try {
+            return this.parser.nextToken();
+        } catch (IOException e) {
+            throw new SerializeException("Failed to read %s page", e,
+                                         this.key);
+        }
+    }
+
+    private String currentName() {
+        try {
+            return this.parser.getCurrentName();
+        } catch (IOException e) {
+            throw new SerializeException("Failed to read %s page", e,
+                                         this.key);
+        }
+    }
+
+    private String valueAsString() {
+        try {
+            return this.parser.getValueAsString();
+        } catch (IOException e) {
+            throw new SerializeException("Failed to read %s page", e,
+                                         this.key);
+        }
+    }
+
+    private void skipChildren() {
+        try {
+            this.parser.skipChildren();
+        } catch (IOException e) {
+            throw new SerializeException("Failed to read %s page", e,
+                                         this.key);
+        }
+    }
+
+    private void close() {
+        try {
+            this.parser.close();
+        } catch (IOException ignored) {
+            // pass
+        }
+    }
+}
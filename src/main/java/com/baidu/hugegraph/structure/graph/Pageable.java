@@ -19,6 +19,7 @@
 
 package com.baidu.hugegraph.structure.graph;
 
+import java.util.Iterator;
 import java.util.List;
 
 import com.baidu.hugegraph.structure.GraphElement;
@@ -37,6 +38,10 @@ public abstract class Pageable<T extends GraphElement> {
 
     public abstract List<T> results();
 
+    public Iterator<T> iterator() {
+        return this.results().iterator();
+    }
+
     public String page() {
         return this.page;
     }
@@ -19,7 +19,11 @@
 
 package com.baidu.hugegraph.structure.graph;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.baidu.hugegraph.exception.InvalidOperationException;
 import com.baidu.hugegraph.structure.GraphElement;
@@ -100,6 +104,26 @@ public class Vertex extends GraphElement {
         return this;
     }
 
+    /**
+     * Copy the vertex attached to the same graph manager, the properties and
+     * the collection values are copied so the copy can be changed alone
+     */
+    public Vertex copy() {
+        Vertex vertex = new Vertex(this.label);
+        vertex.id = this.id;
+        vertex.manager = this.manager;
+        for (Map.Entry<String, Object> entry : this.properties.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof List) {
+                value = new ArrayList<>((List<?>) value);
+            } else if (value instanceof Set) {
+                value = new LinkedHashSet<>((Set<?>) value);
+            }
+            vertex.properties.put(entry.getKey(), value);
+        }
+        return vertex;
+    }
+
     @Override
     public String toString() {
         return String.format("{id=%s, label=%s, properties=%s}",
@@ -19,8 +19,9 @@
 
 package com.baidu.hugegraph.structure.gremlin;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -34,16 +35,26 @@ import com.baidu.hugegraph.structure.graph.Path;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.baidu.hugegraph.util.E;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * The elements of data are kept as the buffered json tokens when the
+ * response is read, and decoded into the typed objects on access, so the
+ * results not accessed are never decoded. Like before, each get() returns
+ * a new object, and data() returns the raw data decoded separately on the
+ * first call, whose changes are serialized but not seen by get().
+ */
 public class ResultSet {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     private GraphManager graphManager = null;
 
-    @JsonProperty
+    private List<TokenBuffer> buffers;
     private List<Object> data;
     @JsonProperty
     private Map<String, ?> meta;
@@ -58,69 +69,101 @@ public class ResultSet {
         this.graphManager = graphManager;
     }
 
+    @JsonProperty("data")
+    private void buffers(List<TokenBuffer> buffers) {
+        this.buffers = buffers;
+        this.data = null;
+    }
+
+    @JsonProperty("data")
+    private List<?> buffers() {
+        // Write the raw data if decoded since it may be changed
+        return this.data != null ? this.data : this.buffers;
+    }
+
+    /**
+     * The raw data composed of maps, lists and primitives like the json
+     */
     public List<Object> data() {
+        if (this.data == null && this.buffers != null) {
+            List<Object> data = new ArrayList<>(this.buffers.size());
+            for (TokenBuffer buffer : this.buffers) {
+                data.add(buffer == null ? null : decode(buffer, Object.class));
+            }
+            this.data = data;
+        }
         return this.data;
     }
 
     public int size() {
-        return this.data.size();
+        return this.buffers.size();
     }
 
     public Result get(int index) {
-        if (index >= this.data.size()) {
+        if (index >= this.buffers.size()) {
             return null;
         }
 
-        Object object = this.data().get(index);
-        if (object == null) {
+        // The json null is bound to a null buffer
+        TokenBuffer buffer = this.buffers.get(index);
+        if (buffer == null) {
             return null;
         }
-
-        Class<?> clazz = this.parseResultClass(object);
-        // Primitive type
-        if (clazz.equals(object.getClass())) {
-            return new Result(object);
+        Object object = decode(buffer, parseResultClass(buffer));
+        if (object instanceof GraphAttachable) {
+            ((GraphAttachable) object).attachManager(this.graphManager);
         }
+        return new Result(object);
+    }
 
-        try {
-            String rawValue = MAPPER.writeValueAsString(object);
-            object = MAPPER.readValue(rawValue, clazz);
-            if (object instanceof GraphAttachable) {
-                ((GraphAttachable) object).attachManager(graphManager);
-            }
-            return new Result(object);
-        } catch (Exception e) {
-            throw new SerializeException(
-                      "Failed to deserialize: %s", e, object);
+    private static Object decode(TokenBuffer buffer, Class<?> clazz) {
+        try (JsonParser parser = buffer.asParser(MAPPER)) {
+            return MAPPER.readValue(parser, clazz);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializeException("Failed to deserialize: %s", e,
+                                         buffer);
         }
     }
 
     /**
+     * Scan the top level fields of an object without binding it
      * TODO: Still need to constantly add and optimize
      */
-    private Class<?> parseResultClass(Object object) {
-        if (object.getClass().equals(LinkedHashMap.class)) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> map = (Map<String, Object>) object;
-            String type = (String) map.get("type");
+    private static Class<?> parseResultClass(TokenBuffer buffer) {
+        try (JsonParser parser = buffer.asParser()) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Object.class;
+            }
+            String type = null;
+            boolean labels = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("type".equals(field) && token == JsonToken.VALUE_STRING) {
+                    type = parser.getText();
+                } else if ("labels".equals(field)) {
+                    labels = token != JsonToken.VALUE_NULL;
+                }
+                parser.skipChildren();
+            }
             if (type != null) {
                 if ("vertex".equals(type)) {
                     return Vertex.class;
                 } else if ("edge".equals(type)) {
                     return Edge.class;
                 }
-            } else {
-                if (map.get("labels") != null) {
-                    return Path.class;
-                }
+            } else if (labels) {
+                return Path.class;
             }
+            return Object.class;
+        } catch (IOException e) {
+            throw new SerializeException("Failed to deserialize: %s", e,
+                                         buffer);
         }
-
-        return object.getClass();
     }
 
     public Iterator<Result> iterator() {
-        E.checkState(this.data != null, "Invalid response from server");
+        E.checkState(this.buffers != null, "Invalid response from server");
         E.checkState(this.graphManager != null, "Must hold a graph manager");
 
         return new Iterator<Result>() {
@@ -129,7 +172,7 @@ public class ResultSet {
 
             @Override
             public boolean hasNext() {
-                return this.index < ResultSet.this.data.size();
+                return this.index < ResultSet.this.buffers.size();
             }
 
             @Override
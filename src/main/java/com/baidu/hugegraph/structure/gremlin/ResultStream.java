@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.structure.gremlin;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+import com.baidu.hugegraph.util.E;
+
+/**
+ * ResultStream fetches the results of a gremlin page by page, at most
+ * `sizePerPage` results are held at a time, the page fetcher is given the
+ * offset of the page and the stream ends at the first page not full.
+ */
+public class ResultStream implements Iterator<Result> {
+
+    private final int sizePerPage;
+    private final LongFunction<ResultSet> pageFetcher;
+    private Iterator<Result> results;
+    private long offset;
+    private int count;
+    private boolean finished;
+
+    public ResultStream(int sizePerPage,
+                        LongFunction<ResultSet> pageFetcher) {
+        E.checkArgument(sizePerPage > 0,
+                        "The size per page must be > 0, but got %s",
+                        sizePerPage);
+        E.checkNotNull(pageFetcher, "Page fetcher");
+        this.sizePerPage = sizePerPage;
+        this.pageFetcher = pageFetcher;
+        this.results = null;
+        this.offset = 0L;
+        this.count = 0;
+        this.finished = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.results == null || !this.results.hasNext()) {
+            if (this.results != null && this.count < this.sizePerPage) {
+                this.finished = true;
+            }
+            if (this.finished) {
+                // Release the last page
+                this.results = null;
+                return false;
+            }
+            this.fetch();
+        }
+        return true;
+    }
+
+    private void fetch() {
+        // Drop the consumed page before fetching the next one
+        this.results = null;
+        ResultSet resultSet = this.pageFetcher.apply(this.offset);
+        E.checkState(resultSet.size() <= this.sizePerPage,
+                     "Server returned unexpected results: %s > %s",
+                     resultSet.size(), this.sizePerPage);
+        this.results = resultSet.iterator();
+        this.offset += resultSet.size();
+        this.count = resultSet.size();
+    }
+
+    @Override
+    public Result next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.results.next();
+    }
+
+    /**
+     * The count of results fetched so far
+     */
+    public long offset() {
+        return this.offset;
+    }
+}
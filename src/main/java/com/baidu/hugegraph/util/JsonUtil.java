@@ -20,8 +20,11 @@
 package com.baidu.hugegraph.util;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 import com.baidu.hugegraph.rest.SerializeException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.Module;
@@ -53,6 +56,40 @@ public final class JsonUtil {
         }
     }
 
+    public static JsonParser parser(String json) {
+        try {
+            return MAPPER.getFactory().createParser(json);
+        } catch (IOException e) {
+            throw new SerializeException("Failed to create json parser", e);
+        }
+    }
+
+    /**
+     * Create a generator writing to the stream, closing the generator
+     * flushes the content but doesn't close the stream
+     */
+    public static JsonGenerator generator(OutputStream stream) {
+        try {
+            JsonGenerator generator = MAPPER.getFactory()
+                                            .createGenerator(stream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return generator;
+        } catch (IOException e) {
+            throw new SerializeException("Failed to create json generator",
+                                         e);
+        }
+    }
+
+    public static <T> T fromJson(JsonParser parser, Class<T> clazz) {
+        try {
+            return MAPPER.readValue(parser, clazz);
+        } catch (IOException e) {
+            throw new SerializeException("Failed to deserialize %s at %s",
+                                         e, clazz.getSimpleName(),
+                                         parser.getCurrentLocation());
+        }
+    }
+
     public static <T> T convertValue(JsonNode node, Class<T> clazz) {
         try {
             return MAPPER.convertValue(node, clazz);
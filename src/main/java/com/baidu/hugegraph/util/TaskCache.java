@@ -22,21 +22,40 @@ package com.baidu.hugegraph.util;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
+
 import com.baidu.hugegraph.api.task.TaskAPI;
 import com.baidu.hugegraph.structure.Task;
-
+import com.google.common.collect.Lists;
+
+/**
+ * TaskCache watches the tasks being waited for and completes their futures
+ * once finished. Each task is polled at an interval growing with its age,
+ * from MIN_INTERVAL to MAX_INTERVAL, so the short tasks are noticed soon
+ * while the long ones don't burden the server. The due tasks of a graph
+ * are queried together, in chunks of at most BATCH_SIZE ids.
+ */
 public class TaskCache {
 
+    private static final Logger LOG = Log.logger(TaskCache.class);
+
     private static final Task FAKE_TASK = new Task();
 
-    private Map<TaskAPI, Map<Long, Task>> taskTable;
+    private static final long MIN_INTERVAL = 100L;
+    private static final long MAX_INTERVAL = 5000L;
+    private static final int BACKOFF_FACTOR = 2;
+    private static final int BATCH_SIZE = 100;
+
+    private final Map<TaskAPI, Map<Long, Watch>> taskTable;
     private ScheduledExecutorService service;
 
-    private static TaskCache INSTANCE = new TaskCache();
+    private static final TaskCache INSTANCE = new TaskCache();
 
     private TaskCache() {
         this.taskTable = new ConcurrentHashMap<>();
@@ -47,45 +66,80 @@ public class TaskCache {
         return INSTANCE;
     }
 
-    public Task get(TaskAPI api, long task) {
-        this.add(api, task);
-        return this.taskTable.get(api).get(task);
+    /**
+     * Watch the task until it's completed, the future completes with the
+     * task whatever the status is. Each watcher gets its own future
+     * depending on the one shared by the watchers of the task, so it can't
+     * affect the others, and each watch should be paired with an unwatch()
+     * unless the future is completed.
+     */
+    public CompletableFuture<Task> watch(TaskAPI api, long task) {
+        Watch[] watch = new Watch[1];
+        CompletableFuture<Task> future = new CompletableFuture<>();
+        this.taskTable.compute(api, (key, watches) -> {
+            if (watches == null) {
+                watches = new ConcurrentHashMap<>();
+            }
+            watch[0] = watches.computeIfAbsent(task, id -> new Watch());
+            watch[0].watchers.add(future);
+            return watches;
+        });
+        watch[0].future.thenAccept(future::complete);
+        this.start();
+        return future;
     }
 
-    public void remove(TaskAPI api, long task) {
-        Map<Long, Task> tasks = this.tasks(api);
-        tasks.remove(task);
-        if (tasks.isEmpty()) {
-            this.taskTable.remove(api);
-        }
-        if (this.taskTable.isEmpty()) {
-            this.stop();
-        }
+    /**
+     * Unwatch the task watched by watch() which returned the future, it's
+     * unnecessary but harmless if the future has been completed
+     */
+    public void unwatch(TaskAPI api, long task,
+                        CompletableFuture<Task> future) {
+        this.taskTable.computeIfPresent(api, (key, watches) -> {
+            Watch watch = watches.get(task);
+            // The watch may be completed and replaced by a new one
+            if (watch != null && watch.watchers.remove(future) &&
+                watch.watchers.isEmpty()) {
+                watches.remove(task);
+            }
+            return watches.isEmpty() ? null : watches;
+        });
+        this.stop();
     }
 
-    private void add(TaskAPI api, long task) {
-        Map<Long, Task> tasks = this.tasks(api);
-        if (!tasks.containsKey(task)) {
-            tasks.putIfAbsent(task, FAKE_TASK);
-        }
-        if (this.service == null || this.service.isShutdown()) {
-            this.start();
+    /**
+     * Get the latest status of the task, and watch it if not yet
+     */
+    public Task get(TaskAPI api, long task) {
+        Map<Long, Watch> watches = this.taskTable.get(api);
+        Watch watch = watches == null ? null : watches.get(task);
+        if (watch == null) {
+            this.watch(api, task);
+            return FAKE_TASK;
         }
+        Task latest = watch.task;
+        return latest == null ? FAKE_TASK : latest;
     }
 
-    private Map<Long, Task> tasks(TaskAPI api) {
-        if (!this.taskTable.containsKey(api)) {
-            this.taskTable.putIfAbsent(api, new ConcurrentHashMap<>());
-        }
-        return this.taskTable.get(api);
+    /**
+     * Stop watching the task whoever watches it, the futures of the
+     * watchers are not completed
+     */
+    public void remove(TaskAPI api, long task) {
+        this.taskTable.computeIfPresent(api, (key, watches) -> {
+            watches.remove(task);
+            return watches.isEmpty() ? null : watches;
+        });
+        this.stop();
     }
 
     private synchronized void start() {
         if (this.service == null || this.service.isShutdown()) {
             this.service = ExecutorUtil.newScheduledThreadPool("task-worker");
-            // Schedule a query task to query task status every 1 second,
-            this.service.scheduleAtFixedRate(this::asyncQueryTask, 0L, 1L,
-                                             TimeUnit.SECONDS);
+            // Check the due tasks at the min interval
+            this.service.scheduleWithFixedDelay(this::asyncQueryTask, 0L,
+                                                MIN_INTERVAL,
+                                                TimeUnit.MILLISECONDS);
         }
     }
 
@@ -96,19 +150,75 @@ public class TaskCache {
     }
 
     private void asyncQueryTask() {
-        for (Map.Entry<TaskAPI, Map<Long, Task>> query :
+        long now = System.currentTimeMillis();
+        for (Map.Entry<TaskAPI, Map<Long, Watch>> query :
              this.taskTable.entrySet()) {
-            TaskAPI api = query.getKey();
-            Map<Long, Task> targets = query.getValue();
-            if (targets == null || targets.isEmpty()) {
-                this.taskTable.remove(api);
+            List<Long> dueTasks = new ArrayList<>();
+            for (Map.Entry<Long, Watch> entry : query.getValue().entrySet()) {
+                if (entry.getValue().nextQuery <= now) {
+                    dueTasks.add(entry.getKey());
+                }
+            }
+            for (List<Long> taskIds : Lists.partition(dueTasks, BATCH_SIZE)) {
+                this.queryTasks(query.getKey(), query.getValue(), taskIds);
+            }
+        }
+        this.stop();
+    }
+
+    private void queryTasks(TaskAPI api, Map<Long, Watch> watches,
+                            List<Long> taskIds) {
+        long now = System.currentTimeMillis();
+        List<Task> results;
+        try {
+            results = api.list(taskIds);
+        } catch (Exception e) {
+            LOG.warn("Failed to query {} tasks of graph '{}'",
+                     taskIds.size(), api.graph(), e);
+            results = new ArrayList<>();
+        }
+        for (Task task : results) {
+            Watch watch = watches.get(task.id());
+            if (watch == null) {
                 continue;
             }
-            List<Long> taskIds = new ArrayList<>(targets.keySet());
-            List<Task> results = api.list(taskIds);
-            for (Task task : results) {
-                targets.put(task.id(), task);
+            watch.task = task;
+            if (task.completed()) {
+                this.taskTable.computeIfPresent(api, (key, tasks) -> {
+                    tasks.remove(task.id(), watch);
+                    return tasks.isEmpty() ? null : tasks;
+                });
+                watch.future.complete(task);
+            }
+        }
+        for (Long taskId : taskIds) {
+            Watch watch = watches.get(taskId);
+            if (watch != null) {
+                watch.backoff(now);
             }
         }
-    };
+    }
+
+    private static class Watch {
+
+        private final CompletableFuture<Task> future;
+        private final Set<CompletableFuture<Task>> watchers;
+        private volatile Task task;
+        private volatile long interval;
+        private volatile long nextQuery;
+
+        public Watch() {
+            this.future = new CompletableFuture<>();
+            this.watchers = ConcurrentHashMap.newKeySet();
+            this.task = null;
+            this.interval = MIN_INTERVAL;
+            this.nextQuery = 0L;
+        }
+
+        public void backoff(long now) {
+            this.nextQuery = now + this.interval;
+            this.interval = Math.min(this.interval * BACKOFF_FACTOR,
+                                     MAX_INTERVAL);
+        }
+    }
 }
@@ -9,6 +9,7 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 
+import com.baidu.hugegraph.driver.AsyncManager;
 import com.baidu.hugegraph.driver.AuthManager;
 import com.baidu.hugegraph.driver.GraphManager;
 import com.baidu.hugegraph.driver.GraphsManager;
@@ -98,6 +99,11 @@ public class BaseClientTest {
         return client.metrics();
     }
 
+    public static AsyncManager async() {
+        Assert.assertNotNull("Not opened client", client);
+        return client.async();
+    }
+
     @Before
     public void setup() {
         // this.clearData();
@@ -34,6 +34,7 @@ import com.baidu.hugegraph.structure.graph.Path;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.baidu.hugegraph.structure.gremlin.Result;
 import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.structure.gremlin.ResultStream;
 import com.baidu.hugegraph.testutil.Assert;
 import com.baidu.hugegraph.testutil.Whitebox;
 
@@ -68,6 +69,20 @@ public class GremlinApiTest extends BaseApiTest {
         Assert.assertEquals(0, resultSet.size());
     }
 
+    @Test
+    public void testStreamAllVertices() {
+        GremlinRequest request = new GremlinRequest("g.V()");
+        ResultStream stream = gremlin().stream(request, 4);
+
+        int count = 0;
+        while (stream.hasNext()) {
+            Assert.assertEquals(Vertex.class,
+                                stream.next().getObject().getClass());
+            count++;
+        }
+        Assert.assertEquals(6, count);
+    }
+
     @Test
     public void testQueryAllEdges() {
         GremlinRequest request = new GremlinRequest("g.E()");
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Path;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.graph.Vertices;
+import com.baidu.hugegraph.util.JsonUtil;
+
+/**
+ * The elements and responses shared by the benchmarks, shaped like the
+ * ones of the server: each vertex has 4 properties, each edge has 2.
+ */
+public final class BenchmarkData {
+
+    public static Vertex vertex(int i) {
+        Vertex vertex = new Vertex("person");
+        vertex.id("1:person-" + i);
+        vertex.property("name", "person-" + i);
+        vertex.property("age", 20 + i % 50);
+        vertex.property("city", "Beijing");
+        vertex.property("weight", i * 0.5D);
+        return vertex;
+    }
+
+    public static Edge edge(int i) {
+        Edge edge = new Edge("knows");
+        edge.id("S1:person-" + i + ">1>>S1:person-" + (i + 1));
+        edge.sourceId("1:person-" + i);
+        edge.sourceLabel("person");
+        edge.targetId("1:person-" + (i + 1));
+        edge.targetLabel("person");
+        edge.property("date", "2020-01-" + (10 + i % 20));
+        edge.property("weight", i * 0.1D);
+        return edge;
+    }
+
+    public static List<Vertex> vertices(int count) {
+        List<Vertex> vertices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vertices.add(vertex(i));
+        }
+        return vertices;
+    }
+
+    public static List<Edge> edges(int count) {
+        List<Edge> edges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            edges.add(edge(i));
+        }
+        return edges;
+    }
+
+    /**
+     * A path of vertices and edges interleaved with the given length
+     */
+    public static Path path(int length) {
+        List<Object> objects = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            objects.add(i % 2 == 0 ? vertex(i) : edge(i));
+        }
+        return new Path(objects);
+    }
+
+    /**
+     * The response of listing vertices by page, the last page has no next
+     */
+    public static String verticesPage(int from, int count, boolean last) {
+        List<Vertex> vertices = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            vertices.add(vertex(i));
+        }
+        String page = last ? null : "page-" + (from + count);
+        return JsonUtil.toJson(new Vertices(vertices, page));
+    }
+}
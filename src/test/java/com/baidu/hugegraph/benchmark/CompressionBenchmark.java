@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baidu.hugegraph.serializer.StreamingJsonOutput;
+import com.baidu.hugegraph.structure.graph.Vertices;
+import com.baidu.hugegraph.util.JsonUtil;
+
+/**
+ * The cpu cost against the bytes of the codecs for a batch request and a
+ * scan response, the compressed size of each case is printed in setup.
+ * Only gzip is decoded by the server, the others are for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"identity", "gzip-1", "gzip-6", "gzip-9", "deflate-1"})
+    private String codec;
+
+    @Param({"10000"})
+    private int count;
+
+    private Object batch;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        this.batch = BenchmarkData.vertices(this.count);
+        this.encoded = this.encode();
+        String json = BenchmarkData.verticesPage(0, this.count, true);
+        System.out.printf("%n%s: %s bytes of %s json bytes%n", this.codec,
+                          this.encoded.length, json.length());
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = this.encoder(bytes)) {
+            new StreamingJsonOutput(this.batch).write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Vertices decode() throws IOException {
+        try (InputStream in = this.decoder(this.encoded)) {
+            return JsonUtil.fromJson("{\"vertices\": " + read(in) + "}",
+                                     Vertices.class);
+        }
+    }
+
+    private OutputStream encoder(OutputStream out) throws IOException {
+        if ("identity".equals(this.codec)) {
+            return out;
+        }
+        int level = Integer.parseInt(this.codec.split("-")[1]);
+        if (this.codec.startsWith("gzip")) {
+            return new GZIPOutputStream(out) {
+                {
+                    this.def.setLevel(level);
+                }
+            };
+        }
+        return new DeflaterOutputStream(out, new Deflater(level)) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                this.def.end();
+            }
+        };
+    }
+
+    private InputStream decoder(byte[] bytes) throws IOException {
+        InputStream in = new ByteArrayInputStream(bytes);
+        if ("identity".equals(this.codec)) {
+            return in;
+        } else if (this.codec.startsWith("gzip")) {
+            return new GZIPInputStream(in);
+        }
+        return new InflaterInputStream(in);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toString("UTF-8");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.baidu.hugegraph.driver.GraphManager;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.structure.graph.GraphIterator;
+import com.baidu.hugegraph.structure.graph.PageStream;
+import com.baidu.hugegraph.structure.graph.Pageable;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.graph.Vertices;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.util.JsonUtil;
+
+/**
+ * The paged iteration of vertices over the prepared page responses, to
+ * compare the eager and lazy page decoding and the prefetching, and over
+ * the stub server to include the cost of the rest requests
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagingBenchmark {
+
+    private static final int TOTAL = 10000;
+
+    @Param({"100", "1000"})
+    private int sizePerPage;
+
+    private GraphManager graph;
+    // Page token => response of the page
+    private Map<String, String> pages;
+
+    private StubServer server;
+    private HugeClient client;
+
+    @Setup
+    public void setup() {
+        this.graph = Mockito.mock(GraphManager.class);
+        this.pages = new HashMap<>();
+        String page = "";
+        for (int i = 0; i < TOTAL; i += this.sizePerPage) {
+            boolean last = i + this.sizePerPage >= TOTAL;
+            this.pages.put(page, BenchmarkData.verticesPage(
+                                 i, this.sizePerPage, last));
+            page = "page-" + (i + this.sizePerPage);
+        }
+
+        this.server = new StubServer().vertices(TOTAL).start();
+        this.client = HugeClient.builder(this.server.url(), "hugegraph")
+                                .build();
+    }
+
+    @TearDown
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Benchmark
+    public void iterateEager(Blackhole hole) {
+        this.iterate(hole, 0, page -> {
+            return JsonUtil.fromJson(this.pages.get(page), Vertices.class);
+        });
+    }
+
+    @Benchmark
+    public void iterateLazy(Blackhole hole) {
+        this.iterate(hole, 0, page -> {
+            return new PageStream<>(this.pages.get(page), "vertices",
+                                    Vertex.class);
+        });
+    }
+
+    @Benchmark
+    public void iteratePrefetch(Blackhole hole) {
+        this.iterate(hole, 2, page -> {
+            return new PageStream<>(this.pages.get(page), "vertices",
+                                    Vertex.class);
+        });
+    }
+
+    @Benchmark
+    public void iterateStubServer(Blackhole hole) {
+        this.client.graph().iterateVertices(this.sizePerPage)
+                           .forEachRemaining(hole::consume);
+    }
+
+    private void iterate(Blackhole hole, int prefetch,
+                         Function<String, Pageable<Vertex>> fetcher) {
+        try (GraphIterator<Vertex> iter = new GraphIterator<>(
+                                          this.graph, this.sizePerPage,
+                                          prefetch, fetcher)) {
+            while (iter.hasNext()) {
+                hole.consume(iter.next());
+            }
+        }
+    }
+}
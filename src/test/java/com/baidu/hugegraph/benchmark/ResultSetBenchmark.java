@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The conversion of the gremlin results to vertices, edges and paths,
+ * from the response body to the typed objects
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSetBenchmark {
+
+    @Param({"vertex", "edge", "path"})
+    private String type;
+
+    @Param({"100"})
+    private int count;
+
+    private String json;
+
+    @Setup
+    public void setup() {
+        List<Object> data = new ArrayList<>(this.count);
+        for (int i = 0; i < this.count; i++) {
+            if ("vertex".equals(this.type)) {
+                data.add(BenchmarkData.vertex(i));
+            } else if ("edge".equals(this.type)) {
+                data.add(BenchmarkData.edge(i));
+            } else {
+                data.add(BenchmarkData.path(5));
+            }
+        }
+        this.json = JsonUtil.toJson(ImmutableMap.of("data", data,
+                                                    "meta", ImmutableMap.of()));
+    }
+
+    @Benchmark
+    public void convertResults(Blackhole hole) {
+        ResultSet results = JsonUtil.fromJson(this.json, ResultSet.class);
+        for (int i = 0; i < results.size(); i++) {
+            hole.consume(results.get(i).getObject());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.baidu.hugegraph.api.graph.GraphAPI;
+import com.baidu.hugegraph.serializer.PathDeserializer;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Edges;
+import com.baidu.hugegraph.structure.graph.Path;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.graph.Vertices;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * The (de)serialization of the vertices, edges and paths of a response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializeBenchmark {
+
+    @Param({"1", "100"})
+    private int count;
+
+    private ObjectMapper pathMapper;
+
+    private List<Vertex> vertices;
+    private List<Edge> edges;
+    private String verticesJson;
+    private String edgesJson;
+    private String pathJson;
+
+    @Setup
+    public void setup() {
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(Path.class, new PathDeserializer());
+        this.pathMapper = new ObjectMapper();
+        this.pathMapper.registerModule(module);
+
+        this.vertices = BenchmarkData.vertices(this.count);
+        this.edges = BenchmarkData.edges(this.count);
+        this.verticesJson = JsonUtil.toJson(new Vertices(this.vertices,
+                                                         null));
+        this.edgesJson = JsonUtil.toJson(new Edges(this.edges, null));
+        this.pathJson = JsonUtil.toJson(BenchmarkData.path(this.count));
+    }
+
+    @Benchmark
+    public String serializeVertices() {
+        return JsonUtil.toJson(this.vertices);
+    }
+
+    @Benchmark
+    public String serializeEdges() {
+        return JsonUtil.toJson(this.edges);
+    }
+
+    @Benchmark
+    public Vertices deserializeVertices() {
+        return JsonUtil.fromJson(this.verticesJson, Vertices.class);
+    }
+
+    @Benchmark
+    public Edges deserializeEdges() {
+        return JsonUtil.fromJson(this.edgesJson, Edges.class);
+    }
+
+    @Benchmark
+    public void formatVertexIds(Blackhole hole) {
+        for (Vertex vertex : this.vertices) {
+            hole.consume(GraphAPI.formatVertexId(vertex.id()));
+        }
+    }
+
+    @Benchmark
+    public Path decodePath() throws Exception {
+        return this.pathMapper.readValue(this.pathJson, Path.class);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.functional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.BaseClientTest;
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.testutil.Assert;
+
+public class AsyncManagerTest extends BaseFuncTest {
+
+    @Before
+    public void setup() {
+        BaseClientTest.initPropertyKey();
+        BaseClientTest.initVertexLabel();
+        BaseClientTest.initEdgeLabel();
+        BaseClientTest.initVertex();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        BaseFuncTest.clearData();
+    }
+
+    @Test
+    public void testGetVerticesConcurrently() {
+        List<Vertex> vertices = graph().listVertices();
+        Assert.assertEquals(6, vertices.size());
+
+        List<CompletableFuture<Vertex>> futures = new ArrayList<>();
+        for (Vertex vertex : vertices) {
+            futures.add(async().getVertex(vertex.id()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                         .join();
+        for (int i = 0; i < vertices.size(); i++) {
+            Assert.assertEquals(vertices.get(i), futures.get(i).join());
+        }
+    }
+
+    @Test
+    public void testGremlinAndTraverser() {
+        ResultSet results = async().execute("g.V().count()").join();
+        Assert.assertEquals(6L, results.get(0).getLong());
+
+        Object markoId = getVertexId("person", "name", "marko");
+        List<Object> vertices = async().traverser(traverser -> {
+            return traverser.kout(markoId, 1);
+        }).join();
+        Assert.assertEquals(0, vertices.size());
+    }
+
+    @Test
+    public void testExceptionCompletesFuture() {
+        CompletableFuture<Vertex> future = async().getVertex("not-exist");
+        Assert.assertThrows(ExecutionException.class, () -> {
+            future.get();
+        }, e -> {
+            Assert.assertInstanceOf(ServerException.class, e.getCause());
+        });
+    }
+}
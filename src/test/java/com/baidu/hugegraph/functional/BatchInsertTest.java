@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.baidu.hugegraph.BaseClientTest;
+import com.baidu.hugegraph.driver.BulkLoader;
 import com.baidu.hugegraph.exception.InvalidOperationException;
 import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.Vertex;
@@ -78,6 +79,37 @@ public class BatchInsertTest extends BaseFuncTest {
         Assert.assertEquals(BATCH_SIZE, graph().listEdges(-1).size());
     }
 
+    @Test
+    public void testBulkLoader() {
+        int vertexCount = 2 * BATCH_SIZE + 10;
+        List<Edge> edges = new ArrayList<>(vertexCount);
+        try (BulkLoader loader = graph().bulkLoader(100, 4)) {
+            for (int i = 1; i <= vertexCount; i++) {
+                Vertex vertex1 = new Vertex("person").property("name", "P-" + i)
+                                                     .property("age", i);
+                Vertex vertex2 = new Vertex("software")
+                                 .property("name", "S-" + i)
+                                 .property("lang", "java");
+                loader.addVertex(vertex1);
+                loader.addVertex(vertex2);
+                edges.add(new Edge("created").source(vertex1).target(vertex2)
+                                             .property("date", "2018-12-25"));
+            }
+            // The edges need the ids of the loaded vertices
+            loader.flush();
+            edges.forEach(loader::addEdge);
+            loader.flush();
+
+            Assert.assertEquals(2 * vertexCount, loader.loadedVertices());
+            Assert.assertEquals(vertexCount, loader.loadedEdges());
+            Assert.assertEquals(0, loader.failedBatches());
+            Assert.assertEquals(0, loader.inflight());
+        }
+
+        Assert.assertEquals(2 * vertexCount, graph().listVertices(-1).size());
+        Assert.assertEquals(vertexCount, graph().listEdges(-1).size());
+    }
+
     @Test
     public void testBatchInsertInOneLoopButAddEdgesBeforeVertices() {
         int vertexCount = BATCH_SIZE;
@@ -35,6 +35,7 @@ import org.junit.runners.Suite;
     AuthManagerTest.class,
     TraverserManagerTest.class,
     MetricsManagerTest.class,
+    AsyncManagerTest.class,
     HugeClientHttpsTest.class
 })
 public class FuncTestSuite {
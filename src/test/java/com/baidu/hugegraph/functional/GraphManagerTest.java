@@ -28,9 +28,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.baidu.hugegraph.BaseClientTest;
+import com.baidu.hugegraph.driver.GraphManager;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.driver.VertexCache;
+import com.baidu.hugegraph.exception.ServerException;
 import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.Vertex;
 import com.baidu.hugegraph.testutil.Assert;
+import com.google.common.collect.ImmutableList;
 
 public class GraphManagerTest extends BaseFuncTest {
 
@@ -79,4 +84,97 @@ public class GraphManagerTest extends BaseFuncTest {
         results = IteratorUtils.toList(edes);
         Assert.assertEquals(6, results.size());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIterateVerticesWithPrefetch() {
+        Iterator<Vertex> vertices = graph().iterateVertices(null, null, 1, 2);
+        List<Vertex> results = IteratorUtils.toList(vertices);
+        Assert.assertEquals(6, results.size());
+
+        vertices = graph().iterateVertices(null, null, 6, 2);
+        results = IteratorUtils.toList(vertices);
+        Assert.assertEquals(6, results.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIterateEdgesWithPrefetch() {
+        Iterator<Edge> edges = graph().iterateEdges(null, null, 1, 2);
+        List<Edge> results = IteratorUtils.toList(edges);
+        Assert.assertEquals(6, results.size());
+
+        edges = graph().iterateEdges(null, null, 100, 2);
+        results = IteratorUtils.toList(edges);
+        Assert.assertEquals(6, results.size());
+    }
+
+    @Test
+    public void testVertexCache() {
+        Assert.assertNull(graph().vertexCache());
+
+        HugeClient client = HugeClient.builder(BASE_URL, GRAPH)
+                                      .configUser(USERNAME, PASSWORD)
+                                      .configVertexCache(100, 0)
+                                      .build();
+        try {
+            GraphManager graph = client.graph();
+            VertexCache cache = graph.vertexCache();
+            Assert.assertNotNull(cache);
+
+            Object markoId = getVertexId("person", "name", "marko");
+            Object joshId = getVertexId("person", "name", "josh");
+            Vertex marko = graph.getVertex(markoId);
+            // The cached vertex is copied for each caller
+            Vertex cached = graph.getVertex(markoId);
+            Assert.assertNotSame(marko, cached);
+            Assert.assertEquals(marko.properties(), cached.properties());
+            Assert.assertEquals(1L, cache.stats().hitCount());
+
+            List<Vertex> vertices = client.traverser().vertices(
+                                    ImmutableList.of(joshId, markoId));
+            Assert.assertEquals(2, vertices.size());
+            Assert.assertEquals(joshId, vertices.get(0).id());
+            Assert.assertEquals(markoId, vertices.get(1).id());
+            Assert.assertEquals(2L, cache.stats().hitCount());
+
+            // Writes through the same client invalidate the cached vertex
+            Vertex update = new Vertex("person");
+            update.id(markoId);
+            update.property("age", 30);
+            graph.appendVertexProperty(update);
+            Assert.assertEquals(30, graph.getVertex(markoId).property("age"));
+
+            graph.removeVertex(joshId);
+            Assert.assertNull(cache.get(joshId));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testLookupBatch() {
+        HugeClient client = HugeClient.builder(BASE_URL, GRAPH)
+                                      .configUser(USERNAME, PASSWORD)
+                                      .configLookupBatch(100, 20)
+                                      .build();
+        try {
+            GraphManager graph = client.graph();
+            List<Vertex> vertices = graph().listVertices();
+            Assert.assertEquals(6, vertices.size());
+            runWithThreads(6, () -> {
+                for (Vertex vertex : vertices) {
+                    Assert.assertEquals(vertex, graph.getVertex(vertex.id()));
+                }
+            });
+
+            String edgeId = graph().listEdges().get(0).id();
+            Assert.assertEquals(edgeId, graph.getEdge(edgeId).id());
+            Assert.assertThrows(ServerException.class, () -> {
+                graph.getVertex("not-exist");
+            });
+        } finally {
+            client.close();
+        }
+    }
 }
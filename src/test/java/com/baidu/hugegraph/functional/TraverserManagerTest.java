@@ -22,12 +22,17 @@ package com.baidu.hugegraph.functional;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.baidu.hugegraph.BaseClientTest;
+import com.baidu.hugegraph.driver.ParallelScanner;
 import com.baidu.hugegraph.structure.graph.Edge;
 import com.baidu.hugegraph.structure.graph.Shard;
 import com.baidu.hugegraph.structure.graph.Vertex;
@@ -74,4 +79,52 @@ public class TraverserManagerTest extends BaseFuncTest {
         }
         Assert.assertEquals(6, edges.size());
     }
+
+    @Test
+    public void testIterateVerticesByShardWithPrefetch() {
+        List<Shard> shards = traverser().vertexShards(1 * 1024 * 1024);
+        List<Vertex> vertices = new LinkedList<>();
+        for (Shard shard : shards) {
+            Iterator<Vertex> iter = traverser().iteratorVertices(shard, 1, 2);
+            while (iter.hasNext()) {
+                vertices.add(iter.next());
+            }
+        }
+        Assert.assertEquals(6, vertices.size());
+    }
+
+    @Test
+    public void testParallelScanVertices() {
+        try (ParallelScanner scanner = traverser().parallelScanner(4, 1)) {
+            Set<Object> ids = ConcurrentHashMap.newKeySet();
+            long count = scanner.scanVertices(1 * 1024 * 1024, vertex -> {
+                ids.add(vertex.id());
+            });
+            Assert.assertEquals(6L, count);
+            Assert.assertEquals(6, ids.size());
+
+            try (Stream<Vertex> vertices = scanner.streamVertices(
+                                                   1 * 1024 * 1024)) {
+                Set<Object> streamed = vertices.map(Vertex::id)
+                                               .collect(Collectors.toSet());
+                Assert.assertEquals(ids, streamed);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelScanEdges() {
+        try (ParallelScanner scanner = traverser().parallelScanner(4, 2)) {
+            Set<Object> ids = ConcurrentHashMap.newKeySet();
+            long count = scanner.scanEdges(1 * 1024 * 1024, edge -> {
+                ids.add(edge.id());
+            });
+            Assert.assertEquals(6L, count);
+            Assert.assertEquals(6, ids.size());
+
+            try (Stream<Edge> edges = scanner.streamEdges(1 * 1024 * 1024)) {
+                Assert.assertEquals(6L, edges.parallel().count());
+            }
+        }
+    }
 }
@@ -0,0 +1,663 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.testutil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import com.baidu.hugegraph.util.E;
+import com.baidu.hugegraph.util.ExecutorUtil;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * StubServer is an in-process HugeGraphServer serving the rest paths used
+ * by the client over a generated graph, to test or benchmark the client
+ * deterministically without a live server.
+ *
+ * The graph has `vertices(n)` vertices with ids "1:v-{i}" and label
+ * "person", and the same count of edges with label "knows" linking each
+ * vertex to the next one. The latency, errors and any canned response can
+ * be injected, the later stubbed routes take precedence over the default.
+ */
+public class StubServer implements Closeable {
+
+    public static final String API_VERSION = "0.58.0.0";
+
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_VERTICES = 100;
+    private static final int DEFAULT_LIMIT = 100;
+    private static final String GRAPH = "graphs/[^/]+/";
+    private static final Pattern EDGE_ID = Pattern.compile(
+                                           "S1:v-(\\d+)>1>>S1:v-(\\d+)");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<Route> routes;
+    private final Map<Long, Long> taskCreated;
+    private final Map<Long, String> taskStatus;
+
+    private volatile int vertices;
+    private volatile long latency;
+    private volatile long jitter;
+    private volatile double errorRate;
+    private volatile int errorStatus;
+    private final AtomicInteger failures;
+    private volatile long taskDuration;
+
+    private final AtomicLong requests;
+    private final AtomicInteger inflight;
+    private final AtomicInteger maxInflight;
+
+    public StubServer() {
+        this(DEFAULT_THREADS);
+    }
+
+    public StubServer(int threads) {
+        E.checkArgument(threads > 0,
+                        "The stub server threads must be > 0, but got %s",
+                        threads);
+        try {
+            InetSocketAddress address = new InetSocketAddress(
+                                        InetAddress.getLoopbackAddress(), 0);
+            this.server = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create stub server", e);
+        }
+        this.executor = ExecutorUtil.newFixedThreadPool(threads,
+                                                        "stub-server-%d");
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.routes = new CopyOnWriteArrayList<>();
+        this.taskCreated = new ConcurrentHashMap<>();
+        this.taskStatus = new ConcurrentHashMap<>();
+        this.failures = new AtomicInteger();
+        this.requests = new AtomicLong();
+        this.inflight = new AtomicInteger();
+        this.maxInflight = new AtomicInteger();
+        this.reset();
+        this.registerDefaultRoutes();
+    }
+
+    public StubServer start() {
+        this.server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    public String url() {
+        InetSocketAddress address = this.server.getAddress();
+        return String.format("http://%s:%s",
+                             address.getAddress().getHostAddress(),
+                             address.getPort());
+    }
+
+    /**
+     * Serve the requests matched the method and path regex by the handler,
+     * the path is without the leading "/", like "graphs/hugegraph/tasks"
+     */
+    public StubServer stub(String method, String path, Handler handler) {
+        this.routes.add(0, new Route(method, Pattern.compile(path), handler));
+        return this;
+    }
+
+    /**
+     * Serve the requests matched the method and path regex by the canned
+     * json body, which may be a large payload prepared in advance
+     */
+    public StubServer stub(String method, String path, String body) {
+        Reply reply = new Reply(200, body);
+        return this.stub(method, path, request -> reply);
+    }
+
+    public StubServer vertices(int count) {
+        E.checkArgument(count > 0, "The vertices count must be > 0, " +
+                        "but got %s", count);
+        this.vertices = count;
+        return this;
+    }
+
+    public StubServer latency(long millis) {
+        return this.latency(millis, 0L);
+    }
+
+    /**
+     * Delay each response by the millis plus a random jitter in [0, jitter)
+     */
+    public StubServer latency(long millis, long jitter) {
+        E.checkArgument(millis >= 0L && jitter >= 0L,
+                        "The latency and jitter must be >= 0");
+        this.latency = millis;
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Fail the requests randomly by the rate with the http status
+     */
+    public StubServer errorRate(double rate, int status) {
+        E.checkArgument(rate >= 0D && rate <= 1D,
+                        "The error rate must be in [0, 1], but got %s", rate);
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Fail the next times of requests with the http status
+     */
+    public StubServer failNext(int times, int status) {
+        this.errorStatus = status;
+        this.failures.set(times);
+        return this;
+    }
+
+    /**
+     * The millis a task keeps running since it's queried the first time
+     */
+    public StubServer taskDuration(long millis) {
+        this.taskDuration = millis;
+        return this;
+    }
+
+    /**
+     * Complete the task with the status like "failed" or "cancelled"
+     */
+    public StubServer taskStatus(long id, String status) {
+        this.taskStatus.put(id, status);
+        return this;
+    }
+
+    public long requests() {
+        return this.requests.get();
+    }
+
+    /**
+     * The max count of requests being served at the same time
+     */
+    public int maxConcurrency() {
+        return this.maxInflight.get();
+    }
+
+    /**
+     * Reset the injected faults and statistics, the stubbed routes are kept
+     */
+    public void reset() {
+        this.vertices = DEFAULT_VERTICES;
+        this.latency = 0L;
+        this.jitter = 0L;
+        this.errorRate = 0D;
+        this.errorStatus = 500;
+        this.failures.set(0);
+        this.taskDuration = 0L;
+        this.taskCreated.clear();
+        this.taskStatus.clear();
+        this.requests.set(0L);
+        this.maxInflight.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.requests.incrementAndGet();
+        int inflight = this.inflight.incrementAndGet();
+        this.maxInflight.accumulateAndGet(inflight, Math::max);
+        try {
+            Reply reply;
+            try {
+                this.delay();
+                reply = this.dispatch(new Request(exchange));
+            } catch (RuntimeException e) {
+                reply = Reply.error(400, e.getClass().getName(),
+                                    String.valueOf(e.getMessage()));
+            }
+            byte[] bytes = reply.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type",
+                                              "application/json");
+            if (reply.status == 204) {
+                exchange.sendResponseHeaders(reply.status, -1L);
+            } else {
+                exchange.sendResponseHeaders(reply.status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } finally {
+            this.inflight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void delay() {
+        long millis = this.latency;
+        if (this.jitter > 0L) {
+            millis += ThreadLocalRandom.current().nextLong(this.jitter);
+        }
+        if (millis > 0L) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Reply dispatch(Request request) throws IOException {
+        if (this.failures.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0 ||
+            ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+            return Reply.error(this.errorStatus,
+                               "com.baidu.hugegraph.HugeException",
+                               "Injected error by stub server");
+        }
+        for (Route route : this.routes) {
+            Matcher matcher = route.match(request);
+            if (matcher != null) {
+                request.matcher = matcher;
+                return route.handler.handle(request);
+            }
+        }
+        return Reply.error(404, "javax.ws.rs.NotFoundException",
+                           "HTTP 404 Not Found");
+    }
+
+    private void registerDefaultRoutes() {
+        this.stub("GET", "versions", request -> Reply.ok(ImmutableMap.of(
+                  "versions", ImmutableMap.of("version", "v1",
+                                              "core", "0.11.2.0",
+                                              "gremlin", "3.4.3",
+                                              "api", API_VERSION))));
+        this.stub("GET", GRAPH + "schema/(propertykeys|vertexlabels|" +
+                  "edgelabels|indexlabels)", request -> {
+            return Reply.ok(ImmutableMap.of(request.group(1),
+                                            ImmutableList.of()));
+        });
+
+        // Graph and traverser apis of vertices and edges
+        for (String type : ImmutableList.of("vertices", "edges")) {
+            String graph = GRAPH + "graph/" + type;
+            String traverser = GRAPH + "traversers/" + type;
+            boolean vertex = "vertices".equals(type);
+            this.stub("GET", graph, request -> this.list(request, type));
+            this.stub("GET", graph + "/(.+)", request -> {
+                Object element = vertex ? this.vertex(request.group(1)) :
+                                          this.edge(request.group(1));
+                return element == null ? notFound(request.group(1)) :
+                                         Reply.ok(element);
+            });
+            this.stub("POST", graph, request -> {
+                String id = "stub-" + this.requests.get();
+                return new Reply(201, withId(request.body, id));
+            });
+            this.stub("POST", graph + "/batch", request -> {
+                List<Object> ids = new ArrayList<>();
+                for (Object element : JsonUtil.fromJson(request.body,
+                                                        List.class)) {
+                    ids.add(((Map<?, ?>) element).get("id"));
+                }
+                return new Reply(201, JsonUtil.toJson(ids));
+            });
+            this.stub("PUT", graph + "/(.+)", request -> {
+                String id = parseId(request.group(1));
+                return new Reply(200, withId(request.body, id));
+            });
+            this.stub("DELETE", graph + "/(.+)", request -> Reply.noContent());
+            this.stub("GET", traverser, request -> {
+                List<Object> elements = new ArrayList<>();
+                for (String id : request.params("ids")) {
+                    Object element = vertex ? this.vertex(id) : this.edge(id);
+                    if (element != null) {
+                        elements.add(element);
+                    }
+                }
+                return Reply.ok(ImmutableMap.of(type, elements));
+            });
+            this.stub("GET", traverser + "/shards", this::shards);
+            this.stub("GET", traverser + "/scan", request -> {
+                return this.scan(request, type);
+            });
+        }
+
+        this.stub("POST", "gremlin", request -> Reply.ok(ImmutableMap.of(
+                  "requestId", "stub-request",
+                  "status", ImmutableMap.of("message", "", "code", 200,
+                                            "attributes", ImmutableMap.of()),
+                  "result", ImmutableMap.of("data", ImmutableList.of(),
+                                            "meta", ImmutableMap.of()))));
+
+        this.stub("GET", GRAPH + "tasks/(\\d+)", request -> {
+            return Reply.ok(this.task(Long.parseLong(request.group(1))));
+        });
+        this.stub("GET", GRAPH + "tasks", request -> {
+            List<Object> tasks = new ArrayList<>();
+            for (String id : request.params("ids")) {
+                tasks.add(this.task(Long.parseLong(id)));
+            }
+            return Reply.ok(ImmutableMap.of("tasks", tasks));
+        });
+        this.stub("DELETE", GRAPH + "tasks/(\\d+)", request -> {
+            return Reply.noContent();
+        });
+    }
+
+    private Reply list(Request request, String type) {
+        String page = request.param("page");
+        int offset = page == null || page.isEmpty() ?
+                     0 : Integer.parseInt(page);
+        String limit = request.param("limit");
+        int end = offset + (limit == null ? DEFAULT_LIMIT :
+                            Integer.parseInt(limit));
+        return this.range(type, offset, end, this.vertices, page != null);
+    }
+
+    private Reply shards(Request request) {
+        int size = Integer.parseInt(request.param("split_size"));
+        List<Object> shards = new ArrayList<>();
+        for (int i = 0; i < this.vertices; i += size) {
+            int end = Math.min(i + size, this.vertices);
+            shards.add(ImmutableMap.of("start", String.valueOf(i),
+                                       "end", String.valueOf(end),
+                                       "length", 0));
+        }
+        return Reply.ok(ImmutableMap.of("shards", shards));
+    }
+
+    private Reply scan(Request request, String type) {
+        int start = Integer.parseInt(request.param("start"));
+        int end = Integer.parseInt(request.param("end"));
+        String page = request.param("page");
+        int offset = page == null || page.isEmpty() ?
+                     start : Integer.parseInt(page);
+        String limit = request.param("page_limit");
+        int pageEnd = limit == null ? end :
+                      offset + Integer.parseInt(limit);
+        return this.range(type, offset, pageEnd, end, page != null);
+    }
+
+    private Reply range(String type, int offset, int pageEnd, int end,
+                        boolean paging) {
+        List<Object> elements = new ArrayList<>();
+        int last = Math.min(pageEnd, end);
+        for (int i = offset; i < last; i++) {
+            elements.add("vertices".equals(type) ? vertex(i) : edge(i));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(type, elements);
+        if (paging) {
+            result.put("page", last < end ? String.valueOf(last) : null);
+        }
+        return Reply.ok(result);
+    }
+
+    private Object vertex(String id) {
+        id = parseId(id);
+        if (!id.startsWith("1:v-")) {
+            return null;
+        }
+        int index = Integer.parseInt(id.substring(4));
+        return index < this.vertices ? vertex(index) : null;
+    }
+
+    private Object edge(String id) {
+        Matcher matcher = EDGE_ID.matcher(parseId(id));
+        if (!matcher.matches()) {
+            return null;
+        }
+        int index = Integer.parseInt(matcher.group(1));
+        return index < this.vertices ? this.edge(index) : null;
+    }
+
+    private static Map<String, Object> vertex(int index) {
+        Map<String, Object> vertex = new LinkedHashMap<>();
+        vertex.put("id", "1:v-" + index);
+        vertex.put("label", "person");
+        vertex.put("type", "vertex");
+        vertex.put("properties", ImmutableMap.of("name", "v-" + index,
+                                                 "age", index % 100));
+        return vertex;
+    }
+
+    private Map<String, Object> edge(int index) {
+        int target = (index + 1) % this.vertices;
+        Map<String, Object> edge = new LinkedHashMap<>();
+        edge.put("id", String.format("S1:v-%s>1>>S1:v-%s", index, target));
+        edge.put("label", "knows");
+        edge.put("type", "edge");
+        edge.put("outV", "1:v-" + index);
+        edge.put("outVLabel", "person");
+        edge.put("inV", "1:v-" + target);
+        edge.put("inVLabel", "person");
+        edge.put("properties", ImmutableMap.of("weight", index * 0.1D));
+        return edge;
+    }
+
+    private Map<String, Object> task(long id) {
+        long now = System.currentTimeMillis();
+        long created = this.taskCreated.computeIfAbsent(id, k -> now);
+        String status = this.taskStatus.get(id);
+        if (status == null) {
+            status = now - created >= this.taskDuration ?
+                     "success" : "running";
+        }
+        Map<String, Object> task = new LinkedHashMap<>();
+        task.put("id", id);
+        task.put("task_type", "gremlin");
+        task.put("task_name", "stub-task-" + id);
+        task.put("task_status", status);
+        task.put("task_progress", 0);
+        task.put("task_create", created);
+        task.put("task_update", now);
+        task.put("task_retries", 0);
+        return task;
+    }
+
+    private static String withId(String body, String id) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> element = JsonUtil.fromJson(body, Map.class);
+        element.putIfAbsent("id", id);
+        return JsonUtil.toJson(element);
+    }
+
+    private static String parseId(String id) {
+        // The vertex id in url is formatted as json, like "\"1:v-1\""
+        if (id.startsWith("\"") && id.endsWith("\"") && id.length() > 1) {
+            return id.substring(1, id.length() - 1);
+        }
+        return id;
+    }
+
+    private static Reply notFound(String id) {
+        return Reply.error(404, "java.util.NoSuchElementException",
+                           String.format("Not found by id '%s'", id));
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+
+        Reply handle(Request request) throws IOException;
+    }
+
+    public static class Request {
+
+        private final String method;
+        private final String path;
+        private final Map<String, List<String>> params;
+        private final Map<String, List<String>> headers;
+        private final String body;
+        private Matcher matcher;
+
+        public Request(HttpExchange exchange) throws IOException {
+            this.method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            this.path = decode(path.replaceAll("^/+", ""));
+            this.params = parseQuery(exchange.getRequestURI().getRawQuery());
+            this.headers = exchange.getRequestHeaders();
+            String encoding = this.header("Content-Encoding");
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equalsIgnoreCase(encoding)) {
+                in = new GZIPInputStream(in);
+            }
+            this.body = read(in);
+        }
+
+        public String method() {
+            return this.method;
+        }
+
+        public String path() {
+            return this.path;
+        }
+
+        public String body() {
+            return this.body;
+        }
+
+        public String header(String name) {
+            // The headers of HttpExchange are case insensitive
+            List<String> values = this.headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        public String param(String name) {
+            List<String> values = this.params.get(name);
+            return values == null ? null : values.get(0);
+        }
+
+        public List<String> params(String name) {
+            List<String> values = this.params.get(name);
+            return values == null ? Collections.emptyList() : values;
+        }
+
+        /**
+         * The captured group of the route path regex
+         */
+        public String group(int group) {
+            return this.matcher.group(group);
+        }
+
+        private static Map<String, List<String>> parseQuery(String query) {
+            Map<String, List<String>> params = new LinkedHashMap<>();
+            if (query == null || query.isEmpty()) {
+                return params;
+            }
+            for (String param : query.split("&")) {
+                int pos = param.indexOf('=');
+                String key = decode(pos < 0 ? param : param.substring(0, pos));
+                String value = pos < 0 ? "" : decode(param.substring(pos + 1));
+                params.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            }
+            return params;
+        }
+
+        private static String decode(String value) {
+            try {
+                return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        private static String read(InputStream in) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static class Reply {
+
+        private final int status;
+        private final String body;
+
+        public Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public static Reply ok(Object result) {
+            return new Reply(200, JsonUtil.toJson(result));
+        }
+
+        public static Reply noContent() {
+            return new Reply(204, "");
+        }
+
+        public static Reply error(int status, String exception,
+                                  String message) {
+            return new Reply(status, JsonUtil.toJson(ImmutableMap.of(
+                             "exception", "class " + exception,
+                             "message", message,
+                             "cause", "")));
+        }
+    }
+
+    private static class Route {
+
+        private final String method;
+        private final Pattern path;
+        private final Handler handler;
+
+        public Route(String method, Pattern path, Handler handler) {
+            this.method = method;
+            this.path = path;
+            this.handler = handler;
+        }
+
+        public Matcher match(Request request) {
+            if (!this.method.equalsIgnoreCase(request.method)) {
+                return null;
+            }
+            Matcher matcher = this.path.matcher(request.path);
+            return matcher.matches() ? matcher : null;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.AdaptiveLimiter;
+import com.baidu.hugegraph.driver.BulkLoader;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+
+public class AdaptiveLimiterTest extends BaseUnitTest {
+
+    @Test
+    public void testSlowStart() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 16);
+        round(limiter, 10L, false);
+        Assert.assertEquals(2, limiter.limit());
+        for (int i = 0; i < 5; i++) {
+            round(limiter, 10L, false);
+        }
+        Assert.assertEquals(16, limiter.limit());
+        Assert.assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void testDecreaseOnDropped() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(16, 1, 16);
+        round(limiter, 10L, false);
+        Thread.sleep(20L);
+        limiter.sample(10L, true);
+        Assert.assertEquals(12, limiter.limit());
+        // The requests sent before the last decrease are ignored
+        limiter.sample(10L, true);
+        Assert.assertEquals(12, limiter.limit());
+
+        // Increase by about 1 per limit requests after the decrease
+        round(limiter, 10L, false);
+        Assert.assertEquals(12, limiter.limit());
+        round(limiter, 10L, false);
+        Assert.assertEquals(13, limiter.limit());
+        Assert.assertEquals(1L, limiter.metrics().get("decreases"));
+    }
+
+    @Test
+    public void testDecreaseOnLatency() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 16);
+        round(limiter, 10L, false);
+        Assert.assertEquals(10L, limiter.metrics().get("baseline_ms"));
+        Thread.sleep(50L);
+        // Within the tolerance
+        limiter.sample(25L, false);
+        Assert.assertEquals(16, limiter.limit());
+        limiter.sample(40L, false);
+        Assert.assertEquals(12, limiter.limit());
+    }
+
+    @Test
+    public void testMinLimit() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 2, 4);
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(5L);
+            limiter.sample(1L, true);
+        }
+        Assert.assertEquals(2, limiter.limit());
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new AdaptiveLimiter(1, 2, 4);
+        });
+    }
+
+    @Test
+    public void testAcquireUnderLimit() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 4);
+        limiter.acquire();
+        Thread thread = new Thread(() -> {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException ignored) {
+                // pass
+            }
+        });
+        thread.start();
+        thread.join(50L);
+        Assert.assertTrue(thread.isAlive());
+        limiter.release();
+        thread.join();
+        Assert.assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    public void testAdaptiveBulkLoader() {
+        try (StubServer server = new StubServer().start().latency(50L);
+             HugeClient client = HugeClient.builder(server.url(), "hugegraph")
+                                           .build()) {
+            BulkLoader loader = client.graph().adaptiveBulkLoader(10, 8);
+            Assert.assertEquals(1, loader.parallelism());
+            for (int i = 0; i < 1000; i++) {
+                Vertex vertex = new Vertex("person");
+                vertex.id("1:v-" + i);
+                loader.addVertex(vertex);
+            }
+            loader.close();
+            Assert.assertEquals(1000L, loader.loadedVertices());
+            Assert.assertEquals(100L, loader.batches());
+            Assert.assertGt(1, loader.parallelism());
+            // The concurrency is bounded by the adaptive limit reached
+            int peak = loader.limiter().peakLimit();
+            Assert.assertLte(8, peak);
+            Assert.assertLte(peak, server.maxConcurrency());
+        }
+    }
+
+    @Test
+    public void testNotIncreaseOnBadRequest() {
+        try (StubServer server = new StubServer().start();
+             HugeClient client = HugeClient.builder(server.url(), "hugegraph")
+                                           .build()) {
+            server.stub("POST", "graphs/hugegraph/graph/vertices/batch",
+                        request -> StubServer.Reply.error(
+                                   400, "IllegalArgumentException",
+                                   "Invalid vertex"));
+            BulkLoader loader = new BulkLoader(client.graph(), 10, 8, 0,
+                                               true, null, true);
+            for (int i = 0; i < 100; i++) {
+                Vertex vertex = new Vertex("person");
+                vertex.id("1:v-" + i);
+                loader.addVertex(vertex);
+            }
+            Assert.assertThrows(ClientException.class, () -> {
+                loader.close();
+            });
+            Assert.assertEquals(10L, loader.failedBatches());
+            // The fast failures of the bad requests don't raise the limit
+            Assert.assertEquals(1, loader.parallelism());
+        }
+    }
+
+    private static void round(AdaptiveLimiter limiter, long latency,
+                              boolean dropped) throws InterruptedException {
+        int limit = limiter.limit();
+        for (int i = 0; i < limit; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < limit; i++) {
+            limiter.sample(latency, dropped);
+        }
+        for (int i = 0; i < limit; i++) {
+            limiter.release();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.structure.constant.BatchEncoding;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.testutil.StubServer.Reply;
+
+public class BatchEncodingTest extends BaseUnitTest {
+
+    private StubServer server;
+    private List<String> encodings;
+
+    @Before
+    public void setup() {
+        this.encodings = new ArrayList<>();
+        this.server = new StubServer().start();
+        this.server.stub("POST", "graphs/[^/]+/graph/vertices/batch",
+                         request -> {
+            this.encodings.add(request.header("Content-Encoding"));
+            return new Reply(201, "[\"1:a\", \"1:b\"]");
+        });
+    }
+
+    @After
+    public void teardown() {
+        this.server.close();
+    }
+
+    @Test
+    public void testDefaultGzip() {
+        try (HugeClient client = HugeClient.builder(this.server.url(),
+                                                    "hugegraph").build()) {
+            client.graph().addVertices(vertices());
+        }
+        Assert.assertEquals("gzip", this.encodings.get(0));
+    }
+
+    @Test
+    public void testIdentity() {
+        try (HugeClient client = HugeClient.builder(this.server.url(),
+                                                    "hugegraph")
+                                           .configBatchEncoding(
+                                            BatchEncoding.IDENTITY)
+                                           .build()) {
+            client.graph().addVertices(vertices());
+        }
+        Assert.assertNull(this.encodings.get(0));
+    }
+
+    @Test
+    public void testInvalidEncoding() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            HugeClient.builder(this.server.url(), "hugegraph")
+                      .configBatchEncoding(null);
+        });
+    }
+
+    private static List<Vertex> vertices() {
+        List<Vertex> vertices = new ArrayList<>();
+        for (String id : new String[]{"1:a", "1:b"}) {
+            Vertex vertex = new Vertex("person");
+            vertex.id(id);
+            vertices.add(vertex);
+        }
+        return vertices;
+    }
+}
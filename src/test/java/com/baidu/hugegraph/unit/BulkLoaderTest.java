@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.baidu.hugegraph.unit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.BulkLoader;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+
+public class BulkLoaderTest extends BaseUnitTest {
+
+    private static final String BATCH = "graphs/hugegraph/graph/vertices/batch";
+
+    private StubServer server;
+    private HugeClient client;
+    private long requests;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.client = HugeClient.builder(this.server.url(), "hugegraph")
+                                .build();
+        // Exclude the requests to build the client
+        this.requests = this.server.requests();
+    }
+
+    @After
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testRetryFailure() {
+        BulkLoader loader = new BulkLoader(this.client.graph(), 10, 1, 3,
+                                           true, null);
+        this.server.failNext(2, 503);
+        addVertices(loader, 10);
+        loader.close();
+        Assert.assertEquals(10L, loader.loadedVertices());
+        Assert.assertEquals(0L, loader.failedBatches());
+        Assert.assertEquals(3L, this.batchRequests());
+    }
+
+    @Test
+    public void testNotRetryBadRequest() {
+        this.server.stub("POST", BATCH, request -> {
+            return StubServer.Reply.error(422, "IllegalArgumentException",
+                                          "Invalid vertex");
+        });
+        BulkLoader loader = new BulkLoader(this.client.graph(), 10, 1, 3,
+                                           true, null);
+        addVertices(loader, 10);
+        Assert.assertThrows(ClientException.class, () -> {
+            loader.close();
+        });
+        Assert.assertEquals(1L, loader.failedBatches());
+        Assert.assertEquals(1L, this.batchRequests());
+    }
+
+    @Test
+    public void testStopRetryOnInterrupt() throws InterruptedException {
+        // Back off for seconds if not interrupted
+        BulkLoader loader = new BulkLoader(this.client.graph(), 10, 1, 10,
+                                           true, null);
+        this.server.errorRate(1D, 503);
+        addVertices(loader, 10);
+        while (this.batchRequests() == 0L) {
+            Thread.sleep(5L);
+        }
+        Thread worker = null;
+        while (worker == null) {
+            worker = loadingThread();
+        }
+        worker.interrupt();
+
+        long start = System.currentTimeMillis();
+        Assert.assertThrows(ClientException.class, () -> {
+            loader.close();
+        });
+        Assert.assertLte(1000L, System.currentTimeMillis() - start);
+        Assert.assertEquals(1L, loader.failedBatches());
+        Assert.assertEquals(1L, this.batchRequests());
+    }
+
+    private long batchRequests() {
+        return this.server.requests() - this.requests;
+    }
+
+    private static void addVertices(BulkLoader loader, int count) {
+        for (int i = 0; i < count; i++) {
+            Vertex vertex = new Vertex("person");
+            vertex.id("1:v-" + i);
+            loader.addVertex(vertex);
+        }
+    }
+
+    private static Thread loadingThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            for (StackTraceElement frame : thread.getStackTrace()) {
+                if (frame.getClassName().equals(BulkLoader.class.getName()) &&
+                    frame.getMethodName().equals("load")) {
+                    return thread;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.structure.constant.Direction;
+import com.baidu.hugegraph.structure.graph.CompactGraph;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class CompactGraphTest extends BaseUnitTest {
+
+    @Test
+    public void testBuildAdjacency() {
+        CompactGraph graph = buildGraph(new CompactGraph.Builder());
+        Assert.assertEquals(4, graph.vertexCount());
+        Assert.assertEquals(4, graph.edgeCount());
+
+        int marko = graph.index("1:marko");
+        int josh = graph.index("1:josh");
+        int lop = graph.index("2:lop");
+        Assert.assertEquals("1:marko", graph.id(marko));
+        Assert.assertEquals("person", graph.label(marko));
+        Assert.assertEquals(-1, graph.index("1:not-exist"));
+
+        Assert.assertEquals(3, graph.degree(marko, Direction.OUT));
+        Assert.assertEquals(0, graph.degree(marko, Direction.IN));
+        Assert.assertEquals(2, graph.degree(lop, Direction.IN));
+        Assert.assertEquals(2, graph.degree(josh, Direction.BOTH));
+
+        List<Object> neighbors = new ArrayList<>();
+        graph.forEachNeighbor(marko, Direction.OUT, v -> {
+            neighbors.add(graph.id(v));
+        });
+        Assert.assertEquals(ImmutableList.of("1:vadas", "1:josh", "2:lop"),
+                            neighbors);
+
+        int edge = graph.inEdge(lop, 1);
+        Assert.assertEquals(josh, graph.source(edge));
+        Assert.assertEquals(lop, graph.target(edge));
+        Assert.assertEquals("created", graph.edgeLabel(edge));
+        Assert.assertEquals("created", graph.edgeLabel(graph.outEdge(josh, 0)));
+    }
+
+    @Test
+    public void testColumnarProperties() {
+        CompactGraph graph = buildGraph(new CompactGraph.Builder());
+        int marko = graph.index("1:marko");
+        int josh = graph.index("1:josh");
+        int lop = graph.index("2:lop");
+        Assert.assertEquals(29, graph.property(marko, "age"));
+        Assert.assertEquals("josh", graph.property(josh, "name"));
+        Assert.assertNull(graph.property(lop, "age"));
+        Assert.assertEquals(0.5D, graph.edgeProperty(graph.outEdge(marko, 0),
+                                                     "weight"));
+        // The column falls back to objects on mixed value types
+        Assert.assertEquals(1L, graph.edgeProperty(graph.outEdge(marko, 1),
+                                                   "weight"));
+        Assert.assertEquals(ImmutableSet.of("name", "age", "lang"),
+                            graph.propertyKeys());
+    }
+
+    @Test
+    public void testSelectedProperties() {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        builder.vertexProperties("name").edgeProperties("date");
+        CompactGraph graph = buildGraph(builder);
+        Assert.assertEquals(ImmutableSet.of("name"), graph.propertyKeys());
+        Assert.assertEquals(ImmutableSet.of("date"), graph.edgePropertyKeys());
+        Assert.assertNull(graph.property(graph.index("1:marko"), "age"));
+    }
+
+    @Test
+    public void testEdgeBeforeVertex() {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        builder.addEdge(edge("knows", "1:a", "1:b", "weight", 1.0D));
+        builder.addVertex(vertex("1:b", "person", "name", "b"));
+        CompactGraph graph = builder.build();
+        Assert.assertEquals(2, graph.vertexCount());
+        Assert.assertNull(graph.label(graph.index("1:a")));
+        Assert.assertEquals("person", graph.label(graph.index("1:b")));
+        Assert.assertEquals(1, graph.degree(graph.index("1:b"), Direction.IN));
+
+        Assert.assertThrows(IllegalStateException.class, () -> {
+            builder.addVertex(vertex("1:c", "person", "name", "c"));
+        });
+    }
+
+    @Test
+    public void testGrowBeyondInitCapacity() {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            builder.addVertex(vertex("1:" + i, "person", "age", i));
+        }
+        for (int i = 1; i < count; i++) {
+            builder.addEdge(edge("knows", "1:0", "1:" + i, "weight", i));
+        }
+        CompactGraph graph = builder.build();
+        Assert.assertEquals(count, graph.vertexCount());
+        Assert.assertEquals(count - 1, graph.edgeCount());
+        Assert.assertEquals(count - 1, graph.degree(0, Direction.OUT));
+        Assert.assertEquals(4999, graph.property(graph.index("1:4999"),
+                                                 "age"));
+        Assert.assertEquals(4999, graph.edgeProperty(graph.outEdge(0, 4998),
+                                                     "weight"));
+    }
+
+    private static CompactGraph buildGraph(CompactGraph.Builder builder) {
+        builder.addVertex(vertex("1:marko", "person",
+                                 "name", "marko", "age", 29));
+        builder.addVertex(vertex("1:vadas", "person",
+                                 "name", "vadas", "age", 27));
+        builder.addVertex(vertex("1:josh", "person",
+                                 "name", "josh", "age", 32));
+        builder.addVertex(vertex("2:lop", "software",
+                                 "name", "lop", "lang", "java"));
+
+        builder.addEdge(edge("knows", "1:marko", "1:vadas",
+                             "date", "2012-01-10", "weight", 0.5D));
+        builder.addEdge(edge("knows", "1:marko", "1:josh",
+                             "date", "2013-01-10", "weight", 1L));
+        builder.addEdge(edge("created", "1:marko", "2:lop",
+                             "date", "2014-01-10"));
+        builder.addEdge(edge("created", "1:josh", "2:lop",
+                             "date", "2016-01-10"));
+        return builder.build();
+    }
+
+    private static Vertex vertex(String id, String label,
+                                 Object... properties) {
+        Vertex vertex = new Vertex(label);
+        vertex.id(id);
+        for (int i = 0; i < properties.length; i += 2) {
+            vertex.property((String) properties[i], properties[i + 1]);
+        }
+        return vertex;
+    }
+
+    private static Edge edge(String label, String source, String target,
+                             Object... properties) {
+        Edge edge = new Edge(label);
+        edge.sourceId(source);
+        edge.targetId(target);
+        for (int i = 0; i < properties.length; i += 2) {
+            edge.property((String) properties[i], properties[i + 1]);
+        }
+        return edge;
+    }
+}
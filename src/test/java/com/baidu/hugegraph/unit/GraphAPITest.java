@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.math.BigInteger;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.api.graph.GraphAPI;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableList;
+
+public class GraphAPITest extends BaseUnitTest {
+
+    @Test
+    public void testFormatVertexIdSameAsJson() {
+        for (Object id : ImmutableList.of("1:marko", "", "\u4e2d\u6587:id",
+                                          "a b/c", "quote\"d", "back\\slash",
+                                          "tab\tnew\nline", "\u0001",
+                                          1, -1L, Long.MAX_VALUE,
+                                          (short) 2, (byte) 3, 1.5D, 2.5F,
+                                          BigInteger.TEN)) {
+            Assert.assertEquals(JsonUtil.toJson(id),
+                                GraphAPI.formatVertexId(id));
+        }
+        UUID uuid = UUID.randomUUID();
+        Assert.assertEquals("U\"" + uuid + "\"",
+                            GraphAPI.formatVertexId(uuid));
+    }
+
+    @Test
+    public void testFormatVertexIdWithNull() {
+        Assert.assertNull(GraphAPI.formatVertexId(null, true));
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            GraphAPI.formatVertexId(null);
+        });
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            GraphAPI.formatVertexId(new Object());
+        });
+    }
+}
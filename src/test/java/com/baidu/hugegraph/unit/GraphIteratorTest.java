@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.baidu.hugegraph.driver.GraphManager;
+import com.baidu.hugegraph.structure.graph.GraphIterator;
+import com.baidu.hugegraph.structure.graph.Pageable;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+
+public class GraphIteratorTest extends BaseUnitTest {
+
+    private static final GraphManager GRAPH =
+                                      Mockito.mock(GraphManager.class);
+
+    @Test
+    public void testIterateWithoutPrefetch() {
+        GraphIterator<Vertex> iter = new GraphIterator<>(GRAPH, 3,
+                                                         pages(10, 3, null));
+        Assert.assertEquals(names(10), names(iter));
+    }
+
+    @Test
+    public void testIterateWithPrefetch() {
+        for (int prefetch = 1; prefetch <= 4; prefetch++) {
+            GraphIterator<Vertex> iter;
+            iter = new GraphIterator<>(GRAPH, 3, prefetch, pages(10, 3, null));
+            Assert.assertEquals(names(10), names(iter));
+
+            iter = new GraphIterator<>(GRAPH, 5, prefetch, pages(10, 5, null));
+            Assert.assertEquals(names(10), names(iter));
+        }
+    }
+
+    @Test
+    public void testIterateEmptyWithPrefetch() {
+        GraphIterator<Vertex> iter = new GraphIterator<>(GRAPH, 3, 2,
+                                                         pages(0, 3, null));
+        Assert.assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testPrefetchFailure() {
+        Function<String, Pageable<Vertex>> pages = pages(10, 3, null);
+        // The third page always fails, however far it's prefetched
+        GraphIterator<Vertex> iter = new GraphIterator<>(GRAPH, 3, 2, page -> {
+            if (page.equals("6")) {
+                throw new IllegalStateException("Failed to fetch " + page);
+            }
+            return pages.apply(page);
+        });
+        Assert.assertEquals("v0", iter.next().property("name"));
+        Assert.assertEquals("v1", iter.next().property("name"));
+        Assert.assertEquals("v2", iter.next().property("name"));
+        Assert.assertThrows(IllegalStateException.class, () -> {
+            while (iter.hasNext()) {
+                iter.next();
+            }
+        });
+        Assert.assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testCloseBeforeEnd() {
+        AtomicInteger fetched = new AtomicInteger();
+        GraphIterator<Vertex> iter = new GraphIterator<>(GRAPH, 1, 2,
+                                                         pages(100, 1,
+                                                               fetched));
+        Assert.assertTrue(iter.hasNext());
+        iter.close();
+        int count = fetched.get();
+        Assert.assertTrue(count <= 4);
+    }
+
+    @Test
+    public void testPrefetchPausedWhileIdle() throws InterruptedException {
+        AtomicInteger fetched = new AtomicInteger();
+        GraphIterator<Vertex> iter = new GraphIterator<>(GRAPH, 1, 2,
+                                                         pages(100, 1,
+                                                               fetched));
+        Assert.assertTrue(iter.hasNext());
+        Thread.sleep(300L);
+        // The page taken and the 2 pages buffered, no more until consumed
+        Assert.assertEquals(3, fetched.get());
+        Assert.assertEquals("v0", iter.next().property("name"));
+        Assert.assertEquals("v1", iter.next().property("name"));
+        Thread.sleep(300L);
+        Assert.assertEquals(4, fetched.get());
+
+        iter.close();
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertThrows(NoSuchElementException.class, () -> {
+            iter.next();
+        });
+    }
+
+    @Test
+    public void testInvalidPrefetch() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new GraphIterator<>(GRAPH, 3, -1, pages(10, 3, null));
+        });
+    }
+
+    private static Function<String, Pageable<Vertex>> pages(
+                                                      int total, int size,
+                                                      AtomicInteger fetched) {
+        return page -> {
+            if (fetched != null) {
+                fetched.incrementAndGet();
+            }
+            int start = page.isEmpty() ? 0 : Integer.parseInt(page);
+            int end = Math.min(start + size, total);
+            List<Vertex> vertices = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                Vertex vertex = new Vertex("person");
+                vertex.property("name", "v" + i);
+                vertices.add(vertex);
+            }
+            String next = end < total ? String.valueOf(end) : null;
+            return new Pageable<Vertex>(next) {
+                @Override
+                public List<Vertex> results() {
+                    return vertices;
+                }
+            };
+        };
+    }
+
+    private static List<Object> names(int total) {
+        List<Object> names = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            names.add("v" + i);
+        }
+        return names;
+    }
+
+    private static List<Object> names(GraphIterator<Vertex> iter) {
+        List<Object> names = new ArrayList<>();
+        while (iter.hasNext()) {
+            names.add(iter.next().property("name"));
+        }
+        return names;
+    }
+}
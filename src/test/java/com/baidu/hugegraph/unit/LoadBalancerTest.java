@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.structure.constant.BalancePolicy;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.testutil.Utils;
+import com.google.common.collect.ImmutableList;
+
+public class LoadBalancerTest extends BaseUnitTest {
+
+    private StubServer server1;
+    private StubServer server2;
+    private String deadUrl;
+
+    @Before
+    public void setup() {
+        this.server1 = new StubServer().start().vertices(10);
+        this.server2 = new StubServer().start().vertices(10);
+        StubServer dead = new StubServer().start();
+        this.deadUrl = dead.url();
+        dead.close();
+    }
+
+    @After
+    public void teardown() {
+        this.server1.close();
+        this.server2.close();
+    }
+
+    @Test
+    public void testRoundRobin() {
+        try (HugeClient client = this.client(BalancePolicy.ROUND_ROBIN,
+                                             this.server2.url())) {
+            long requests1 = this.server1.requests();
+            long requests2 = this.server2.requests();
+            for (int i = 0; i < 10; i++) {
+                client.graph().getVertex("1:v-1");
+            }
+            Assert.assertEquals(5L, this.server1.requests() - requests1);
+            Assert.assertEquals(5L, this.server2.requests() - requests2);
+        }
+    }
+
+    @Test
+    public void testFailover() {
+        try (HugeClient client = this.client(BalancePolicy.ROUND_ROBIN,
+                                             this.deadUrl)) {
+            long requests = this.server1.requests();
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals("1:v-1",
+                                    client.graph().getVertex("1:v-1").id());
+            }
+            Assert.assertEquals(10L, this.server1.requests() - requests);
+
+            Map<String, Map<String, Object>> nodes = client.metrics()
+                                                           .nodes();
+            Assert.assertEquals(true, nodes.get(this.server1.url())
+                                           .get("up"));
+            Assert.assertEquals(false, nodes.get(this.deadUrl).get("up"));
+
+            // The server errors don't fail over
+            Utils.assertResponseError(404, () -> {
+                client.graph().getVertex("1:v-99");
+            });
+        }
+    }
+
+    @Test
+    public void testLatencyWeighted() {
+        this.server2.latency(50L);
+        try (HugeClient client = this.client(BalancePolicy.LATENCY_WEIGHTED,
+                                             this.server2.url())) {
+            long requests1 = this.server1.requests();
+            long requests2 = this.server2.requests();
+            for (int i = 0; i < 20; i++) {
+                client.graph().getVertex("1:v-1");
+            }
+            long fast = this.server1.requests() - requests1;
+            long slow = this.server2.requests() - requests2;
+            Assert.assertEquals(20L, fast + slow);
+            Assert.assertGt(slow, fast);
+        }
+    }
+
+    @Test
+    public void testLeastInFlight() throws Exception {
+        this.server2.latency(100L);
+        try (HugeClient client = this.client(BalancePolicy.LEAST_IN_FLIGHT,
+                                             this.server2.url())) {
+            long requests1 = this.server1.requests();
+            long requests2 = this.server2.requests();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread thread = new Thread(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        client.graph().getVertex("1:v-1");
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long fast = this.server1.requests() - requests1;
+            long slow = this.server2.requests() - requests2;
+            Assert.assertEquals(40L, fast + slow);
+            Assert.assertGt(slow, fast);
+        }
+    }
+
+    @Test
+    public void testAllNodesDown() {
+        HugeClient client = this.client(BalancePolicy.ROUND_ROBIN,
+                                        this.deadUrl);
+        this.server1.close();
+        try {
+            Assert.assertThrows(RuntimeException.class, () -> {
+                client.graph().getVertex("1:v-1");
+            });
+            for (Map<String, Object> node : client.metrics().nodes()
+                                                  .values()) {
+                Assert.assertEquals(false, node.get("up"));
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    private HugeClient client(BalancePolicy policy, String nodeUrl) {
+        return HugeClient.builder(this.server1.url(), "hugegraph")
+                         .configBalance(policy, ImmutableList.of(nodeUrl), 1)
+                         .build();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.driver.LookupBatcher;
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.testutil.Assert;
+import com.google.common.collect.ImmutableList;
+
+public class LookupBatcherTest extends BaseUnitTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final List<String> singles = new CopyOnWriteArrayList<>();
+    private LookupBatcher<String, String> batcher;
+
+    @After
+    public void teardown() {
+        if (this.batcher != null) {
+            this.batcher.close();
+        }
+    }
+
+    @Test
+    public void testCoalesceWithinWindow() {
+        this.batcher = this.newBatcher(100, 50L, keys -> {
+            List<String> values = new ArrayList<>();
+            for (String key : keys) {
+                values.add(key.toUpperCase());
+            }
+            return values;
+        });
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(this.batcher.submit("k" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("K" + i, futures.get(i).join());
+        }
+        Assert.assertEquals(1, this.batches.size());
+        Assert.assertEquals(10, this.batches.get(0).size());
+        Assert.assertEquals(0, this.singles.size());
+        Assert.assertEquals(10D, this.batcher.batchingRatio(), 0D);
+    }
+
+    @Test
+    public void testDispatchWhenBatchIsFull() {
+        this.batcher = this.newBatcher(4, 60_000L, keys -> {
+            List<String> values = new ArrayList<>();
+            for (String key : keys) {
+                values.add(key.toUpperCase());
+            }
+            return values;
+        });
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(this.batcher.submit("k" + i));
+        }
+        for (int i = 0; i < 8; i++) {
+            Assert.assertEquals("K" + i, futures.get(i).join());
+        }
+        Assert.assertEquals(2, this.batches.size());
+    }
+
+    @Test
+    public void testSameKeySharesLookup() {
+        this.batcher = this.newBatcher(100, 50L, keys -> {
+            return ImmutableList.of("A");
+        });
+        CompletableFuture<String> future1 = this.batcher.submit("a");
+        CompletableFuture<String> future2 = this.batcher.submit("a");
+        Assert.assertSame(future1, future2);
+        Assert.assertEquals("A", future1.join());
+        // A single key is looked up without the multi-get
+        Assert.assertEquals(0, this.batches.size());
+        Assert.assertEquals(ImmutableList.of("a"), this.singles);
+    }
+
+    @Test
+    public void testFallbackToSingleLookup() {
+        // The key "missing" isn't returned by the multi-get
+        this.batcher = this.newBatcher(100, 50L, keys -> {
+            return ImmutableList.of("A");
+        });
+        CompletableFuture<String> future1 = this.batcher.submit("a");
+        CompletableFuture<String> future2 = this.batcher.submit("missing");
+        Assert.assertEquals("A", future1.join());
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            this.batcher.get("missing");
+        });
+        Assert.assertTrue(future2.isCompletedExceptionally());
+        Assert.assertTrue(this.singles.contains("missing"));
+
+        // All the keys fallback if the multi-get is a bad request
+        this.batcher.close();
+        this.singles.clear();
+        this.batcher = this.newBatcher(100, 50L, keys -> {
+            throw serverError(400);
+        });
+        future1 = this.batcher.submit("x");
+        future2 = this.batcher.submit("y");
+        Assert.assertEquals("X", future1.join());
+        Assert.assertEquals("Y", future2.join());
+        Assert.assertEquals(2, this.singles.size());
+    }
+
+    @Test
+    public void testFailAllIfServerFailed() {
+        for (int status : new int[]{429, 503}) {
+            this.batcher = this.newBatcher(100, 50L, keys -> {
+                throw serverError(status);
+            });
+            CompletableFuture<String> future1 = this.batcher.submit("x");
+            CompletableFuture<String> future2 = this.batcher.submit("y");
+            for (CompletableFuture<String> future : ImmutableList.of(
+                                                    future1, future2)) {
+                Assert.assertThrows(CompletionException.class, () -> {
+                    future.join();
+                }, e -> {
+                    ServerException cause = (ServerException) e.getCause();
+                    Assert.assertEquals(status, cause.status());
+                });
+            }
+            this.batcher.close();
+        }
+
+        this.batcher = this.newBatcher(100, 50L, keys -> {
+            throw new IllegalStateException("Read timed out");
+        });
+        CompletableFuture<String> future = this.batcher.submit("x");
+        this.batcher.submit("y");
+        Assert.assertThrows(CompletionException.class, () -> {
+            future.join();
+        }, e -> {
+            Assert.assertInstanceOf(IllegalStateException.class,
+                                    e.getCause());
+        });
+        Assert.assertEquals(0, this.singles.size());
+    }
+
+    @Test
+    public void testSharedExecutors() throws InterruptedException {
+        ScheduledExecutorService scheduler =
+                                 Executors.newSingleThreadScheduledExecutor();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            LookupBatcher<String, String> first = this.newBatcher(
+                                                  scheduler, executor);
+            LookupBatcher<String, String> second = this.newBatcher(
+                                                   scheduler, executor);
+            CompletableFuture<String> a = first.submit("a");
+            CompletableFuture<String> b = second.submit("b");
+            CompletableFuture<String> c = second.submit("c");
+            Assert.assertEquals("A", a.join());
+            Assert.assertEquals("B", b.join());
+            Assert.assertEquals("C", c.join());
+            Assert.assertEquals(ImmutableList.of("b", "c"),
+                                this.batches.get(0));
+
+            // The shared executors are owned by the caller
+            first.close();
+            Assert.assertFalse(scheduler.isShutdown());
+            Assert.assertFalse(executor.isShutdown());
+            Assert.assertEquals("D", second.get("d"));
+            second.close();
+        } finally {
+            scheduler.shutdownNow();
+            executor.shutdown();
+            executor.awaitTermination(10L, TimeUnit.SECONDS);
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            HugeClient.builder("http://127.0.0.1:8080", "hugegraph")
+                      .configLookupBatch(10, 2, -1);
+        });
+    }
+
+    private static ServerException serverError(int status) {
+        ServerException e = new ServerException("Failed with %s", status);
+        e.status(status);
+        return e;
+    }
+
+    private LookupBatcher<String, String> newBatcher(
+                                          ScheduledExecutorService scheduler,
+                                          ExecutorService executor) {
+        return new LookupBatcher<>(10, 50L, scheduler, executor, keys -> {
+            this.batches.add(keys);
+            List<String> values = new ArrayList<>();
+            for (String key : keys) {
+                values.add(key.toUpperCase());
+            }
+            return values;
+        }, key -> {
+            this.singles.add(key);
+            return key.toUpperCase();
+        }, value -> value.toLowerCase(), key -> key);
+    }
+
+    private LookupBatcher<String, String> newBatcher(
+                                          int batchSize, long window,
+                                          Function<List<String>,
+                                                   List<String>> loader) {
+        return new LookupBatcher<>("test", batchSize, window, 2, keys -> {
+            this.batches.add(keys);
+            return loader.apply(keys);
+        }, key -> {
+            this.singles.add(key);
+            if (key.equals("missing")) {
+                throw new IllegalArgumentException("Not found " + key);
+            }
+            return key.toUpperCase();
+        }, value -> value.toLowerCase(), key -> key);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.PageStream;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+
+public class PageStreamTest extends BaseUnitTest {
+
+    private static final String VERTICES = "{\"vertices\": [" +
+            "{\"id\": \"1:marko\", \"label\": \"person\", \"type\": " +
+            "\"vertex\", \"properties\": {\"name\": \"marko\", \"age\": 29}}," +
+            "{\"id\": \"1:josh\", \"label\": \"person\", \"type\": " +
+            "\"vertex\", \"properties\": {\"name\": \"josh\", \"age\": 32}}" +
+            "]%s}";
+
+    @Test
+    public void testIterateVertices() {
+        String json = String.format(VERTICES, ", \"page\": \"next-page\"");
+        PageStream<Vertex> page = new PageStream<>(json, "vertices",
+                                                   Vertex.class);
+        Iterator<Vertex> iter = page.iterator();
+        Assert.assertTrue(iter.hasNext());
+        Vertex vertex = iter.next();
+        Assert.assertEquals("1:marko", vertex.id());
+        Assert.assertEquals("person", vertex.label());
+        Assert.assertEquals(29, vertex.property("age"));
+        Assert.assertTrue(iter.hasNext());
+        Assert.assertEquals("1:josh", iter.next().id());
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertEquals("next-page", page.page());
+    }
+
+    @Test
+    public void testPageBeforeElements() {
+        String json = "{\"page\": \"next-page\", \"edges\": [{\"id\": " +
+                      "\"S1:marko>1>>S1:josh\", \"label\": \"knows\", " +
+                      "\"type\": \"edge\", \"outV\": \"1:marko\", " +
+                      "\"inV\": \"1:josh\", \"properties\": {}}]}";
+        PageStream<Edge> page = new PageStream<>(json, "edges", Edge.class);
+        Iterator<Edge> iter = page.iterator();
+        Assert.assertEquals("S1:marko>1>>S1:josh", iter.next().id());
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertEquals("next-page", page.page());
+    }
+
+    @Test
+    public void testNullPageAndEmptyElements() {
+        String json = String.format(VERTICES, ", \"page\": null");
+        PageStream<Vertex> page = new PageStream<>(json, "vertices",
+                                                   Vertex.class);
+        Assert.assertNull(page.page());
+        Assert.assertEquals(2, page.results().size());
+
+        page = new PageStream<>("{\"vertices\": []}", "vertices",
+                                Vertex.class);
+        Assert.assertFalse(page.iterator().hasNext());
+        Assert.assertNull(page.page());
+    }
+
+    @Test
+    public void testResultsBeforeIterating() {
+        String json = String.format(VERTICES, "");
+        PageStream<Vertex> page = new PageStream<>(json, "vertices",
+                                                   Vertex.class);
+        List<Vertex> vertices = page.results();
+        Assert.assertEquals(2, vertices.size());
+        Assert.assertSame(vertices, page.results());
+
+        Iterator<Vertex> iter = page.iterator();
+        Assert.assertEquals("1:marko", iter.next().id());
+        Assert.assertEquals("1:josh", iter.next().id());
+        Assert.assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testResultsAfterPartiallyIterated() {
+        String json = String.format(VERTICES, ", \"page\": \"next-page\"");
+        PageStream<Vertex> page = new PageStream<>(json, "vertices",
+                                                   Vertex.class);
+        page.iterator().next();
+        Assert.assertThrows(IllegalStateException.class, () -> {
+            page.results();
+        });
+    }
+}
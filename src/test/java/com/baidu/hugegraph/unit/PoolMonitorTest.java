@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.client.PoolMonitor;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.structure.constant.BalancePolicy;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.google.common.collect.ImmutableList;
+
+public class PoolMonitorTest extends BaseUnitTest {
+
+    private static final HttpRoute ROUTE = new HttpRoute(
+                                           new HttpHost("127.0.0.1", 8080));
+
+    private PoolingHttpClientConnectionManager pool;
+    private PoolMonitor monitor;
+
+    @Before
+    public void setup() {
+        this.pool = new PoolingHttpClientConnectionManager();
+        this.pool.setMaxTotal(2);
+        this.pool.setDefaultMaxPerRoute(2);
+        this.monitor = null;
+    }
+
+    @After
+    public void teardown() {
+        if (this.monitor != null) {
+            this.monitor.close();
+        }
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void testGrowOnPending() throws Exception {
+        this.monitor = new PoolMonitor(this.pool, 30, 6);
+        Assert.assertTrue(this.monitor.adaptive());
+        HttpClientConnection conn1 = this.lease();
+        HttpClientConnection conn2 = this.lease();
+        // The third lease is pending until the pool grows
+        CompletableFuture<HttpClientConnection> pending =
+                CompletableFuture.supplyAsync(this::lease);
+        waitUntil(() -> this.pool.getMaxTotal() >= 3);
+        Assert.assertEquals(this.pool.getMaxTotal(),
+                            this.pool.getDefaultMaxPerRoute());
+        // The grown capacity is taken by the following leases
+        HttpClientConnection conn3 = this.lease();
+
+        Map<String, Object> metrics = this.monitor.metrics();
+        Assert.assertGte(1L, (long) metrics.get("grows"));
+        Assert.assertGte(1L, (long) metrics.get("pending_samples"));
+        Assert.assertEquals(1, metrics.get("max_pending"));
+
+        this.pool.releaseConnection(conn1, null, 0L, TimeUnit.SECONDS);
+        this.pool.releaseConnection(conn2, null, 0L, TimeUnit.SECONDS);
+        this.pool.releaseConnection(conn3, null, 0L, TimeUnit.SECONDS);
+        this.pool.releaseConnection(pending.get(5L, TimeUnit.SECONDS),
+                                    null, 0L, TimeUnit.SECONDS);
+        Assert.assertEquals(0, this.pool.getTotalStats().getLeased());
+    }
+
+    @Test
+    public void testNotAdaptive() throws Exception {
+        this.monitor = new PoolMonitor(this.pool, 30, 0);
+        Assert.assertFalse(this.monitor.adaptive());
+        this.lease();
+        this.lease();
+        CompletableFuture<HttpClientConnection> pending =
+                CompletableFuture.supplyAsync(this::lease);
+        waitUntil(() -> (long) this.monitor.metrics()
+                                          .get("pending_samples") > 0L);
+        Assert.assertEquals(2, this.pool.getMaxTotal());
+        Assert.assertEquals(2, this.monitor.stats().getLeased());
+        Assert.assertEquals(1, this.monitor.stats().getPending());
+        pending.cancel(true);
+    }
+
+    @Test
+    public void testInvalidArgs() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new PoolMonitor(this.pool, 0, 0);
+        });
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new PoolMonitor(this.pool, 30, 1);
+        });
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            HugeClient.builder("http://127.0.0.1:8080", "hugegraph")
+                      .configPool(8, 4).configAdaptivePool(4).build();
+        });
+    }
+
+    @Test
+    public void testClientPoolMetrics() {
+        try (StubServer server = new StubServer().start();
+             HugeClient client = HugeClient.builder(server.url(), "hugegraph")
+                                           .configPool(4, 2)
+                                           .configAdaptivePool(8)
+                                           .build()) {
+            Map<String, Object> metrics = client.metrics().pool();
+            Assert.assertEquals(4, metrics.get("max"));
+            Assert.assertEquals(2, metrics.get("max_per_route"));
+            Assert.assertEquals(true, metrics.get("adaptive"));
+        }
+    }
+
+    @Test
+    public void testNodePoolMetrics() {
+        try (StubServer server1 = new StubServer().start();
+             StubServer server2 = new StubServer().start();
+             HugeClient client = HugeClient.builder(server1.url(), "hugegraph")
+                                           .configPool(4, 2)
+                                           .configBalance(
+                                                BalancePolicy.ROUND_ROBIN,
+                                                ImmutableList.of(server2.url()),
+                                                1)
+                                           .build()) {
+            Map<String, Map<String, Object>> pools = client.metrics().pools();
+            Assert.assertEquals(2, pools.size());
+            Assert.assertEquals(4, pools.get(server1.url()).get("max"));
+            Assert.assertEquals(4, pools.get(server2.url()).get("max"));
+        }
+    }
+
+    @Test
+    public void testSharedScheduler() throws InterruptedException {
+        ScheduledExecutorService scheduler =
+                                 Executors.newSingleThreadScheduledExecutor();
+        PoolingHttpClientConnectionManager other;
+        other = new PoolingHttpClientConnectionManager();
+        try {
+            this.monitor = new PoolMonitor(this.pool, 30, 0, scheduler);
+            PoolMonitor monitor = new PoolMonitor(other, 30, 0, scheduler);
+            waitUntil(() -> {
+                return (long) this.monitor.metrics().get("samples") > 0L &&
+                       (long) monitor.metrics().get("samples") > 0L;
+            });
+
+            // The shared scheduler is owned by the caller
+            monitor.close();
+            Assert.assertFalse(scheduler.isShutdown());
+            long samples = (long) monitor.metrics().get("samples");
+            long current = (long) this.monitor.metrics().get("samples");
+            waitUntil(() -> (long) this.monitor.metrics()
+                                              .get("samples") > current);
+            Assert.assertEquals(samples, monitor.metrics().get("samples"));
+        } finally {
+            scheduler.shutdownNow();
+            other.shutdown();
+        }
+    }
+
+    private HttpClientConnection lease() {
+        try {
+            return this.pool.requestConnection(ROUTE, null)
+                            .get(10L, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition)
+                                  throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50L);
+        }
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+}
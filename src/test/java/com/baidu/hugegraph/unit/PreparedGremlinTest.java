@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.GremlinManager;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.driver.PreparedGremlin;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.testutil.StubServer.Reply;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class PreparedGremlinTest extends BaseUnitTest {
+
+    private StubServer server;
+    private HugeClient client;
+    private List<Map<String, Object>> requests;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.client = HugeClient.builder(this.server.url(), "hugegraph")
+                                .build();
+        this.requests = new ArrayList<>();
+        this.server.stub("POST", "gremlin", request -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> body = JsonUtil.fromJson(request.body(),
+                                                         Map.class);
+            this.requests.add(body);
+            Object data = body.containsKey("bindings") ?
+                          ImmutableList.of(body.get("bindings")) :
+                          ImmutableList.of();
+            return Reply.ok(ImmutableMap.of(
+                   "requestId", "stub-request",
+                   "status", ImmutableMap.of("code", 200),
+                   "result", ImmutableMap.of("data", data,
+                                             "meta", ImmutableMap.of())));
+        });
+    }
+
+    @After
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testExecuteWithBindings() {
+        GremlinManager gremlin = this.client.gremlin();
+        PreparedGremlin prepared = gremlin.prepare("g.V(id).has('age', age)");
+        for (int i = 0; i < 3; i++) {
+            ResultSet results = prepared.execute(ImmutableMap.of(
+                                "id", "1:v-" + i, "age", i));
+            Assert.assertEquals(ImmutableList.of(ImmutableMap.of(
+                                "id", "1:v-" + i, "age", i)),
+                                results.data());
+        }
+        Assert.assertEquals(3L, prepared.executions());
+        Assert.assertEquals(3, this.requests.size());
+
+        Map<String, Object> request = this.requests.get(2);
+        Assert.assertEquals("g.V(id).has('age', age)",
+                            request.get("gremlin"));
+        Assert.assertEquals("gremlin-groovy", request.get("language"));
+        Assert.assertEquals(ImmutableMap.of("graph", "hugegraph",
+                                            "g", "__g_hugegraph"),
+                            request.get("aliases"));
+    }
+
+    @Test
+    public void testExecuteWithoutBindings() {
+        PreparedGremlin prepared = this.client.gremlin().prepare("g.V()");
+        Assert.assertEquals(0, prepared.execute().size());
+        Assert.assertEquals(0, prepared.execute(ImmutableMap.of()).size());
+        Assert.assertFalse(this.requests.get(0).containsKey("bindings"));
+        Assert.assertEquals("g.V()", this.requests.get(1).get("gremlin"));
+    }
+
+    @Test
+    public void testReusePrepared() {
+        GremlinManager gremlin = this.client.gremlin();
+        PreparedGremlin prepared = gremlin.prepare("g.V(id)");
+        Assert.assertSame(prepared, gremlin.prepare("g.V(id)"));
+        Assert.assertSame(prepared, gremlin.prepare("g.V(id)"));
+        Assert.assertNotSame(prepared, gremlin.prepare("g.E(id)"));
+        Assert.assertEquals(2L, gremlin.preparedStats().hitCount());
+        Assert.assertEquals(2L, gremlin.preparedStats().missCount());
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            gremlin.prepare("");
+        });
+    }
+
+    @Test
+    public void testPrepareConcurrently() throws Exception {
+        GremlinManager gremlin = this.client.gremlin();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PreparedGremlin>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> {
+                    return gremlin.prepare("g.V(id).out()");
+                }));
+            }
+            PreparedGremlin prepared = futures.get(0).get();
+            for (Future<PreparedGremlin> future : futures) {
+                Assert.assertSame(prepared, future.get());
+            }
+            // Prepared once although requested concurrently
+            Assert.assertEquals(1L, gremlin.preparedStats().missCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.client.RequestLimiter;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.driver.HugeClientBuilder;
+import com.baidu.hugegraph.structure.constant.ApiFamily;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.google.common.collect.ImmutableList;
+
+public class RequestLimiterTest extends BaseUnitTest {
+
+    private static final String VERTICES = "graphs/hugegraph/graph/vertices";
+    private static final String EDGES = "graphs/hugegraph/graph/edges";
+    private static final String KOUT = "graphs/hugegraph/traversers/kout";
+    private static final String LOOKUP =
+                                "graphs/hugegraph/traversers/vertices";
+
+    private StubServer server;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start().vertices(10);
+    }
+
+    @After
+    public void teardown() {
+        this.server.close();
+    }
+
+    @Test
+    public void testFamily() {
+        Assert.assertEquals(ApiFamily.GRAPH_READ,
+                            RequestLimiter.family("GET", VERTICES));
+        Assert.assertEquals(ApiFamily.GRAPH_WRITE,
+                            RequestLimiter.family("POST", EDGES + "/batch"));
+        Assert.assertEquals(ApiFamily.GRAPH_WRITE,
+                            RequestLimiter.family("DELETE", VERTICES));
+        Assert.assertEquals(ApiFamily.TRAVERSER,
+                            RequestLimiter.family("GET", KOUT));
+        // The lookups by ids are point reads, the scans are traversers
+        Assert.assertEquals(ApiFamily.GRAPH_READ,
+                            RequestLimiter.family("GET", LOOKUP));
+        Assert.assertEquals(ApiFamily.TRAVERSER,
+                            RequestLimiter.family("GET", LOOKUP + "/scan"));
+        Assert.assertEquals(ApiFamily.SCHEMA, RequestLimiter.family(
+                            "GET", "graphs/hugegraph/schema/propertykeys"));
+        Assert.assertEquals(ApiFamily.GREMLIN,
+                            RequestLimiter.family("POST", "gremlin"));
+        Assert.assertEquals(ApiFamily.GREMLIN, RequestLimiter.family(
+                            "POST", "graphs/hugegraph/jobs/gremlin"));
+        Assert.assertEquals(ApiFamily.OTHER, RequestLimiter.family(
+                            "GET", "graphs/hugegraph/tasks"));
+        Assert.assertEquals(ApiFamily.OTHER,
+                            RequestLimiter.family("GET", "versions"));
+
+        Assert.assertTrue(RequestLimiter.bulk(ApiFamily.GRAPH_WRITE,
+                                              EDGES + "/batch"));
+        Assert.assertFalse(RequestLimiter.bulk(ApiFamily.GRAPH_WRITE,
+                                               EDGES));
+        Assert.assertTrue(RequestLimiter.bulk(ApiFamily.TRAVERSER, KOUT));
+        Assert.assertFalse(RequestLimiter.bulk(ApiFamily.GRAPH_READ,
+                                               VERTICES));
+        Assert.assertFalse(RequestLimiter.bulk(ApiFamily.GRAPH_READ,
+                                               LOOKUP));
+    }
+
+    @Test
+    public void testMaxInFlight() throws InterruptedException {
+        this.server.latency(50L);
+        try (HugeClient client = HugeClient.builder(this.server.url(),
+                                                    "hugegraph")
+                                           .configRequestLimit(
+                                            ApiFamily.GRAPH_READ, 0D, 2)
+                                           .build()) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                Thread thread = new Thread(() -> {
+                    for (int j = 0; j < 3; j++) {
+                        client.graph().getVertex("1:v-1");
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertEquals(2, this.server.maxConcurrency());
+
+            Map<String, Object> limit = client.metrics().limits()
+                                              .get("graph_read");
+            Assert.assertEquals(2, limit.get("max_in_flight"));
+            Assert.assertEquals(0, limit.get("in_flight"));
+            Assert.assertGt(0L, (long) limit.get("throttled"));
+        }
+    }
+
+    @Test
+    public void testRateLimit() {
+        try (HugeClient client = HugeClient.builder(this.server.url(),
+                                                    "hugegraph")
+                                           .configRequestLimit(
+                                            ApiFamily.GRAPH_READ, 20D, 0)
+                                           .build()) {
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < 11; i++) {
+                client.graph().getVertex("1:v-1");
+            }
+            // The first one is permitted immediately
+            Assert.assertGte(450L, System.currentTimeMillis() - start);
+        }
+    }
+
+    @Test
+    public void testInteractiveBeforeBulk() throws InterruptedException {
+        RequestLimiter limiter = new RequestLimiter();
+        limiter.limit(ApiFamily.GRAPH_WRITE, 0D, 1);
+        RequestLimiter.Permit permit = limiter.acquire("POST", EDGES);
+
+        List<String> order = new ArrayList<>();
+        Thread bulk = new Thread(() -> {
+            limiter.acquire("POST", EDGES + "/batch").release();
+            synchronized (order) {
+                order.add("bulk");
+            }
+        });
+        bulk.start();
+        this.waitForWaiting(limiter, "graph_write", 1);
+        Thread interactive = new Thread(() -> {
+            RequestLimiter.Permit p = limiter.acquire("POST", VERTICES);
+            synchronized (order) {
+                order.add("interactive");
+            }
+            p.release();
+        });
+        interactive.start();
+        this.waitForWaiting(limiter, "graph_write", 2);
+
+        permit.release();
+        bulk.join();
+        interactive.join();
+        Assert.assertEquals(ImmutableList.of("interactive", "bulk"), order);
+    }
+
+    @Test
+    public void testBulkLimit() throws InterruptedException {
+        RequestLimiter limiter = new RequestLimiter();
+        limiter.limitBulk(1);
+        RequestLimiter.Permit permit = limiter.acquire("POST",
+                                                       EDGES + "/batch");
+        // The interactive requests are not limited
+        limiter.acquire("GET", VERTICES).release();
+        limiter.acquire("POST", EDGES).release();
+
+        Thread traverser = new Thread(() -> {
+            limiter.acquire("GET", KOUT).release();
+        });
+        traverser.start();
+        this.waitForWaiting(limiter, "bulk", 1);
+        Assert.assertTrue(traverser.isAlive());
+        permit.release();
+        traverser.join();
+        Assert.assertEquals(0, limiter.metrics().get("bulk")
+                                      .get("in_flight"));
+    }
+
+    @Test
+    public void testBatchedLookupNotBulk() throws Exception {
+        HugeClientBuilder builder = HugeClient.builder(this.server.url(),
+                                                       "hugegraph")
+                                              .configBulkLimit(1)
+                                              .configLookupBatch(10, 200);
+        try (HugeClient client = builder.build()) {
+            // A traversal holds the only bulk request in flight
+            RequestLimiter.Permit permit = builder.requestLimiter()
+                                                  .acquire("GET", KOUT);
+            try {
+                long requests = this.server.requests();
+                CompletableFuture<Vertex> vertex1 = CompletableFuture
+                        .supplyAsync(() -> client.graph().getVertex("1:v-1"));
+                CompletableFuture<Vertex> vertex2 = CompletableFuture
+                        .supplyAsync(() -> client.graph().getVertex("1:v-2"));
+                // The batched lookups don't queue behind the traversal
+                Assert.assertEquals("1:v-1",
+                                    vertex1.get(5L, TimeUnit.SECONDS).id());
+                Assert.assertEquals("1:v-2",
+                                    vertex2.get(5L, TimeUnit.SECONDS).id());
+                Assert.assertEquals(1L, this.server.requests() - requests);
+            } finally {
+                permit.release();
+            }
+        }
+    }
+
+    private void waitForWaiting(RequestLimiter limiter, String limit,
+                                int waiting) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (limiter.metrics().get(limit).get("waiting")
+                       .equals(waiting)) {
+                return;
+            }
+            Thread.sleep(10L);
+        }
+        Assert.fail("Expect " + waiting + " requests waiting");
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.client.RequestMetrics;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class RequestMetricsTest extends BaseUnitTest {
+
+    private static final String VERTICES = "graphs/{graph}/graph/vertices";
+
+    private StubServer server;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.server.vertices(10);
+    }
+
+    @After
+    public void teardown() {
+        this.server.close();
+    }
+
+    @Test
+    public void testPathTemplate() {
+        RequestMetrics metrics = new RequestMetrics();
+        Assert.assertSame(metrics.endpoint("GET", "versions"),
+                          metrics.endpoint("GET", "versions"));
+        Assert.assertSame(metrics.endpoint("GET", "graphs/a/tasks/12"),
+                          metrics.endpoint("GET", "graphs/b/tasks/13"));
+        Assert.assertNotSame(metrics.endpoint("GET", "graphs/a/tasks"),
+                             metrics.endpoint("DELETE", "graphs/a/tasks"));
+        Assert.assertEquals(4, metrics.snapshot().size());
+        Assert.assertTrue(metrics.snapshot().containsKey(
+                          "GET graphs/{graph}/tasks/{id}"));
+    }
+
+    @Test
+    public void testRecordRequests() {
+        try (HugeClient client = this.client(true)) {
+            for (int i = 0; i < 5; i++) {
+                client.graph().getVertex("1:v-" + i);
+            }
+            Assert.assertThrows(ServerException.class, () -> {
+                client.graph().getVertex("1:v-99");
+            });
+            Vertex vertex = new Vertex("person");
+            vertex.property("name", "marko");
+            client.graph().addVertex(vertex);
+
+            Map<String, Map<String, Object>> metrics = client.metrics()
+                                                             .client();
+            Map<String, Object> get = metrics.get("GET " + VERTICES);
+            Assert.assertEquals(6L, get.get("requests"));
+            Assert.assertEquals(1L, get.get("errors"));
+            Assert.assertEquals(ImmutableMap.of(404, 1L),
+                                get.get("errors_by_status"));
+            Assert.assertEquals(0L, get.get("in_flight"));
+            Assert.assertEquals(0L, get.get("request_bytes"));
+            Assert.assertGt(0L, (long) get.get("response_bytes"));
+            @SuppressWarnings("unchecked")
+            Map<String, Long> histogram = (Map<String, Long>)
+                                          get.get("histogram");
+            Assert.assertEquals(6L, histogram.values().stream()
+                                             .mapToLong(Long::longValue)
+                                             .sum());
+            // Counted once although the overloads call each other
+            Assert.assertEquals(1L, metrics.get("POST " + VERTICES)
+                                           .get("requests"));
+        }
+    }
+
+    @Test
+    public void testRecordBytes() {
+        try (HugeClient client = this.client(true)) {
+            Vertex vertex = new Vertex("person");
+            vertex.id("1:v-1");
+            vertex.property("name", "\u4e2d\u6587");
+            client.graph().addVertices(ImmutableList.of(vertex));
+
+            Map<String, Object> batch = client.metrics().client()
+                                              .get("POST " + VERTICES +
+                                                   "/batch");
+            // The streamed json is counted in bytes, 3 bytes per char
+            String json = JsonUtil.toJson(ImmutableList.of(vertex));
+            Assert.assertEquals(json.length() + 4L,
+                                batch.get("request_bytes"));
+            Assert.assertEquals("[\"1:v-1\"]".length() + 0L,
+                                batch.get("response_bytes"));
+
+            // The entity serialized by the client is counted too
+            client.graph().addVertex(vertex);
+            Map<String, Object> post = client.metrics().client()
+                                             .get("POST " + VERTICES);
+            byte[] bytes = JsonUtil.toJson(vertex)
+                                   .getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals((long) bytes.length,
+                                post.get("request_bytes"));
+            Assert.assertGt(0L, (long) post.get("response_bytes"));
+
+            client.gremlin().gremlin("g.V()").execute();
+            Map<String, Object> gremlin = client.metrics().client()
+                                                .get("POST gremlin");
+            Assert.assertGt(0L, (long) gremlin.get("request_bytes"));
+            Assert.assertGt(0L, (long) gremlin.get("response_bytes"));
+        }
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        this.server.latency(30L);
+        try (HugeClient client = this.client(true)) {
+            client.graph().getVertex("1:v-1");
+            Map<String, Object> get = client.metrics().client()
+                                            .get("GET " + VERTICES);
+            Assert.assertGte(30L, (long) get.get("max_ms"));
+            Assert.assertGte(30L, (long) get.get("p99_ms"));
+            Assert.assertEquals(get.get("p50_ms"), get.get("p99_ms"));
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        try (HugeClient client = this.client(false)) {
+            client.graph().getVertex("1:v-1");
+            Assert.assertTrue(client.metrics().client().isEmpty());
+        }
+    }
+
+    @Test
+    public void testReporter() throws Exception {
+        CompletableFuture<Map<String, Map<String, Object>>> reported =
+                new CompletableFuture<>();
+        try (HugeClient client = HugeClient.builder(this.server.url(),
+                                                    "hugegraph")
+                                           .configRequestMetrics(false)
+                                           .configMetricsReporter(
+                                            reported::complete, 1)
+                                           .build()) {
+            client.graph().getVertex("1:v-1");
+            Map<String, Map<String, Object>> metrics =
+                    reported.get(5L, TimeUnit.SECONDS);
+            Assert.assertTrue(metrics.containsKey("GET versions"));
+        }
+    }
+
+    private HugeClient client(boolean metrics) {
+        return HugeClient.builder(this.server.url(), "hugegraph")
+                         .configRequestMetrics(metrics)
+                         .build();
+    }
+}
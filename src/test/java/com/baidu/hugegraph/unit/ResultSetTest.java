@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.baidu.hugegraph.driver.GraphManager;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Path;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.gremlin.Result;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableList;
+
+public class ResultSetTest extends BaseUnitTest {
+
+    private static final String VERTEX = "{\"id\": \"1:marko\", " +
+            "\"label\": \"person\", \"type\": \"vertex\", " +
+            "\"properties\": {\"name\": \"marko\", \"age\": 29}}";
+    private static final String EDGE = "{\"properties\": {\"weight\": " +
+            "0.5}, \"id\": \"S1:marko>1>>S1:josh\", \"label\": \"knows\", " +
+            "\"type\": \"edge\", \"outV\": \"1:marko\", \"inV\": \"1:josh\"}";
+    private static final String PATH = "{\"labels\": [[], []], " +
+            "\"objects\": [" + VERTEX + ", \"1:josh\"]}";
+
+    private static ResultSet resultSet(String... data) {
+        String json = "{\"data\": [" + String.join(", ", data) +
+                      "], \"meta\": {}}";
+        return JsonUtil.fromJson(json, ResultSet.class);
+    }
+
+    @Test
+    public void testGetTypedResults() {
+        ResultSet results = resultSet(VERTEX, EDGE, PATH, "1", "\"str\"",
+                                      "{\"type\": \"other\", \"k\": 1}",
+                                      "[1, 2]", "null");
+        Assert.assertEquals(8, results.size());
+
+        Vertex vertex = results.get(0).getVertex();
+        Assert.assertEquals("1:marko", vertex.id());
+        Assert.assertEquals(29, vertex.property("age"));
+
+        Edge edge = results.get(1).getEdge();
+        Assert.assertEquals("S1:marko>1>>S1:josh", edge.id());
+        Assert.assertEquals("1:josh", edge.targetId());
+
+        Path path = results.get(2).getPath();
+        Assert.assertEquals(2, path.objects().size());
+        Assert.assertEquals(Vertex.class, path.objects().get(0).getClass());
+
+        Assert.assertEquals(1, results.get(3).getObject());
+        Assert.assertEquals("str", results.get(4).getObject());
+        Assert.assertTrue(results.get(5).getObject() instanceof Map);
+        Assert.assertEquals(ImmutableList.of(1, 2),
+                            results.get(6).getObject());
+        Assert.assertNull(results.get(7));
+        Assert.assertNull(results.get(8));
+    }
+
+    @Test
+    public void testGetNewResults() {
+        ResultSet results = resultSet(VERTEX, EDGE);
+        Vertex vertex = results.get(0).getVertex();
+        vertex.property("age", 30);
+        // Each get returns a new object not affected by the others
+        Assert.assertNotSame(vertex, results.get(0).getVertex());
+        Assert.assertEquals(29, results.get(0).getVertex().property("age"));
+        Assert.assertEquals(results.get(1).getEdge().id(),
+                            results.get(1).getEdge().id());
+    }
+
+    @Test
+    public void testSerialize() {
+        ResultSet results = resultSet(VERTEX, "1", "null");
+        String json = JsonUtil.toJson(results);
+        ResultSet copy = JsonUtil.fromJson(json, ResultSet.class);
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals("1:marko", copy.get(0).getVertex().id());
+        Assert.assertEquals(1, copy.get(1).getObject());
+        Assert.assertNull(copy.get(2));
+
+        // The changes of the raw data are serialized
+        results.data().set(1, 2);
+        copy = JsonUtil.fromJson(JsonUtil.toJson(results), ResultSet.class);
+        Assert.assertEquals(2, copy.get(1).getObject());
+    }
+
+    @Test
+    public void testRawData() {
+        ResultSet results = resultSet(VERTEX, "1");
+        Assert.assertEquals(2, results.data().size());
+        Assert.assertSame(results.data(), results.data());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) results.data().get(0);
+        Assert.assertEquals("vertex", map.get("type"));
+        Assert.assertEquals(1, results.data().get(1));
+        // The raw data and the typed results are independent
+        Assert.assertEquals("1:marko", results.get(0).getVertex().id());
+    }
+
+    @Test
+    public void testIterator() {
+        ResultSet results = resultSet(VERTEX, EDGE);
+        Assert.assertThrows(IllegalStateException.class, () -> {
+            results.iterator();
+        });
+
+        results.graphManager(Mockito.mock(GraphManager.class));
+        Iterator<Result> iter = results.iterator();
+        Assert.assertEquals("1:marko", iter.next().getVertex().id());
+        Assert.assertEquals("S1:marko>1>>S1:josh", iter.next().getEdge().id());
+        Assert.assertFalse(iter.hasNext());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.structure.gremlin.ResultStream;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.testutil.StubServer.Reply;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableMap;
+
+public class ResultStreamTest extends BaseUnitTest {
+
+    private StubServer server;
+    private HugeClient client;
+    private List<Map<String, Object>> requests;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.client = HugeClient.builder(this.server.url(), "hugegraph")
+                                .build();
+        this.requests = new ArrayList<>();
+    }
+
+    @After
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    private void results(int total) {
+        this.server.stub("POST", "gremlin", request -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> body = JsonUtil.fromJson(request.body(),
+                                                         Map.class);
+            this.requests.add(body);
+            @SuppressWarnings("unchecked")
+            Map<String, Number> bindings = (Map<String, Number>)
+                                           body.get("bindings");
+            long offset = bindings.get("__page_offset").longValue();
+            long limit = bindings.get("__page_limit").longValue();
+            List<Object> data = new ArrayList<>();
+            for (long i = offset; i < Math.min(offset + limit, total); i++) {
+                data.add(i);
+            }
+            return Reply.ok(ImmutableMap.of(
+                   "requestId", "stub-request",
+                   "status", ImmutableMap.of("code", 200),
+                   "result", ImmutableMap.of("data", data,
+                                             "meta", ImmutableMap.of())));
+        });
+    }
+
+    @Test
+    public void testStreamPages() {
+        this.results(25);
+        ResultStream stream = this.client.gremlin().gremlin("g.V()")
+                                  .binding("name", "marko").stream(10);
+        Assert.assertTrue(this.requests.isEmpty());
+        long count = 0L;
+        while (stream.hasNext()) {
+            Assert.assertEquals(count++, stream.next().getLong());
+        }
+        Assert.assertEquals(25L, count);
+        Assert.assertEquals(25L, stream.offset());
+        Assert.assertFalse(stream.hasNext());
+        Assert.assertEquals(3, this.requests.size());
+
+        Map<String, Object> request = this.requests.get(2);
+        String gremlin = (String) request.get("gremlin");
+        Assert.assertTrue(gremlin.startsWith(
+                          "def __page_result = { ->\ng.V()\n}.call()\n"));
+        Assert.assertContains("__page_result.range(__page_offset, " +
+                              "__page_offset + __page_limit)", gremlin);
+        Assert.assertContains("__page_result.drop(__page_offset as int)" +
+                              ".take(__page_limit as int)", gremlin);
+        Assert.assertEquals(ImmutableMap.of("name", "marko",
+                                            "__page_offset", 20,
+                                            "__page_limit", 10),
+                            request.get("bindings"));
+        @SuppressWarnings("unchecked")
+        Map<String, String> aliases = (Map<String, String>)
+                                      request.get("aliases");
+        Assert.assertEquals("__g_hugegraph", aliases.get("g"));
+    }
+
+    @Test
+    public void testStreamFullLastPage() {
+        this.results(20);
+        ResultStream stream = this.client.gremlin().gremlin("g.V()")
+                                  .stream(10);
+        long count = 0L;
+        while (stream.hasNext()) {
+            stream.next();
+            count++;
+        }
+        Assert.assertEquals(20L, count);
+        // The end is known by an empty page
+        Assert.assertEquals(3, this.requests.size());
+    }
+
+    @Test
+    public void testStreamEmpty() {
+        this.results(0);
+        ResultStream stream = this.client.gremlin().gremlin("g.V()").stream();
+        Assert.assertFalse(stream.hasNext());
+        Assert.assertEquals(1, this.requests.size());
+        @SuppressWarnings("unchecked")
+        Map<String, Number> bindings = (Map<String, Number>)
+                                       this.requests.get(0).get("bindings");
+        Assert.assertEquals(500, bindings.get("__page_limit"));
+    }
+
+    @Test
+    public void testStreamWithInvalidArgs() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            this.client.gremlin().gremlin("g.V()").stream(0);
+        });
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            this.client.gremlin().gremlin("1 + 1").language("gremlin-java")
+                       .stream();
+        });
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            this.client.gremlin().gremlin("g.V()")
+                       .binding("__page_offset", 1).stream();
+        });
+    }
+
+    @Test
+    public void testStreamMutatingGremlin() {
+        String[] gremlins = {
+            "g.addV('person').property('name', 'marko')",
+            "g.V().hasLabel('person').drop()",
+            "g.V().property('age', 1)",
+            "g.V().property(list, 'city', 'Beijing')",
+            "g.V().next().remove()",
+            "graph.addVertex(T.label, 'person')",
+            "graph.schema().propertyKey('name').asText().create()"
+        };
+        for (String gremlin : gremlins) {
+            Assert.assertThrows(IllegalArgumentException.class, () -> {
+                this.client.gremlin().gremlin(gremlin).stream();
+            }, e -> {
+                Assert.assertContains("Only read-only gremlin",
+                                      e.getMessage());
+            });
+        }
+        Assert.assertTrue(this.requests.isEmpty());
+
+        String[] reads = {
+            "g.V().has('name', 'drop').values('age')",
+            "g.V().order().by(id).next().property('name').value()",
+            "v = g.V().order().by(id).next(); v.property('age')",
+            "[1, 2, 3].drop(1)"
+        };
+        this.results(1);
+        for (String gremlin : reads) {
+            ResultStream stream = this.client.gremlin().gremlin(gremlin)
+                                      .stream();
+            Assert.assertTrue(stream.hasNext());
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.Map;
+
+import javax.ws.rs.ProcessingException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.client.CircuitBreaker;
+import com.baidu.hugegraph.client.RetryPolicy;
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.serializer.StreamingJsonOutput;
+import com.baidu.hugegraph.structure.graph.BatchEdgeRequest;
+import com.baidu.hugegraph.structure.graph.BatchVertexRequest;
+import com.baidu.hugegraph.structure.graph.UpdateStrategy;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.testutil.StubServer.Reply;
+import com.baidu.hugegraph.testutil.Utils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class RetryPolicyTest extends BaseUnitTest {
+
+    private StubServer server;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start().vertices(10);
+    }
+
+    @After
+    public void teardown() {
+        this.server.close();
+    }
+
+    @Test
+    public void testIdempotent() {
+        String vertices = "graphs/hugegraph/graph/vertices";
+        Assert.assertTrue(RetryPolicy.idempotent("GET", vertices, false));
+        Assert.assertTrue(RetryPolicy.idempotent("PUT", vertices + "/1:v",
+                                                 false));
+        Assert.assertFalse(RetryPolicy.idempotent("PUT", vertices + "/1:v",
+                                                  true));
+        Assert.assertTrue(RetryPolicy.idempotent("DELETE", vertices, false));
+        // The schema is deleted by a task
+        Assert.assertFalse(RetryPolicy.idempotent(
+                           "DELETE", "graphs/hugegraph/schema/vertexlabels",
+                           false));
+        Assert.assertTrue(RetryPolicy.idempotent(
+                          "POST", "graphs/hugegraph/traversers/kout", false));
+        Assert.assertFalse(RetryPolicy.idempotent("POST", vertices, false));
+        Assert.assertFalse(RetryPolicy.idempotent("POST",
+                                                  vertices + "/batch",
+                                                  false));
+    }
+
+    @Test
+    public void testAccumulative() {
+        Assert.assertTrue(RetryPolicy.accumulative(
+                          null, ImmutableMap.of("action", "append")));
+        Assert.assertFalse(RetryPolicy.accumulative(
+                           null, ImmutableMap.of("action", "eliminate")));
+        Assert.assertFalse(RetryPolicy.accumulative(new Vertex("person"),
+                                                    null));
+
+        Assert.assertTrue(RetryPolicy.accumulative(
+                          this.update(UpdateStrategy.SUM), null));
+        Assert.assertTrue(RetryPolicy.accumulative(new StreamingJsonOutput(
+                          this.update(UpdateStrategy.APPEND)), null));
+        Assert.assertFalse(RetryPolicy.accumulative(new StreamingJsonOutput(
+                           this.update(UpdateStrategy.OVERRIDE)), null));
+        BatchEdgeRequest edges = new BatchEdgeRequest.Builder()
+                                 .edges(ImmutableList.of())
+                                 .updatingStrategies(ImmutableMap.of(
+                                  "weight", UpdateStrategy.SUM))
+                                 .createIfNotExist(true)
+                                 .build();
+        Assert.assertTrue(RetryPolicy.accumulative(edges, null));
+    }
+
+    @Test
+    public void testFailure() {
+        ServerException error = new ServerException("busy");
+        error.status(503);
+        Assert.assertTrue(RetryPolicy.failure(error));
+        error.status(429);
+        Assert.assertTrue(RetryPolicy.failure(error));
+        error.status(422);
+        Assert.assertFalse(RetryPolicy.failure(error));
+        Assert.assertTrue(RetryPolicy.failure(
+                          new ProcessingException("timeout")));
+        // Raised by the client before sent
+        Assert.assertFalse(RetryPolicy.failure(
+                           new ClientException("invalid")));
+    }
+
+    @Test
+    public void testBackoff() {
+        RetryPolicy policy = new RetryPolicy(3, 10L, 100L);
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.backoff(0);
+            Assert.assertTrue(delay >= 0L && delay <= 10L);
+            delay = policy.backoff(10);
+            Assert.assertTrue(delay >= 0L && delay <= 100L);
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new RetryPolicy(3, 100L, 10L);
+        });
+    }
+
+    @Test
+    public void testRetryBudget() {
+        RetryPolicy policy = new RetryPolicy(3, 1L, 1L);
+        ServerException error = new ServerException("busy");
+        error.status(503);
+        int retries = 0;
+        while (policy.retry("GET", "versions", false, error, 0)) {
+            retries++;
+        }
+        Assert.assertEquals(10, retries);
+
+        // Each request earns a tenth of a retry
+        for (int i = 0; i < 10; i++) {
+            policy.deposit();
+        }
+        Assert.assertTrue(policy.retry("GET", "versions", false, error, 0));
+        Assert.assertFalse(policy.retry("GET", "versions", false, error, 0));
+    }
+
+    @Test
+    public void testRetryIdempotentRequest() {
+        try (HugeClient client = this.client(3)) {
+            this.server.failNext(2, 503);
+            long requests = this.server.requests();
+            Assert.assertEquals("1:v-1",
+                                client.graph().getVertex("1:v-1").id());
+            Assert.assertEquals(3L, this.server.requests() - requests);
+
+            this.server.failNext(5, 503);
+            requests = this.server.requests();
+            Utils.assertResponseError(503, () -> {
+                client.graph().getVertex("1:v-1");
+            });
+            Assert.assertEquals(4L, this.server.requests() - requests);
+        }
+    }
+
+    @Test
+    public void testNotRetryNonIdempotentRequest() {
+        try (HugeClient client = this.client(3)) {
+            this.server.failNext(1, 503);
+            long requests = this.server.requests();
+            Utils.assertResponseError(503, () -> {
+                client.graph().addVertex(new Vertex("person"));
+            });
+            Assert.assertEquals(1L, this.server.requests() - requests);
+        }
+    }
+
+    @Test
+    public void testNotRetrySchemaDeletion() {
+        try (HugeClient client = this.client(3)) {
+            this.server.failNext(1, 502);
+            long requests = this.server.requests();
+            Utils.assertResponseError(502, () -> {
+                client.schema().removeVertexLabelAsync("person");
+            });
+            Assert.assertEquals(1L, this.server.requests() - requests);
+        }
+    }
+
+    @Test
+    public void testRetryAccumulativeUpdate() {
+        this.server.stub("PUT", "graphs/hugegraph/graph/vertices/batch",
+                         request -> Reply.ok(ImmutableMap.of(
+                                    "vertices", ImmutableList.of())));
+        try (HugeClient client = this.client(3)) {
+            BatchVertexRequest sum = this.update(UpdateStrategy.SUM);
+            // Not retried since it may be applied by the server
+            this.server.failNext(1, 502);
+            long requests = this.server.requests();
+            Utils.assertResponseError(502, () -> {
+                client.graph().updateVertices(sum);
+            });
+            Assert.assertEquals(1L, this.server.requests() - requests);
+
+            // Retried since it's rejected without applied
+            this.server.failNext(1, 503);
+            requests = this.server.requests();
+            client.graph().updateVertices(sum);
+            Assert.assertEquals(2L, this.server.requests() - requests);
+
+            BatchVertexRequest override = this.update(UpdateStrategy.OVERRIDE);
+            this.server.failNext(1, 502);
+            requests = this.server.requests();
+            client.graph().updateVertices(override);
+            Assert.assertEquals(2L, this.server.requests() - requests);
+        }
+    }
+
+    @Test
+    public void testNotRetryClientError() {
+        try (HugeClient client = this.client(3)) {
+            long requests = this.server.requests();
+            Utils.assertResponseError(404, () -> {
+                client.graph().getVertex("1:v-99");
+            });
+            Assert.assertEquals(1L, this.server.requests() - requests);
+        }
+    }
+
+    @Test
+    public void testCircuitBreaker() throws InterruptedException {
+        try (HugeClient client = HugeClient.builder(this.server.url(),
+                                                    "hugegraph")
+                                           .configCircuitBreaker(0.5D, 4, 1)
+                                           .build()) {
+            String endpoint = "GET graphs/{graph}/graph/vertices";
+            this.server.errorRate(1D, 500);
+            for (int i = 0; i < 4; i++) {
+                Utils.assertResponseError(500, () -> {
+                    client.graph().getVertex("1:v-1");
+                });
+            }
+            Map<String, CircuitBreaker.State> states;
+            states = client.metrics().breakers();
+            Assert.assertEquals(CircuitBreaker.State.OPEN,
+                                states.get(endpoint));
+
+            // The open endpoint is rejected without requesting the server
+            long requests = this.server.requests();
+            Assert.assertThrows(ClientException.class, () -> {
+                client.graph().getVertex("1:v-1");
+            }, e -> {
+                Assert.assertContains("circuit breaker", e.getMessage());
+            });
+            Assert.assertEquals(requests, this.server.requests());
+            // The other endpoints are not affected
+            Assert.assertEquals(CircuitBreaker.State.CLOSED,
+                                client.metrics().breakers()
+                                      .get("GET versions"));
+
+            this.server.errorRate(0D, 500);
+            Thread.sleep(1100L);
+            Assert.assertEquals("1:v-1",
+                                client.graph().getVertex("1:v-1").id());
+            Assert.assertEquals(CircuitBreaker.State.CLOSED,
+                                client.metrics().breakers().get(endpoint));
+        }
+    }
+
+    @Test
+    public void testCircuitBreakerTrial() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(0.5D, 2, 1);
+        String endpoint = "GET versions";
+        Assert.assertFalse(breaker.acquire(endpoint));
+        Assert.assertFalse(breaker.acquire(endpoint));
+        breaker.record(endpoint, false, true);
+        breaker.record(endpoint, false, true);
+        Assert.assertEquals(CircuitBreaker.State.OPEN,
+                            breaker.state(endpoint));
+
+        Thread.sleep(1100L);
+        Assert.assertTrue(breaker.acquire(endpoint));
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN,
+                            breaker.state(endpoint));
+        Assert.assertThrows(ClientException.class, () -> {
+            breaker.acquire(endpoint);
+        });
+        // The results of the other requests don't close it
+        breaker.record(endpoint, false, false);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN,
+                            breaker.state(endpoint));
+
+        // The trial not sent is given to the next request
+        breaker.cancel(endpoint, true);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN,
+                            breaker.state(endpoint));
+        Assert.assertTrue(breaker.acquire(endpoint));
+        breaker.record(endpoint, true, false);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED,
+                            breaker.state(endpoint));
+    }
+
+    private BatchVertexRequest update(UpdateStrategy strategy) {
+        Vertex vertex = new Vertex("person");
+        vertex.id("1:v-1");
+        vertex.property("age", 1);
+        return new BatchVertexRequest.Builder()
+                   .vertices(ImmutableList.of(vertex))
+                   .updatingStrategies(ImmutableMap.of("age", strategy))
+                   .createIfNotExist(true)
+                   .build();
+    }
+
+    private HugeClient client(int maxRetries) {
+        return HugeClient.builder(this.server.url(), "hugegraph")
+                         .configRetry(maxRetries, 1, 10)
+                         .build();
+    }
+}
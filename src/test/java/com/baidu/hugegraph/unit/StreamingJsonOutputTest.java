@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.api.graph.VertexAPI;
+import com.baidu.hugegraph.client.RestClient;
+import com.baidu.hugegraph.serializer.StreamingJsonOutput;
+import com.baidu.hugegraph.structure.graph.BatchVertexRequest;
+import com.baidu.hugegraph.structure.graph.UpdateStrategy;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.util.JsonUtil;
+import com.google.common.collect.ImmutableMap;
+
+public class StreamingJsonOutputTest extends BaseUnitTest {
+
+    @Test
+    public void testWriteSameAsJson() throws IOException {
+        List<Vertex> vertices = vertices(3);
+        Assert.assertEquals(JsonUtil.toJson(vertices), write(vertices));
+
+        BatchVertexRequest request = new BatchVertexRequest.Builder()
+                .vertices(vertices)
+                .updatingStrategies(ImmutableMap.of("age",
+                                                    UpdateStrategy.SUM))
+                .createIfNotExist(true)
+                .build();
+        Assert.assertEquals(JsonUtil.toJson(request), write(request));
+    }
+
+    @Test
+    public void testWriteLargerThanBuffer() throws IOException {
+        List<Vertex> vertices = vertices(20000);
+        String json = JsonUtil.toJson(vertices);
+        Assert.assertGt(StreamingJsonOutput.BUFFER_SIZE * 4, json.length());
+        Assert.assertEquals(json, write(vertices));
+        // The buffer is returned to the pool after written
+        Assert.assertGt(0, StreamingJsonOutput.pooledBuffers());
+    }
+
+    @Test
+    public void testLength() throws IOException {
+        List<Vertex> vertices = vertices(20000);
+        vertices.get(0).property("name", "\u4e2d\u6587");
+        StreamingJsonOutput output = new StreamingJsonOutput(vertices);
+        Assert.assertEquals(0L, output.length());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        output.write(bytes);
+        Assert.assertEquals(bytes.size(), output.length());
+        // Written again when the request is retried
+        output.write(new ByteArrayOutputStream());
+        Assert.assertEquals(bytes.size(), output.length());
+    }
+
+    @Test
+    public void testWriteString() throws IOException {
+        String json = "{\"name\":\"\u4e2d\u6587\"}";
+        StreamingJsonOutput output = new StreamingJsonOutput(json);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        output.write(bytes);
+        Assert.assertEquals(json, bytes.toString("UTF-8"));
+        Assert.assertEquals(json.length() + 4L, output.length());
+    }
+
+    @Test
+    public void testCreateBatchOverStubServer() {
+        try (StubServer server = new StubServer().start()) {
+            RestClient client = new RestClient(server.url(), "", "", 10);
+            VertexAPI api = new VertexAPI(client, "hugegraph");
+            List<Object> ids = api.create(vertices(500));
+            Assert.assertEquals(500, ids.size());
+            Assert.assertEquals("1:v-499", ids.get(499));
+            client.close();
+        }
+    }
+
+    private static String write(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new StreamingJsonOutput(object).write(bytes);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static List<Vertex> vertices(int count) {
+        List<Vertex> vertices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Vertex vertex = new Vertex("person");
+            vertex.id("1:v-" + i);
+            vertex.property("name", "v-" + i);
+            vertex.property("age", i);
+            vertices.add(vertex);
+        }
+        return vertices;
+    }
+}
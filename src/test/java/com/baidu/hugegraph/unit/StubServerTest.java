@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Shard;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.structure.gremlin.ResultSet;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.testutil.Utils;
+import com.google.common.collect.ImmutableList;
+
+public class StubServerTest extends BaseUnitTest {
+
+    private StubServer server;
+    private HugeClient client;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.client = HugeClient.builder(this.server.url(), "hugegraph")
+                                .build();
+    }
+
+    @After
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testGraphApis() {
+        this.server.vertices(250);
+        Vertex vertex = this.client.graph().getVertex("1:v-3");
+        Assert.assertEquals("person", vertex.label());
+        Assert.assertEquals(3, vertex.property("age"));
+        Edge edge = this.client.graph().getEdge("S1:v-3>1>>S1:v-4");
+        Assert.assertEquals("1:v-4", edge.targetId());
+        Utils.assertResponseError(404, () -> {
+            this.client.graph().getVertex("1:v-250");
+        });
+
+        Assert.assertEquals(10, this.client.graph().listVertices(10).size());
+        Iterator<Vertex> iter = this.client.graph().iterateVertices(100);
+        int count = 0;
+        while (iter.hasNext()) {
+            Assert.assertEquals("1:v-" + count++, iter.next().id());
+        }
+        Assert.assertEquals(250, count);
+    }
+
+    @Test
+    public void testTraverserApis() {
+        this.server.vertices(50);
+        List<Vertex> vertices = this.client.traverser().vertices(
+                                ImmutableList.of("1:v-1", "1:v-60", "1:v-2"));
+        Assert.assertEquals(2, vertices.size());
+        Assert.assertEquals("1:v-2", vertices.get(1).id());
+
+        List<Shard> shards = this.client.traverser().edgeShards(20);
+        Assert.assertEquals(3, shards.size());
+        int count = 0;
+        for (Shard shard : shards) {
+            Iterator<Edge> iter = this.client.traverser()
+                                             .iteratorEdges(shard, 7);
+            while (iter.hasNext()) {
+                iter.next();
+                count++;
+            }
+        }
+        Assert.assertEquals(50, count);
+    }
+
+    @Test
+    public void testInjectFaults() {
+        long requests = this.server.requests();
+        this.server.failNext(2, 503);
+        for (int i = 0; i < 2; i++) {
+            Utils.assertResponseError(503, () -> {
+                this.client.graph().getVertex("1:v-1");
+            });
+        }
+        Assert.assertEquals("1:v-1",
+                            this.client.graph().getVertex("1:v-1").id());
+
+        this.server.latency(100L);
+        long start = System.currentTimeMillis();
+        this.client.graph().getVertex("1:v-1");
+        Assert.assertGte(100L, System.currentTimeMillis() - start);
+        Assert.assertEquals(requests + 4L, this.server.requests());
+    }
+
+    @Test
+    public void testStubbedRoutes() {
+        this.server.stub("POST", "gremlin", "{\"requestId\": \"1\", " +
+                         "\"status\": {\"code\": 200}, \"result\": " +
+                         "{\"data\": [1, 2, 3], \"meta\": {}}}");
+        ResultSet results = this.client.gremlin().gremlin("g.V()").execute();
+        Assert.assertEquals(3, results.size());
+
+        this.server.taskDuration(300L);
+        this.server.taskStatus(2L, "failed");
+        Assert.assertTrue(this.client.task().waitUntilTaskCompleted(1L, 5L)
+                                            .success());
+        Assert.assertThrows(RuntimeException.class, () -> {
+            this.client.task().waitUntilTaskCompleted(2L, 5L);
+        });
+    }
+}
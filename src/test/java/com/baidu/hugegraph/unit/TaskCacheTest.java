@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.api.task.TaskAPI;
+import com.baidu.hugegraph.client.RestClient;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.Task;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+import com.baidu.hugegraph.util.TaskCache;
+
+public class TaskCacheTest extends BaseUnitTest {
+
+    private StubServer server;
+    private RestClient client;
+    private TaskAPI taskAPI;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.client = new RestClient(this.server.url(), "", "", 10);
+        this.taskAPI = new TaskAPI(this.client, "hugegraph");
+    }
+
+    @After
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testWatchTasksInBatch() throws Exception {
+        this.server.taskDuration(300L);
+        List<CompletableFuture<Task>> futures = new ArrayList<>();
+        for (long id = 1L; id <= 500L; id++) {
+            futures.add(TaskCache.instance().watch(this.taskAPI, id));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                         .get(10L, TimeUnit.SECONDS);
+        for (CompletableFuture<Task> future : futures) {
+            Assert.assertTrue(future.get().success());
+        }
+        // The ids are queried in chunks of 100, with backoff intervals
+        Assert.assertTrue(this.server.requests() < 50L);
+    }
+
+    @Test
+    public void testWaitUntilTaskSuccess() {
+        this.server.taskDuration(200L);
+        Assert.assertTrue(this.taskAPI.waitUntilTaskSuccess(1L, 5L)
+                                      .success());
+
+        this.server.taskStatus(2L, "failed");
+        Assert.assertThrows(ClientException.class, () -> {
+            this.taskAPI.waitUntilTaskSuccess(2L, 5L);
+        }, e -> {
+            Assert.assertContains("is failed", e.getMessage());
+        });
+
+        this.server.taskDuration(10000L);
+        Assert.assertThrows(ClientException.class, () -> {
+            this.taskAPI.waitUntilTaskSuccess(3L, 1L);
+        }, e -> {
+            Assert.assertContains("not completed in 1 seconds",
+                                  e.getMessage());
+        });
+    }
+
+    @Test
+    public void testUnwatch() throws Exception {
+        this.server.taskDuration(10000L);
+        CompletableFuture<Task> future = this.taskAPI.watch(1L);
+        CompletableFuture<Task> other = this.taskAPI.watch(1L);
+        Assert.assertNotSame(future, other);
+        Thread.sleep(300L);
+        this.taskAPI.unwatch(1L, future);
+        Thread.sleep(300L);
+        long requests = this.server.requests();
+        Assert.assertGt(0L, requests);
+
+        // Still watched by the other watcher
+        Thread.sleep(1000L);
+        Assert.assertGt(requests, this.server.requests());
+
+        this.taskAPI.unwatch(1L, other);
+        Thread.sleep(300L);
+        requests = this.server.requests();
+        Thread.sleep(1000L);
+        Assert.assertEquals(requests, this.server.requests());
+        Assert.assertFalse(future.isDone());
+    }
+
+    @Test
+    public void testWatchersIsolated() throws Exception {
+        this.server.taskDuration(300L);
+        CompletableFuture<Task> future = this.taskAPI.watch(1L);
+        CompletableFuture<Task> other = this.taskAPI.watch(1L);
+        // Cancelled or completed by a watcher doesn't affect the others
+        future.cancel(false);
+        other.complete(new Task());
+        Assert.assertTrue(this.taskAPI.waitUntilTaskSuccess(1L, 5L)
+                                      .success());
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertNull(other.get().name());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.client.RestClient;
+import com.baidu.hugegraph.driver.TaskManager;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.Task;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+
+public class TaskManagerTest extends BaseUnitTest {
+
+    private StubServer server;
+    private RestClient client;
+    private TaskManager task;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.client = new RestClient(this.server.url(), "", "", 10);
+        this.task = new TaskManager(this.client, "hugegraph");
+    }
+
+    @After
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testWatch() {
+        this.server.taskDuration(200L);
+        this.server.taskStatus(2L, "failed");
+        List<CompletableFuture<Task>> futures = this.task.watch(1L, 2L, 3L);
+        Assert.assertEquals(3, futures.size());
+        Assert.assertTrue(futures.get(0).join().success());
+        Assert.assertEquals("failed", futures.get(1).join().status());
+        Assert.assertEquals(3L, futures.get(2).join().id());
+    }
+
+    @Test
+    public void testAwaitAll() {
+        this.server.taskDuration(200L);
+        long[] ids = new long[200];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1L;
+        }
+        List<Task> tasks = this.task.awaitAll(5L, ids);
+        Assert.assertEquals(200, tasks.size());
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertEquals(ids[i], tasks.get(i).id());
+            Assert.assertTrue(tasks.get(i).success());
+        }
+
+        this.server.taskStatus(1002L, "cancelled");
+        Assert.assertThrows(ClientException.class, () -> {
+            this.task.awaitAll(5L, 1001L, 1002L);
+        }, e -> {
+            Assert.assertContains("[1002(cancelled)] are not successful",
+                                  e.getMessage());
+        });
+    }
+
+    @Test
+    public void testAwaitAllTimeout() throws InterruptedException {
+        this.server.taskDuration(1500L);
+        this.server.taskStatus(1L, "success");
+        Assert.assertThrows(ClientException.class, () -> {
+            this.task.awaitAll(1L, 1L, 2L, 3L);
+        }, e -> {
+            Assert.assertContains("Tasks [2, 3] not completed in 1 seconds",
+                                  e.getMessage());
+        });
+
+        // The timed out tasks are no longer queried
+        Thread.sleep(300L);
+        long requests = this.server.requests();
+        Thread.sleep(1500L);
+        Assert.assertEquals(requests, this.server.requests());
+    }
+}
@@ -30,7 +30,29 @@ import org.junit.runners.Suite;
     BatchElementRequestTest.class,
     PropertyKeyTest.class,
     IndexLabelTest.class,
-    CommonUtilTest.class
+    CommonUtilTest.class,
+    GraphIteratorTest.class,
+    PageStreamTest.class,
+    CompactGraphTest.class,
+    VertexCacheTest.class,
+    LookupBatcherTest.class,
+    StubServerTest.class,
+    TaskCacheTest.class,
+    TaskManagerTest.class,
+    StreamingJsonOutputTest.class,
+    BatchEncodingTest.class,
+    GraphAPITest.class,
+    ResultSetTest.class,
+    ResultStreamTest.class,
+    PreparedGremlinTest.class,
+    PoolMonitorTest.class,
+    RequestMetricsTest.class,
+    LoadBalancerTest.class,
+    RetryPolicyTest.class,
+    RequestLimiterTest.class,
+    AdaptiveLimiterTest.class,
+    BulkLoaderTest.class,
+    WriteBufferTest.class
 })
 public class UnitTestSuite {
 }
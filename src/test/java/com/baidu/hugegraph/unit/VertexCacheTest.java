@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.VertexCache;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.google.common.collect.ImmutableList;
+
+public class VertexCacheTest extends BaseUnitTest {
+
+    @Test
+    public void testPutAndGet() {
+        VertexCache cache = new VertexCache(10, 60);
+        Vertex vertex = vertex(1);
+        cache.put(vertex);
+        Assert.assertEquals(vertex.properties(), cache.get(1).properties());
+        // Integer and Long ids refer to the same vertex
+        Assert.assertEquals(1, cache.get(1L).id());
+        Assert.assertNull(cache.get("1"));
+
+        cache.invalidate(1L);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(0L, cache.size());
+    }
+
+    @Test
+    public void testGetCopies() {
+        VertexCache cache = new VertexCache(10, 60);
+        Vertex vertex = vertex(1);
+        vertex.property("tags", ImmutableList.of("a"));
+        cache.put(vertex);
+        vertex.property("name", "changed");
+
+        Vertex cached = cache.get(1);
+        Assert.assertNotSame(vertex, cached);
+        Assert.assertEquals("p1", cached.property("name"));
+        cached.property("name", "changed");
+        @SuppressWarnings("unchecked")
+        List<String> tags = (List<String>) cached.property("tags");
+        tags.add("b");
+        Assert.assertEquals("p1", cache.get(1).property("name"));
+        Assert.assertEquals(ImmutableList.of("a"),
+                            cache.get(1).property("tags"));
+
+        List<Vertex> vertices = cache.getAll(ImmutableList.of(1), ids -> {
+            throw new AssertionError("Unexpected load of " + ids);
+        });
+        Assert.assertNotSame(cached, vertices.get(0));
+    }
+
+    @Test
+    public void testNotPutStaleVertex() {
+        VertexCache cache = new VertexCache(10, 60);
+        // Loaded before the write invalidating it
+        long version = cache.version();
+        Vertex stale = vertex(1);
+        cache.invalidate(1);
+        cache.put(stale, version);
+        Assert.assertNull(cache.get(1));
+
+        version = cache.version();
+        cache.put(vertex(1), version);
+        Assert.assertNotNull(cache.get(1));
+
+        List<Vertex> vertices = cache.getAll(ImmutableList.of(2), ids -> {
+            cache.invalidateAll();
+            return ImmutableList.of(vertex(2));
+        });
+        Assert.assertEquals(1, vertices.size());
+        Assert.assertNull(cache.get(2));
+    }
+
+    @Test
+    public void testCapacity() {
+        VertexCache cache = new VertexCache(3, 60);
+        for (int i = 0; i < 10; i++) {
+            cache.put(vertex(i));
+        }
+        Assert.assertTrue(cache.size() <= 3);
+        Assert.assertNotNull(cache.get(9));
+    }
+
+    @Test
+    public void testGetAllLoadsMissesOnce() {
+        VertexCache cache = new VertexCache(10, 60);
+        cache.put(vertex(1));
+        cache.put(vertex(3));
+
+        List<List<Object>> loads = new ArrayList<>();
+        List<Vertex> vertices = cache.getAll(ImmutableList.of(1, 2, 3, 4, 5),
+                                             ids -> {
+            loads.add(ids);
+            // The vertex 5 doesn't exist
+            return ImmutableList.of(vertex(2), vertex(4));
+        });
+        Assert.assertEquals(1, loads.size());
+        Assert.assertEquals(ImmutableList.of(2, 4, 5), loads.get(0));
+        Assert.assertEquals(4, vertices.size());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(i + 1, vertices.get(i).id());
+        }
+
+        vertices = cache.getAll(ImmutableList.of(4, 2), ids -> {
+            throw new AssertionError("Unexpected load of " + ids);
+        });
+        Assert.assertEquals(2, vertices.size());
+        Assert.assertEquals(4L, cache.stats().hitCount());
+        Assert.assertEquals(3L, cache.stats().missCount());
+    }
+
+    @Test
+    public void testInvalidArgs() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new VertexCache(0, 60);
+        });
+        Assert.assertThrows(IllegalArgumentException.class, () -> {
+            new VertexCache(10, -1);
+        });
+    }
+
+    private static Vertex vertex(int id) {
+        Vertex vertex = new Vertex("person");
+        vertex.id(id);
+        vertex.property("name", "p" + id);
+        return vertex;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baidu.hugegraph.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baidu.hugegraph.driver.HugeClient;
+import com.baidu.hugegraph.driver.WriteBuffer;
+import com.baidu.hugegraph.exception.ServerException;
+import com.baidu.hugegraph.rest.ClientException;
+import com.baidu.hugegraph.structure.graph.Edge;
+import com.baidu.hugegraph.structure.graph.Vertex;
+import com.baidu.hugegraph.testutil.Assert;
+import com.baidu.hugegraph.testutil.StubServer;
+
+public class WriteBufferTest extends BaseUnitTest {
+
+    private static final String BATCH = "graphs/hugegraph/graph/%s/batch";
+
+    private StubServer server;
+    private HugeClient client;
+
+    @Before
+    public void setup() {
+        this.server = new StubServer().start();
+        this.client = HugeClient.builder(this.server.url(), "hugegraph")
+                                .build();
+    }
+
+    @After
+    public void teardown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testFlushWhenFull() throws Exception {
+        try (WriteBuffer buffer = this.client.graph().writeBuffer(10, 0L)) {
+            long requests = this.server.requests();
+            List<CompletableFuture<Vertex>> futures = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                futures.add(buffer.addVertex(vertex("1:v-" + i)));
+            }
+            Assert.assertEquals(2L, this.server.requests() - requests);
+            Assert.assertEquals(5, buffer.pending());
+            Assert.assertEquals("1:v-0", futures.get(0).get().id());
+            Assert.assertFalse(futures.get(24).isDone());
+
+            buffer.flush();
+            Assert.assertEquals(3L, this.server.requests() - requests);
+            Assert.assertEquals(0, buffer.pending());
+            Assert.assertEquals("1:v-24", futures.get(24).get().id());
+            Assert.assertEquals(25L, buffer.written());
+        }
+    }
+
+    @Test
+    public void testFlushByInterval() throws Exception {
+        try (WriteBuffer buffer = this.client.graph().writeBuffer(100, 20L)) {
+            CompletableFuture<Vertex> future;
+            future = buffer.addVertex(vertex("1:v-1"));
+            Assert.assertEquals("1:v-1", future.get().id());
+            Assert.assertEquals(0, buffer.pending());
+        }
+    }
+
+    @Test
+    public void testVerticesBeforeEdges() throws Exception {
+        List<String> paths = new ArrayList<>();
+        for (String type : new String[]{"vertices", "edges"}) {
+            String path = String.format(BATCH, type);
+            this.server.stub("POST", path, request -> {
+                synchronized (paths) {
+                    paths.add(request.path());
+                }
+                return new StubServer.Reply(201, "[\"1:a\", \"1:b\"]");
+            });
+        }
+        try (WriteBuffer buffer = this.client.graph().writeBuffer(2, 0L)) {
+            Vertex a = new Vertex("person");
+            Vertex b = new Vertex("person");
+            buffer.addVertex(a);
+            CompletableFuture<Edge> future1;
+            CompletableFuture<Edge> future2;
+            future1 = buffer.addEdge(new Edge("knows").source(a).target(b));
+            // The buffered vertices are written before the full edges
+            buffer.addVertex(b);
+            future2 = buffer.addEdge(new Edge("knows").source(b).target(a));
+            Assert.assertEquals("1:a", future1.get().sourceId());
+            Assert.assertEquals("1:b", future2.get().sourceId());
+            Assert.assertEquals(String.format(BATCH, "vertices"),
+                                paths.get(0));
+            Assert.assertEquals(String.format(BATCH, "edges"), paths.get(1));
+        }
+    }
+
+    @Test
+    public void testFailurePerElement() throws Exception {
+        this.server.stub("POST", String.format(BATCH, "vertices"), request -> {
+            return StubServer.Reply.error(400, "IllegalArgumentException",
+                                          "Invalid vertex in batch");
+        });
+        this.server.stub("POST", "graphs/hugegraph/graph/vertices",
+                         request -> {
+            if (request.body().contains("bad")) {
+                return StubServer.Reply.error(400, "IllegalArgumentException",
+                                              "Invalid vertex");
+            }
+            return new StubServer.Reply(201, request.body());
+        });
+        WriteBuffer buffer = this.client.graph().writeBuffer(10, 0L);
+        CompletableFuture<Vertex> good = buffer.addVertex(vertex("1:good"));
+        CompletableFuture<Vertex> bad = buffer.addVertex(vertex("1:bad"));
+        Edge knows = new Edge("knows");
+        knows.sourceId("1:good");
+        knows.targetId("1:bad");
+        CompletableFuture<Edge> edge = buffer.addEdge(knows);
+        Assert.assertThrows(ClientException.class, () -> {
+            buffer.close();
+        }, e -> {
+            Assert.assertContains("Failed to write 1 elements",
+                                  e.getMessage());
+        });
+        Assert.assertEquals("1:good", good.get().id());
+        Assert.assertThrows(ExecutionException.class, () -> {
+            bad.get();
+        }, e -> {
+            Assert.assertInstanceOf(ServerException.class, e.getCause());
+        });
+        Assert.assertTrue(edge.isDone());
+        Assert.assertEquals(1L, buffer.failed());
+        Assert.assertEquals(2L, buffer.written());
+
+        Assert.assertThrows(IllegalStateException.class, () -> {
+            buffer.addVertex(vertex("1:v"));
+        });
+    }
+
+    @Test
+    public void testServerErrorFailsBatch() {
+        // Not bad requests, the batch isn't written one by one
+        for (int status : new int[]{503, 429, 408}) {
+            try (WriteBuffer buffer = this.client.graph()
+                                                 .writeBuffer(10, 0L)) {
+                CompletableFuture<Vertex> future1 = buffer.addVertex(
+                                                   vertex("1:v-1"));
+                CompletableFuture<Vertex> future2 = buffer.addVertex(
+                                                   vertex("1:v-2"));
+                this.server.failNext(1, status);
+                long requests = this.server.requests();
+                Assert.assertThrows(ClientException.class, () -> {
+                    buffer.flush();
+                });
+                Assert.assertEquals(1L, this.server.requests() - requests);
+                Assert.assertTrue(future1.isCompletedExceptionally());
+                Assert.assertTrue(future2.isCompletedExceptionally());
+                // The failures are thrown once
+                buffer.flush();
+            }
+        }
+    }
+
+    private static Vertex vertex(String id) {
+        Vertex vertex = new Vertex("person");
+        vertex.id(id);
+        return vertex;
+    }
+}